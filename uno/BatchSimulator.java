@@ -0,0 +1,768 @@
+package uno;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Scanner;
+
+/**
+ * <p>Plays a whole batch of games of Uno (e.g., 4,096) in lockstep, for
+ * evaluating heuristic strategies at the speed of the hardware. Instead
+ * of an object graph per game, the simulator keeps every game's state in
+ * a few flat primitive arrays (hands, draw and discard piles as card ids,
+ * one slot per game for the up card, direction and so on), and every game
+ * still going plays its next turn together: each BatchStrategy is asked
+ * once per turn for all the games in which one of its players is to move
+ * (see BatchStrategy).</p>
+ *
+ * <p>The rules, the shuffles and the order of every draw are exactly those
+ * of Game and Deck, down to java.util.Random's generator (kept here as one
+ * long per game), so game i of a batch started with seed s plays out
+ * exactly as new Game(scoreboard, players, s + i) would with UnoPlayers
+ * that make the same decisions as the BatchStrategies. The "check" option
+ * of main() confirms this game by game.</p>
+ * @since 2.0
+ */
+public class BatchSimulator {
+
+    /**
+     * The name of a file (relative to working directory) containing
+     * comma-separated lines, each of which contains a player name and the
+     * prefix of the player's classes: "uno.<i>prefix</i>_BatchStrategy"
+     * and (for checking) "uno.<i>prefix</i>_UnoPlayer".
+     */
+    public static final String PLAYER_FILENAME = "players.txt";
+
+    /**
+     * The default number of games played in lockstep.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    /**
+     * getWinner() of a game still being played.
+     */
+    public static final int IN_PROGRESS = -1;
+
+    /**
+     * getWinner() of a game that ended in a draw, with no cards left.
+     */
+    public static final int DRAWN = -2;
+
+    /**
+     * getWinner() of a game abandoned because a strategy made an illegal
+     * play.
+     */
+    public static final int ILLEGAL_PLAY = -3;
+
+    /**
+     * The color ordinal standing for Color.NONE.
+     */
+    public static final int NO_COLOR = 4;
+
+    /**
+     * The number of cards in a deck, and so the most any hand or pile can
+     * hold.
+     */
+    static final int DECK_SIZE = 108;
+
+    /**
+     * The cards of a new Deck, before shuffling, in Deck's order.
+     */
+    private static final byte[] NEW_DECK = new byte[DECK_SIZE];
+
+    static {
+        int n = 0;
+        int[] colors = { 0, 1, 3, 2 }; // red, yellow, blue, green
+        int[] specialColors = { 0, 1, 2, 3 }; // red, yellow, green, blue
+        for (int i=1; i<=9; i++) {
+            for (int j=0; j<Deck.NUMBER_OF_DUP_REGULAR_CARDS; j++) {
+                for (int c : colors) {
+                    NEW_DECK[n++] = (byte) (c * 13 + i);
+                }
+            }
+        }
+        for (int j=0; j<Deck.NUMBER_OF_DUP_ZERO_CARDS; j++) {
+            for (int c : colors) {
+                NEW_DECK[n++] = (byte) (c * 13);
+            }
+        }
+        for (int j=0; j<Deck.NUMBER_OF_DUP_SPECIAL_CARDS; j++) {
+            for (int face=10; face<=12; face++) {
+                for (int c : specialColors) {
+                    NEW_DECK[n++] = (byte) (c * 13 + face);
+                }
+            }
+        }
+        for (int i=0; i<Deck.NUMBER_OF_WILD_CARDS; i++) {
+            NEW_DECK[n++] = (byte) Card.WILD_ID;
+        }
+        for (int i=0; i<Deck.NUMBER_OF_WILD_D4_CARDS; i++) {
+            NEW_DECK[n++] = (byte) Card.WILD_D4_ID;
+        }
+    }
+
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private BatchStrategy[] strategies;
+    private int numPlayers;
+    private int batchSize;
+
+    private byte[] hands;
+    private int[] handSizes;
+    private byte[] deck;
+    private int[] deckStart;
+    private int[] deckSize;
+    private byte[] discards;
+    private int[] numDiscards;
+    private int[] upCard;
+    private int[] calledColor;
+    private int[] direction;
+    private int[] currPlayer;
+    private byte[] lastCalled;
+    private long[] rand;
+    private int[] winner;
+    private int[] points;
+    private int[] turns;
+
+    private int[] active;
+    private int[] batch;
+    private int[] decisions;
+    private int[] choice;
+    private int[] drew;
+    private int[] calling;
+
+    /**
+     * Instantiate a simulator for games between the strategies passed, in
+     * seat order.
+     * @param batchSize The number of games played in lockstep.
+     */
+    public BatchSimulator(BatchStrategy[] strategies, int batchSize) {
+        Game.checkNumPlayers(strategies.length);
+        this.strategies = strategies;
+        this.batchSize = batchSize;
+        numPlayers = strategies.length;
+        hands = new byte[batchSize * numPlayers * DECK_SIZE];
+        handSizes = new int[batchSize * numPlayers];
+        deck = new byte[batchSize * DECK_SIZE];
+        deckStart = new int[batchSize];
+        deckSize = new int[batchSize];
+        discards = new byte[batchSize * DECK_SIZE];
+        numDiscards = new int[batchSize];
+        upCard = new int[batchSize];
+        calledColor = new int[batchSize];
+        direction = new int[batchSize];
+        currPlayer = new int[batchSize];
+        lastCalled = new byte[batchSize * numPlayers];
+        rand = new long[batchSize];
+        winner = new int[batchSize];
+        points = new int[batchSize];
+        turns = new int[batchSize];
+        active = new int[batchSize];
+        batch = new int[batchSize];
+        decisions = new int[batchSize];
+        choice = new int[batchSize];
+        drew = new int[batchSize];
+        calling = new int[batchSize];
+    }
+
+    /**
+     * Deal a new batch: game i is dealt as by a Game seeded with
+     * firstSeed + i.
+     */
+    public void start(long firstSeed) {
+        for (int g=0; g<batchSize; g++) {
+            deal(g, firstSeed + g);
+        }
+    }
+
+    /**
+     * Play every game of the batch to the end.
+     */
+    public void playAll() {
+        while (step()) {
+        }
+    }
+
+    /**
+     * Play a batch of games, and record each game won on the scoreboard
+     * passed (as Game would).
+     * @return The number of games that were drawn or abandoned.
+     */
+    public int play(long firstSeed, Scoreboard scoreboard) {
+        start(firstSeed);
+        playAll();
+        int unfinished = 0;
+        for (int g=0; g<batchSize; g++) {
+            if (winner[g] >= 0) {
+                scoreboard.recordWin(winner[g], points[g], turns[g]);
+            }
+            else {
+                unfinished++;
+            }
+        }
+        return unfinished;
+    }
+
+    /**
+     * Play one turn of every game still going.
+     * @return true if any game is still going afterwards.
+     */
+    public boolean step() {
+        int count = 0;
+        for (int g=0; g<batchSize; g++) {
+            if (winner[g] == IN_PROGRESS) {
+                active[count++] = g;
+            }
+        }
+        if (count == 0) {
+            return false;
+        }
+        decide(active, count);
+
+        // Players who can't play draw one card, and get a second chance
+        // if it is playable (as in Game, nothing else can be).
+        int numDrew = 0;
+        for (int k=0; k<count; k++) {
+            int g = active[k];
+            if (choice[g] < 0) {
+                int card = draw(g);
+                if (card < 0) {
+                    winner[g] = DRAWN;
+                    continue;
+                }
+                addToHand(g, currPlayer[g], card);
+                if (GameSnapshot.canPlay(card, upCard[g], calledColor[g])) {
+                    drew[numDrew++] = g;
+                }
+            }
+        }
+        decide(drew, numDrew);
+
+        int numCalling = 0;
+        for (int k=0; k<count; k++) {
+            int g = active[k];
+            if (winner[g] != IN_PROGRESS || choice[g] < 0) {
+                continue;
+            }
+            int hand = (g * numPlayers + currPlayer[g]) * DECK_SIZE;
+            int size = handSizes[g * numPlayers + currPlayer[g]];
+            if (choice[g] >= size) {
+                winner[g] = ILLEGAL_PLAY;
+                continue;
+            }
+            int card = hands[hand + choice[g]];
+            if (!GameSnapshot.canPlay(card, upCard[g], calledColor[g])) {
+                winner[g] = ILLEGAL_PLAY;
+                continue;
+            }
+            System.arraycopy(hands, hand + choice[g] + 1, hands,
+                hand + choice[g], size - choice[g] - 1);
+            handSizes[g * numPlayers + currPlayer[g]]--;
+            discards[g * DECK_SIZE + numDiscards[g]++] = (byte) upCard[g];
+            upCard[g] = card;
+            if (card >= Card.WILD_ID) {
+                calling[numCalling++] = g;
+            }
+            else {
+                calledColor[g] = NO_COLOR;
+            }
+        }
+        callColors(numCalling);
+
+        for (int k=0; k<count; k++) {
+            int g = active[k];
+            if (winner[g] != IN_PROGRESS) {
+                continue;
+            }
+            int player = currPlayer[g];
+            if (handSizes[g * numPlayers + player] == 0) {
+                points[g] = countPoints(g);
+                turns[g]++;
+                winner[g] = player;
+                continue;
+            }
+            if (choice[g] >= 0) {
+                performCardEffect(g);
+            }
+            else {
+                advance(g);
+            }
+            turns[g]++;
+        }
+        return true;
+    }
+
+    /**
+     * Ask each strategy for its decisions in the games listed, and store
+     * them in choice.
+     */
+    private void decide(int[] games, int count) {
+        for (int s=0; s<numPlayers; s++) {
+            BatchStrategy strategy = strategies[s];
+            boolean asked = false;
+            for (int earlier=0; earlier<s; earlier++) {
+                asked |= strategies[earlier] == strategy;
+            }
+            if (asked) {
+                continue;
+            }
+            int n = 0;
+            for (int k=0; k<count; k++) {
+                if (strategies[currPlayer[games[k]]] == strategy) {
+                    batch[n++] = games[k];
+                }
+            }
+            if (n > 0) {
+                strategy.play(this, batch, n, decisions);
+                for (int k=0; k<n; k++) {
+                    choice[batch[k]] = decisions[k];
+                }
+            }
+        }
+    }
+
+    private void callColors(int count) {
+        for (int s=0; s<numPlayers; s++) {
+            BatchStrategy strategy = strategies[s];
+            boolean asked = false;
+            for (int earlier=0; earlier<s; earlier++) {
+                asked |= strategies[earlier] == strategy;
+            }
+            if (asked) {
+                continue;
+            }
+            int n = 0;
+            for (int k=0; k<count; k++) {
+                if (strategies[currPlayer[calling[k]]] == strategy) {
+                    batch[n++] = calling[k];
+                }
+            }
+            if (n > 0) {
+                strategy.callColor(this, batch, n, decisions);
+                for (int k=0; k<n; k++) {
+                    int g = batch[k];
+                    calledColor[g] = decisions[k];
+                    lastCalled[g * numPlayers + currPlayer[g]] =
+                        (byte) decisions[k];
+                }
+            }
+        }
+    }
+
+    private void performCardEffect(int g) {
+        int card = upCard[g];
+        int face = card >= Card.WILD_ID ? card : card % 13;
+        switch (face) {
+            case 10: // skip
+                advance(g);
+                advance(g);
+                break;
+            case 11: // reverse
+                direction[g] = -direction[g];
+                advance(g);
+                if (numPlayers == 2) {
+                    advance(g);
+                }
+                break;
+            case 12: // draw two
+                nextPlayerDraws(g, 2);
+                advance(g);
+                advance(g);
+                break;
+            case Card.WILD_D4_ID:
+                nextPlayerDraws(g, 4);
+                advance(g);
+                advance(g);
+                break;
+            default:
+                advance(g);
+                break;
+        }
+    }
+
+    private void nextPlayerDraws(int g, int cards) {
+        int next = nextPlayer(g);
+        for (int i=0; i<cards && winner[g]==IN_PROGRESS; i++) {
+            int card = draw(g);
+            if (card < 0) {
+                winner[g] = DRAWN;
+            }
+            else {
+                addToHand(g, next, card);
+            }
+        }
+    }
+
+    private int nextPlayer(int g) {
+        return (currPlayer[g] + direction[g] + numPlayers) % numPlayers;
+    }
+
+    private void advance(int g) {
+        currPlayer[g] = nextPlayer(g);
+    }
+
+    private void addToHand(int g, int player, int card) {
+        int p = g * numPlayers + player;
+        hands[p * DECK_SIZE + handSizes[p]++] = (byte) card;
+    }
+
+    private int countPoints(int g) {
+        int total = 0;
+        for (int p=0; p<numPlayers; p++) {
+            int hand = (g * numPlayers + p) * DECK_SIZE;
+            for (int i=0; i<handSizes[g * numPlayers + p]; i++) {
+                total += GameSnapshot.POINTS[hands[hand + i]];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Deal game g as Game's constructor would with the seed passed.
+     */
+    private void deal(int g, long seed) {
+        rand[g] = (seed ^ MULTIPLIER) & MASK;
+        System.arraycopy(NEW_DECK, 0, deck, g * DECK_SIZE, DECK_SIZE);
+        deckStart[g] = 0;
+        deckSize[g] = DECK_SIZE;
+        numDiscards[g] = 0;
+        shuffle(g);
+        Arrays.fill(handSizes, g * numPlayers, (g + 1) * numPlayers, 0);
+        Arrays.fill(lastCalled, g * numPlayers, (g + 1) * numPlayers,
+            (byte) NO_COLOR);
+        for (int p=0; p<numPlayers; p++) {
+            for (int j=0; j<Game.INIT_HAND_SIZE; j++) {
+                addToHand(g, p, draw(g));
+            }
+        }
+        upCard[g] = draw(g);
+        while (upCard[g] >= Card.WILD_ID) {
+            discards[g * DECK_SIZE + numDiscards[g]++] = (byte) upCard[g];
+            upCard[g] = draw(g);
+        }
+        direction[g] = 1;
+        currPlayer[g] = nextInt(g, numPlayers);
+        calledColor[g] = NO_COLOR;
+        winner[g] = IN_PROGRESS;
+        points[g] = 0;
+        turns[g] = 0;
+    }
+
+    /**
+     * Draw the top card of game g's deck, remixing the discards into it if
+     * it is empty, as Game does.
+     * @return The card, or -1 if there is none even after remixing.
+     */
+    private int draw(int g) {
+        if (deckSize[g] == 0) {
+            System.arraycopy(discards, g * DECK_SIZE, deck, g * DECK_SIZE,
+                numDiscards[g]);
+            deckStart[g] = 0;
+            deckSize[g] = numDiscards[g];
+            numDiscards[g] = 0;
+            shuffle(g);
+            if (deckSize[g] == 0) {
+                return -1;
+            }
+        }
+        deckSize[g]--;
+        return deck[g * DECK_SIZE + deckStart[g]++];
+    }
+
+    /**
+     * Shuffle game g's deck as Deck.shuffle() does.
+     */
+    private void shuffle(int g) {
+        int base = g * DECK_SIZE + deckStart[g];
+        int size = deckSize[g];
+        for (int i=0; i<Deck.SHUFFLE_FACTOR * size; i++) {
+            int x = nextInt(g, size);
+            int y = nextInt(g, size);
+            byte temp = deck[base + x];
+            deck[base + x] = deck[base + y];
+            deck[base + y] = temp;
+        }
+    }
+
+    /**
+     * Return the next int from 0 up to bound from game g's generator,
+     * exactly as java.util.Random.nextInt(bound) would.
+     */
+    private int nextInt(int g, int bound) {
+        int r = next31(g);
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return (int) ((bound * (long) r) >> 31);
+        }
+        for (int u = r; u - (r = u % bound) + m < 0; u = next31(g)) {
+        }
+        return r;
+    }
+
+    private int next31(int g) {
+        rand[g] = (rand[g] * MULTIPLIER + ADDEND) & MASK;
+        return (int) (rand[g] >>> 17);
+    }
+
+    /**
+     * Return the number of games in a batch.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Return the number of players in each game.
+     */
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
+    /**
+     * Return the zero-based number of the player to move in game g.
+     */
+    public int getCurrentPlayer(int g) {
+        return currPlayer[g];
+    }
+
+    /**
+     * Return the number of cards a player holds in game g.
+     */
+    public int getHandSize(int g, int player) {
+        return handSizes[g * numPlayers + player];
+    }
+
+    /**
+     * Return the id (see Card.getId()) of the card at an index of a
+     * player's hand in game g. Hands are in the same order as Hand's.
+     */
+    public int getCard(int g, int player, int index) {
+        return hands[(g * numPlayers + player) * DECK_SIZE + index];
+    }
+
+    /**
+     * Return the id of the up card of game g.
+     */
+    public int getUpCard(int g) {
+        return upCard[g];
+    }
+
+    /**
+     * Return the ordinal of the color called on the up card of game g, or
+     * NO_COLOR if it isn't a wild.
+     */
+    public int getCalledColor(int g) {
+        return calledColor[g];
+    }
+
+    /**
+     * Return the number of cards played in game g since the last remix.
+     */
+    public int getNumPlayed(int g) {
+        return numDiscards[g];
+    }
+
+    /**
+     * Return the id of one of the cards played in game g since the last
+     * remix, in the order they were played.
+     */
+    public int getPlayed(int g, int index) {
+        return discards[g * DECK_SIZE + index];
+    }
+
+    /**
+     * Return the player whose hand size and called color GameState would
+     * report at an index of its "upcoming players" arrays in game g.
+     */
+    public int getUpcomingPlayer(int g, int index) {
+        if (direction[g] > 0) {
+            return (currPlayer[g] + index + 1) % numPlayers;
+        }
+        return (currPlayer[g] - index - 1 + numPlayers) % numPlayers;
+    }
+
+    /**
+     * Return what GameState.getNumCardsInHandsOfUpcomingPlayers()[index]
+     * would in game g.
+     */
+    public int getUpcomingHandSize(int g, int index) {
+        return handSizes[g * numPlayers + getUpcomingPlayer(g, index)];
+    }
+
+    /**
+     * Return the ordinal of the color
+     * GameState.getMostRecentColorCalledByUpcomingPlayers()[index] would
+     * in game g, or NO_COLOR where that would be null.
+     */
+    public int getUpcomingCalledColor(int g, int index) {
+        return lastCalled[g * numPlayers + getUpcomingPlayer(g, index)];
+    }
+
+    /**
+     * Return the winner of game g, or IN_PROGRESS, DRAWN or ILLEGAL_PLAY.
+     */
+    public int getWinner(int g) {
+        return winner[g];
+    }
+
+    /**
+     * Return the points the winner of game g collected.
+     */
+    public int getPoints(int g) {
+        return points[g];
+    }
+
+    /**
+     * Return the number of turns game g has taken.
+     */
+    public int getTurns(int g) {
+        return turns[g];
+    }
+
+    /**
+     * Play a number of games between the batch strategies listed in
+     * players.txt. Usage:
+     * <pre>
+     * BatchSimulator numGames [batchSize] [seed] [check]
+     * </pre>
+     * Game i is played with seed seed + i (seed defaults to 0). With
+     * "check", every game is played again by Game with the matching
+     * UnoPlayers, and any game that comes out differently is reported.
+     */
+    public static void main(String args[]) {
+        if (args.length < 1  ||  args.length > 4) {
+            System.out.println("Usage: BatchSimulator numGames [batchSize] [seed] [check]");
+            System.exit(1);
+        }
+        try {
+            int numGames = Integer.parseInt(args[0]);
+            int batchSize = DEFAULT_BATCH_SIZE;
+            long seed = 0;
+            boolean check = false;
+            int positional = 0;
+            for (int i=1; i<args.length; i++) {
+                if (args[i].equals("check")) {
+                    check = true;
+                }
+                else if (positional++ == 0) {
+                    batchSize = Integer.parseInt(args[i]);
+                }
+                else {
+                    seed = Long.parseLong(args[i]);
+                }
+            }
+            ArrayList<String> names = new ArrayList<String>();
+            ArrayList<String> prefixes = new ArrayList<String>();
+            loadPlayerData(names, prefixes);
+            BatchStrategy[] strategies = new BatchStrategy[names.size()];
+            for (int i=0; i<strategies.length; i++) {
+                try {
+                    strategies[i] = (BatchStrategy) Class.forName("uno." +
+                        prefixes.get(i) + "_BatchStrategy")
+                        .getDeclaredConstructor().newInstance();
+                }
+                catch (ClassNotFoundException e) {
+                    System.out.println(names.get(i) + " plays \"" +
+                        prefixes.get(i) + "\", which has no " +
+                        "BatchStrategy (no class uno." + prefixes.get(i) +
+                        "_BatchStrategy); BatchSimulator can't seat them.");
+                    System.exit(1);
+                }
+            }
+            String[] nameArray = names.toArray(new String[0]);
+            Scoreboard s = new Scoreboard(nameArray);
+            BatchSimulator simulator = new BatchSimulator(strategies,
+                Math.min(batchSize, numGames));
+            long startTime = System.nanoTime();
+            int unfinished = 0;
+            int mismatches = 0;
+            for (int first=0; first<numGames; first+=simulator.batchSize) {
+                unfinished += simulator.play(seed + first, s);
+                if (check) {
+                    mismatches += simulator.check(prefixes, nameArray,
+                        seed + first, Math.min(simulator.batchSize,
+                        numGames - first));
+                }
+            }
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            for (int i=0; i<nameArray.length; i++) {
+                System.out.println(String.format(
+                    "%s: %.2f%% wins, %.2f points/game", nameArray[i],
+                    100 * s.getWinRate(i), s.getMeanPoints(i)));
+            }
+            int played = (numGames + simulator.batchSize - 1) /
+                simulator.batchSize * simulator.batchSize;
+            System.out.println(String.format(
+                "%d games (%d drawn) in %.2f seconds (%.0f games/sec).",
+                played, unfinished, seconds, played / seconds));
+            if (check) {
+                System.out.println(mismatches == 0 ?
+                    "Every game matched Game." :
+                    mismatches + " games differed from Game.");
+            }
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Play the games of the last batch again with Game, and return how
+     * many came out differently.
+     */
+    private int check(ArrayList<String> prefixes, String[] names,
+        long firstSeed, int count) throws Exception {
+        UnoPlayer[] players = new UnoPlayer[prefixes.size()];
+        for (int i=0; i<players.length; i++) {
+            players[i] = (UnoPlayer) Class.forName("uno." + prefixes.get(i) +
+                "_UnoPlayer").getDeclaredConstructor().newInstance();
+        }
+        int mismatches = 0;
+        for (int g=0; g<count; g++) {
+            Scoreboard s = new Scoreboard(names);
+            Game game = new Game(s, players, firstSeed + g,
+                RuleSet.OFFICIAL);
+            int result;
+            try {
+                do {
+                    result = game.playTurn();
+                } while (result == Game.TURN_PLAYED);
+            }
+            catch (EmptyDeckException e) {
+                result = -1;
+            }
+            boolean same;
+            if (result == Game.GAME_WON) {
+                same = winner[g] == game.currPlayer &&
+                    points[g] == s.getScore(game.currPlayer) &&
+                    turns[g] == game.turnsPlayed;
+            }
+            else {
+                same = winner[g] == (result == Game.ILLEGAL_PLAY ?
+                    ILLEGAL_PLAY : DRAWN);
+            }
+            if (!same) {
+                mismatches++;
+                System.out.println("Game " + (firstSeed + g) +
+                    " differs from Game.");
+            }
+        }
+        return mismatches;
+    }
+
+    private static void loadPlayerData(ArrayList<String> names,
+        ArrayList<String> prefixes) throws Exception {
+        BufferedReader br = new BufferedReader(new FileReader(
+            PLAYER_FILENAME));
+        String playerLine = br.readLine();
+        while (playerLine != null) {
+            Scanner line = new Scanner(playerLine).useDelimiter(",");
+            names.add(line.next());
+            prefixes.add(line.next());
+            playerLine = br.readLine();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package uno;
+
+/**
+ * <p>A playing strategy for the BatchSimulator, which makes the same
+ * decision for many games at once: the batch counterpart of UnoPlayer.
+ * Each call lists the games in which it is one of this strategy's
+ * players' turn, and the strategy reads what it needs of each game from
+ * the simulator (which presents the same information a GameState would)
+ * and writes its decisions into an array, so that scoring every game's
+ * current decision is a single loop over primitive arrays.</p>
+ *
+ * <p>A BatchStrategy must not keep anything from one call to the next
+ * about a particular game: the same instance plays every seat it is given
+ * in every game of the batch. A strategy whose decisions match an
+ * UnoPlayer's exactly (like as_BatchStrategy and as_UnoPlayer) plays
+ * exactly the same games as Game would on the same seeds.</p>
+ *
+ * <p>Batch strategies listed by prefix (as_BatchStrategy and
+ * random_BatchStrategy so far) are loaded as the class
+ * "uno.<i>prefix</i>_BatchStrategy", as players are.</p>
+ * @since 2.0
+ */
+public interface BatchStrategy {
+
+    /**
+     * Choose a card to play in each of a number of games. The hand is
+     * that of the current player of each game (see
+     * BatchSimulator.getCurrentPlayer()).
+     * @param games The simulator holding the games.
+     * @param batch The numbers of the games to decide for, in its first
+     * count entries.
+     * @param count The number of games to decide for.
+     * @param choices Receives, at the same position as each game in
+     * batch, the index in the current player's hand of the card to play,
+     * or -1 to draw (or, having drawn, to pass). A strategy is asked again
+     * after drawing only if the drawn card is playable, as in Game.
+     */
+    void play(BatchSimulator games, int[] batch, int count, int[] choices);
+
+    /**
+     * Choose a color to call in each of a number of games in which the
+     * current player has just played a wild (which has already left their
+     * hand).
+     * @param colors Receives, at the same position as each game in batch,
+     * the ordinal of the Color to call (not Color.NONE).
+     */
+    void callColor(BatchSimulator games, int[] batch, int count,
+        int[] colors);
+}
@@ -0,0 +1,93 @@
+package uno;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * <p>A stand-in bot for testing BridgeUnoPlayer. It speaks BridgeProtocol
+ * on its standard input and output (or, given a port number, on a local
+ * socket) and plays the first card in its hand that is legal under the
+ * rules it is sent (a card that stacks, if it must draw otherwise),
+ * calling the color it holds the most of. Each frame of requests is answered with one frame
+ * of replies.</p>
+ * @since 2.0
+ */
+public class BridgeEchoBot {
+
+    public static void main(String args[]) throws IOException {
+        if (args.length == 1) {
+            ServerSocket server = new ServerSocket(Integer.parseInt(args[0]));
+            Socket socket = server.accept();
+            socket.setTcpNoDelay(true);
+            serve(new DataInputStream(new BufferedInputStream(
+                    socket.getInputStream(), 1 << 16)),
+                new DataOutputStream(new BufferedOutputStream(
+                    socket.getOutputStream(), 1 << 16)));
+            server.close();
+        }
+        else {
+            serve(new DataInputStream(new BufferedInputStream(System.in,
+                    1 << 16)),
+                new DataOutputStream(new BufferedOutputStream(System.out,
+                    1 << 16)));
+        }
+    }
+
+    private static void serve(DataInputStream in, DataOutputStream out)
+        throws IOException {
+        try {
+            while (true) {
+                int count = in.readInt();
+                out.writeInt(count);
+                for (int i=0; i<count; i++) {
+                    BridgeProtocol.Request r = BridgeProtocol.readRequest(in);
+                    out.writeInt(r.id);
+                    if (r.type == BridgeProtocol.PLAY) {
+                        out.writeShort(play(r));
+                    }
+                    else {
+                        out.writeShort(callColor(r));
+                    }
+                }
+                out.flush();
+            }
+        }
+        catch (EOFException e) {
+            // The simulator hung up; we're done.
+        }
+    }
+
+    private static int play(BridgeProtocol.Request r) {
+        RuleSet rules = RuleSet.parse(r.rules);
+        UnoPlayer.Color calledColor = UnoPlayer.Color.values()[r.calledColor];
+        for (int i=0; i<r.hand.length; i++) {
+            if (r.pendingDraws > 0 ? rules.canStack(r.hand[i], r.upCard) :
+                rules.canPlay(r.hand[i], r.upCard, calledColor)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int callColor(BridgeProtocol.Request r) {
+        int[] colors = new int[4];
+        for (int id : r.hand) {
+            if (id < Card.WILD_ID) {
+                colors[id / 13]++;
+            }
+        }
+        int best = 0;
+        for (int i=1; i<colors.length; i++) {
+            if (colors[i] > colors[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+}
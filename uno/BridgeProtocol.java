@@ -0,0 +1,125 @@
+package uno;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * <p>The wire format spoken between a BridgeUnoPlayer and an Uno strategy
+ * running in another process. All numbers are big-endian, as written by
+ * DataOutputStream.</p>
+ *
+ * <p>Requests travel in frames. A frame is an int count followed by that
+ * many requests, each laid out as:</p>
+ * <pre>
+ *   int    request id (echoed back in the reply)
+ *   byte   type: PLAY or CALL_COLOR
+ *   byte   up card id (see Card.getId), or NO_CARD for CALL_COLOR
+ *   byte   called color ordinal (Color.NONE if no wild is up)
+ *   short  cards the player must draw unless they stack (see
+ *          GameState.getPendingDraws), 0 if none
+ *   UTF    the rules in play, as RuleSet.toString writes them and
+ *          RuleSet.parse reads them (for instance "stacking,jump-in")
+ *   short  hand size n, then n bytes of card ids
+ *   byte   number of players p, then for each of them, in the order of
+ *          GameState (the next player first, and the player being asked
+ *          last):
+ *            short  cards in hand
+ *            byte   most recently called color ordinal, or NO_COLOR
+ *            int    total score
+ * </pre>
+ * <p>Replies also travel in frames: an int count followed by that many
+ * (int request id, short answer) pairs. The answer to a PLAY request is
+ * the index of the card to play, or -1 to draw; the answer to a
+ * CALL_COLOR request is the ordinal of the color called. Replies may come
+ * back in any order and grouped into frames in any way.</p>
+ * @since 2.0
+ */
+public class BridgeProtocol {
+
+    public static final int PLAY = 0;
+    public static final int CALL_COLOR = 1;
+
+    /**
+     * Sent in place of an up card id when there is none.
+     */
+    public static final int NO_CARD = 255;
+
+    /**
+     * Sent in place of a color ordinal for a player who hasn't called one.
+     */
+    public static final int NO_COLOR = 255;
+
+    /**
+     * A decision request as read back from the wire by a bot.
+     */
+    public static class Request {
+        public int id;
+        public int type;
+        public int upCard;
+        public int calledColor;
+        public int pendingDraws;
+        public String rules;
+        public int[] hand;
+        public int[] numCardsInHandsOfUpcomingPlayers;
+        public int[] mostRecentColorCalledByUpcomingPlayers;
+        public int[] totalScoreOfUpcomingPlayers;
+    }
+
+    /**
+     * Write a single request (without the frame's count).
+     */
+    public static void writeRequest(DataOutputStream out, int id, int type,
+        List<Card> hand, Card upCard, UnoPlayer.Color calledColor,
+        GameState state) throws IOException {
+        out.writeInt(id);
+        out.writeByte(type);
+        out.writeByte(upCard == null ? NO_CARD : upCard.getId());
+        out.writeByte(calledColor.ordinal());
+        out.writeShort(state.getPendingDraws());
+        out.writeUTF(state.getRules().toString());
+        out.writeShort(hand.size());
+        for (int i=0; i<hand.size(); i++) {
+            out.writeByte(hand.get(i).getId());
+        }
+        int[] numCards = state.getNumCardsInHandsOfUpcomingPlayers();
+        UnoPlayer.Color[] colors =
+            state.getMostRecentColorCalledByUpcomingPlayers();
+        int[] scores = state.getTotalScoreOfUpcomingPlayers();
+        out.writeByte(numCards.length);
+        for (int i=0; i<numCards.length; i++) {
+            out.writeShort(numCards[i]);
+            out.writeByte(colors[i] == null ? NO_COLOR : colors[i].ordinal());
+            out.writeInt(scores[i]);
+        }
+    }
+
+    /**
+     * Read a single request (without the frame's count).
+     */
+    public static Request readRequest(DataInputStream in) throws IOException {
+        Request r = new Request();
+        r.id = in.readInt();
+        r.type = in.readUnsignedByte();
+        r.upCard = in.readUnsignedByte();
+        r.calledColor = in.readUnsignedByte();
+        r.pendingDraws = in.readUnsignedShort();
+        r.rules = in.readUTF();
+        r.hand = new int[in.readUnsignedShort()];
+        for (int i=0; i<r.hand.length; i++) {
+            r.hand[i] = in.readUnsignedByte();
+        }
+        int numPlayers = in.readUnsignedByte();
+        r.numCardsInHandsOfUpcomingPlayers = new int[numPlayers];
+        r.mostRecentColorCalledByUpcomingPlayers = new int[numPlayers];
+        r.totalScoreOfUpcomingPlayers = new int[numPlayers];
+        for (int i=0; i<numPlayers; i++) {
+            r.numCardsInHandsOfUpcomingPlayers[i] = in.readUnsignedShort();
+            r.mostRecentColorCalledByUpcomingPlayers[i] =
+                in.readUnsignedByte();
+            r.totalScoreOfUpcomingPlayers[i] = in.readInt();
+        }
+        return r;
+    }
+}
@@ -0,0 +1,221 @@
+package uno;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>An UnoPlayer whose decisions are made by a strategy running in another
+ * process, reached either through a child process's stdin/stdout or
+ * through a local socket. Requests are sent in the format described by
+ * BridgeProtocol.</p>
+ *
+ * <p>A single BridgeUnoPlayer is meant to be shared by every game of a
+ * match. A writer thread collects whatever requests the games have made
+ * since its last write and sends them all in one frame, without waiting
+ * for earlier frames to be answered; a reader thread hands each reply back
+ * to the game that is waiting for it. The more games in flight (see
+ * SimulationPool.startPerGame), the more decisions share each round trip.
+ * </p>
+ * @since 2.0
+ */
+public class BridgeUnoPlayer implements StatelessUnoPlayer {
+
+    /**
+     * The most requests that will be sent in a single frame.
+     */
+    public static final int MAX_BATCH_SIZE = 4096;
+
+    /**
+     * A request waiting to be sent or answered.
+     */
+    private static class Pending {
+        int id;
+        int type;
+        List<Card> hand;
+        Card upCard;
+        Color calledColor;
+        GameState state;
+        int answer;
+        IOException failure;
+        CountDownLatch done = new CountDownLatch(1);
+    }
+
+    private Process process;
+    private Socket socket;
+    private DataOutputStream out;
+    private DataInputStream in;
+    private LinkedBlockingQueue<Pending> toSend =
+        new LinkedBlockingQueue<Pending>();
+    private ConcurrentHashMap<Integer, Pending> awaitingReply =
+        new ConcurrentHashMap<Integer, Pending>();
+    private AtomicInteger nextId = new AtomicInteger();
+    private volatile IOException failure;
+
+    /**
+     * Start the bot as a child process and talk to it over its standard
+     * input and output. Its standard error is passed through to ours.
+     * @param command The command line that starts the bot.
+     */
+    public BridgeUnoPlayer(String... command) throws IOException {
+        process = new ProcessBuilder(command)
+            .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        connect(process.getInputStream(), process.getOutputStream());
+    }
+
+    /**
+     * Connect to a bot that is already listening on a local socket.
+     */
+    public BridgeUnoPlayer(String host, int port) throws IOException {
+        socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        connect(socket.getInputStream(), socket.getOutputStream());
+    }
+
+    private void connect(InputStream is, OutputStream os) {
+        in = new DataInputStream(new BufferedInputStream(is, 1 << 16));
+        out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16));
+        Thread writer = new Thread(new Runnable() {
+            public void run() {
+                writeFrames();
+            }
+        }, "BridgeUnoPlayer writer");
+        Thread reader = new Thread(new Runnable() {
+            public void run() {
+                readFrames();
+            }
+        }, "BridgeUnoPlayer reader");
+        writer.setDaemon(true);
+        reader.setDaemon(true);
+        writer.start();
+        reader.start();
+    }
+
+    public int play(List<Card> hand, Card upCard, Color calledColor,
+        GameState state) {
+        return ask(BridgeProtocol.PLAY, hand, upCard, calledColor, state);
+    }
+
+    public Color callColor(List<Card> hand) {
+        return callColor(hand, new GameState());
+    }
+
+    public Color callColor(List<Card> hand, GameState state) {
+        return Color.values()[ask(BridgeProtocol.CALL_COLOR, hand, null,
+            Color.NONE, state)];
+    }
+
+    /**
+     * Shut the connection (and the child process, if there is one) down.
+     */
+    public void close() throws IOException {
+        out.close();
+        if (socket != null) {
+            socket.close();
+        }
+        if (process != null) {
+            process.destroy();
+        }
+    }
+
+    /**
+     * Queue a request for the writer thread, and block until the reader
+     * thread has its answer.
+     */
+    private int ask(int type, List<Card> hand, Card upCard,
+        Color calledColor, GameState state) {
+        Pending p = new Pending();
+        p.id = nextId.getAndIncrement();
+        p.type = type;
+        p.hand = hand;
+        p.upCard = upCard;
+        p.calledColor = calledColor;
+        p.state = state;
+        awaitingReply.put(p.id, p);
+        if (failure != null) {
+            awaitingReply.remove(p.id);
+            throw new IllegalStateException("Bridge is down.", failure);
+        }
+        toSend.add(p);
+        try {
+            p.done.await();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for bot.", e);
+        }
+        if (p.failure != null) {
+            throw new IllegalStateException("Bridge is down.", p.failure);
+        }
+        return p.answer;
+    }
+
+    private void writeFrames() {
+        ArrayList<Pending> batch = new ArrayList<Pending>();
+        try {
+            while (true) {
+                batch.add(toSend.take());
+                toSend.drainTo(batch, MAX_BATCH_SIZE - 1);
+                out.writeInt(batch.size());
+                for (Pending p : batch) {
+                    BridgeProtocol.writeRequest(out, p.id, p.type, p.hand,
+                        p.upCard, p.calledColor, p.state);
+                }
+                out.flush();
+                batch.clear();
+            }
+        }
+        catch (InterruptedException e) {
+            fail(new IOException("Writer interrupted."));
+        }
+        catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void readFrames() {
+        try {
+            while (true) {
+                int count = in.readInt();
+                for (int i=0; i<count; i++) {
+                    int id = in.readInt();
+                    int answer = in.readShort();
+                    Pending p = awaitingReply.remove(id);
+                    if (p == null) {
+                        throw new IOException("Reply to unknown request " +
+                            id + ".");
+                    }
+                    p.answer = answer;
+                    p.done.countDown();
+                }
+            }
+        }
+        catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Fail every outstanding request (and all future ones) once either
+     * side of the connection breaks.
+     */
+    private void fail(IOException e) {
+        failure = e;
+        for (Pending p : awaitingReply.values()) {
+            awaitingReply.remove(p.id);
+            p.failure = e;
+            p.done.countDown();
+        }
+    }
+}
@@ -11,8 +11,9 @@ package uno;
  * (getNumber() will return -1).</p>
  * <p>A Card knows its forfeit cost (<i>i.e.</i>, how many points it counts
  * against a loser who gets stuck with it) and how it should act during
- * game play (whether it permits the player to change the color, what
- * effect it has on the game state, etc.)</p>
+ * game play (whether it permits the player to change the color, etc.)
+ * What it does to the game state when played is up to the Game's
+ * RuleSet.</p>
  * @since 1.0
  */
 public class Card {
@@ -25,6 +26,50 @@ public class Card {
      */
     public static final boolean PRINT_IN_COLOR = false;
 
+    /**
+     * The number of distinct kinds of card, and so the number of card ids.
+     * Colored cards have ids 0 through 51 (13 faces in each of the four
+     * colors, in Color order), the wild is 52 and the wild draw four 53.
+     */
+    public static final int NUM_IDS = 54;
+
+    /**
+     * The id of the (standard, non-Draw-4) wild card.
+     */
+    public static final int WILD_ID = 52;
+
+    /**
+     * The id of the Wild-Draw-4 card.
+     */
+    public static final int WILD_D4_ID = 53;
+
+    /**
+     * One shared Card object for each id, so that code working with ids
+     * can get a Card back without allocating.
+     */
+    private static final Card[] CARDS_BY_ID = new Card[NUM_IDS];
+
+    static {
+        for (int id=0; id<NUM_IDS; id++) {
+            if (id == WILD_ID) {
+                CARDS_BY_ID[id] = new Card(UnoPlayer.Color.NONE,
+                    UnoPlayer.Rank.WILD);
+            }
+            else if (id == WILD_D4_ID) {
+                CARDS_BY_ID[id] = new Card(UnoPlayer.Color.NONE,
+                    UnoPlayer.Rank.WILD_D4);
+            }
+            else if (id % 13 < 10) {
+                CARDS_BY_ID[id] = new Card(UnoPlayer.Color.values()[id / 13],
+                    id % 13);
+            }
+            else {
+                CARDS_BY_ID[id] = new Card(UnoPlayer.Color.values()[id / 13],
+                    UnoPlayer.Rank.values()[id % 13 - 9]);
+            }
+        }
+    }
+
     private UnoPlayer.Color color;
     private UnoPlayer.Rank rank;
     private int number;
@@ -183,63 +228,38 @@ public class Card {
     }
 
     /**
-     * This method should be called immediately after a Card is played,
-     * and will trigger the effect peculiar to that card. For most cards,
-     * this merely advances play to the next player. Some special cards
-     * have other effects that modify the game state. Examples include a
-     * Skip, which will advance <i>twice</i> (past the next player), or a
-     * Draw Two, which will cause the next player to have to draw cards.
-     * @param game The Game being played, whose state may be modified by
-     * this card's effect.
-     * @throws EmptyDeckException Thrown only in very exceptional cases
-     * when a player must draw as a result of this card's effect, yet the
-     * draw cannot occur because of un-shufflable deck exhaustion.
+     * Returns a small integer, from 0 to NUM_IDS-1, that identifies what
+     * kind of card this is. Two cards have the same id exactly when they
+     * have the same color, rank and number. Returns -1 for a card that
+     * can't appear in a standard deck.
      */
-    void performCardEffect(Game game) throws EmptyDeckException {
+    public int getId() {
         switch (rank) {
-            case SKIP:
-                game.advanceToNextPlayer();
-                game.advanceToNextPlayer();
-                break;
-            case REVERSE:
-                game.reverseDirection();
-                game.advanceToNextPlayer();
-                break;
-            case DRAW_TWO:
-                nextPlayerDraw(game);
-                nextPlayerDraw(game);
-                game.advanceToNextPlayer();
-                game.advanceToNextPlayer();
-                break;
+            case WILD:
+                return WILD_ID;
             case WILD_D4:
-                nextPlayerDraw(game);
-                nextPlayerDraw(game);
-                nextPlayerDraw(game);
-                nextPlayerDraw(game);
-                game.advanceToNextPlayer();
-                game.advanceToNextPlayer();
-                break;
+                return WILD_D4_ID;
             default:
-                game.advanceToNextPlayer();
-                break;
+                if (color == UnoPlayer.Color.NONE) {
+                    return -1;
+                }
+                int face = rank.ordinal() + 9;
+                if (rank == UnoPlayer.Rank.NUMBER) {
+                    if (number < 0 || number > 9) {
+                        return -1;
+                    }
+                    face = number;
+                }
+                return color.ordinal() * 13 + face;
         }
     }
 
-    private void nextPlayerDraw(Game game) throws EmptyDeckException {
-        int nextPlayer = game.getNextPlayer();
-        Card drawnCard;
-        try {
-            drawnCard = game.deck.draw();
-        }
-        catch (EmptyDeckException e) {
-            game.print("...deck exhausted, remixing...");
-            game.deck.remix();
-            drawnCard = game.deck.draw();
-        }
-        game.h[nextPlayer].addCard(drawnCard);
-        //game.println("  Player #" + nextPlayer + " draws " + drawnCard + ".");
-        game.println("  " + game.h[nextPlayer].getPlayerName() + " draws " +
-            drawnCard + ".");
+    /**
+     * Returns the (shared) Card object whose id is passed.
+     * @param id A card id, as returned by getId().
+     */
+    public static Card forId(int id) {
+        return CARDS_BY_ID[id];
     }
 
     /**
@@ -0,0 +1,183 @@
+package uno;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>A running count of the cards played since the deck was last
+ * remixed -- the cards of GameState.getPlayedCards() -- by kind of card,
+ * by color, by rank and by number, for card-counting strategies. The
+ * Deck updates its counts as each card is discarded and clears them when
+ * it remixes, so every question here is answered in constant time, at any
+ * point in the game, without rescanning the played cards.</p>
+ *
+ * <p>A card is <i>unseen</i> if it is in a full deck but not among the
+ * played cards: it is in the draw pile, in someone's hand, or the up
+ * card. (A player who wants to know what their opponents might hold takes
+ * away their own hand and the up card.)</p>
+ *
+ * <p>Players get a read-only view of the game's counts from
+ * GameState.getCardCounts(), which goes on changing as the game is
+ * played; copy() freezes it.</p>
+ * @since 2.0
+ */
+public final class CardCounts {
+
+    private static final int NUM_COLORS = 4;
+    private static final int NUM_RANKS = UnoPlayer.Rank.values().length;
+    private static final int NUM_NUMBERS = 10;
+
+    /**
+     * How many of each kind of card, color, rank and number a full deck
+     * holds.
+     */
+    private static final CardCounts FULL_DECK = new CardCounts();
+
+    static {
+        for (int id=0; id<Card.NUM_IDS; id++) {
+            for (int i=0; i<GameSnapshot.FULL_DECK[id]; i++) {
+                FULL_DECK.add(Card.forId(id));
+            }
+        }
+    }
+
+    private final int[] byId = new int[Card.NUM_IDS];
+    private final int[] byColor = new int[NUM_COLORS];
+    private final int[] byRank = new int[NUM_RANKS];
+    private final int[] byNumber = new int[NUM_NUMBERS];
+    private int total;
+
+    /**
+     * Instantiate an empty count.
+     */
+    CardCounts() {
+    }
+
+    /**
+     * Instantiate a count of the cards passed.
+     */
+    CardCounts(List<Card> cards) {
+        for (int i=0; i<cards.size(); i++) {
+            add(cards.get(i));
+        }
+    }
+
+    /**
+     * Count a card just played.
+     */
+    void add(Card card) {
+        byId[card.getId()]++;
+        if (card.getColor() != UnoPlayer.Color.NONE) {
+            byColor[card.getColor().ordinal()]++;
+        }
+        byRank[card.getRank().ordinal()]++;
+        if (card.getRank() == UnoPlayer.Rank.NUMBER) {
+            byNumber[card.getNumber()]++;
+        }
+        total++;
+    }
+
+    /**
+     * Forget every card counted, as when the played cards are remixed into
+     * the deck.
+     */
+    void clear() {
+        Arrays.fill(byId, 0);
+        Arrays.fill(byColor, 0);
+        Arrays.fill(byRank, 0);
+        Arrays.fill(byNumber, 0);
+        total = 0;
+    }
+
+    /**
+     * Return a copy of these counts as they stand now, which doesn't
+     * change as the game goes on.
+     */
+    public CardCounts copy() {
+        CardCounts copy = new CardCounts();
+        System.arraycopy(byId, 0, copy.byId, 0, byId.length);
+        System.arraycopy(byColor, 0, copy.byColor, 0, byColor.length);
+        System.arraycopy(byRank, 0, copy.byRank, 0, byRank.length);
+        System.arraycopy(byNumber, 0, copy.byNumber, 0, byNumber.length);
+        copy.total = total;
+        return copy;
+    }
+
+    /**
+     * Return the number of cards played since the last remix.
+     */
+    public int getPlayed() {
+        return total;
+    }
+
+    /**
+     * Return how many cards of the id passed (see Card.getId()) have been
+     * played since the last remix.
+     */
+    public int getPlayed(int id) {
+        return byId[id];
+    }
+
+    /**
+     * Return how many cards of the color passed have been played since the
+     * last remix. Wilds have no color, so Color.NONE counts nothing.
+     */
+    public int getPlayed(UnoPlayer.Color color) {
+        return color == UnoPlayer.Color.NONE ? 0 : byColor[color.ordinal()];
+    }
+
+    /**
+     * Return how many cards of the rank passed, in any color, have been
+     * played since the last remix.
+     */
+    public int getPlayed(UnoPlayer.Rank rank) {
+        return byRank[rank.ordinal()];
+    }
+
+    /**
+     * Return how many number cards showing the number passed, in any
+     * color, have been played since the last remix.
+     */
+    public int getPlayedNumber(int number) {
+        return byNumber[number];
+    }
+
+    /**
+     * Return the number of cards not played since the last remix.
+     */
+    public int getUnseen() {
+        return FULL_DECK.total - total;
+    }
+
+    /**
+     * Return how many cards of the id passed have not been played since
+     * the last remix.
+     */
+    public int getUnseen(int id) {
+        return FULL_DECK.byId[id] - byId[id];
+    }
+
+    /**
+     * Return how many cards of the color passed have not been played since
+     * the last remix.
+     */
+    public int getUnseen(UnoPlayer.Color color) {
+        return FULL_DECK.getPlayed(color) - getPlayed(color);
+    }
+
+    /**
+     * Return how many cards of the rank passed have not been played since
+     * the last remix.
+     */
+    public int getUnseen(UnoPlayer.Rank rank) {
+        return FULL_DECK.byRank[rank.ordinal()] - byRank[rank.ordinal()];
+    }
+
+    /**
+     * Return how many number cards showing the number passed have not been
+     * played since the last remix.
+     */
+    public int getUnseenNumber(int number) {
+        return FULL_DECK.byNumber[number] - byNumber[number];
+    }
+}
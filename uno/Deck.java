@@ -54,13 +54,23 @@ public class Deck {
 
     private ArrayList<Card> cards = new ArrayList<Card>();
     private ArrayList<Card> discardedCards = new ArrayList<Card>();
+    private CardCounts counts = new CardCounts();
     private Random rand;
 
     /**
      * Constructor for a new, full, shuffled Deck.
      */
     public Deck() {
-        rand = new Random();
+        this(new Random());
+    }
+
+    /**
+     * Constructor for a new, full Deck, shuffled (now and on every remix)
+     * with the random number generator passed. Two Decks given generators
+     * with the same seed deal the same cards in the same order.
+     */
+    public Deck(Random rand) {
+        this.rand = rand;
         fillDeck();
         shuffle();
     }
@@ -143,6 +153,7 @@ public class Deck {
      */
     public void discard(Card c) { 
         discardedCards.add(c);
+        counts.add(c);
     }
 
     /**
@@ -152,6 +163,7 @@ public class Deck {
     public void remix() {
         cards.addAll(discardedCards);
         discardedCards.clear();
+        counts.clear();
         shuffle();
     }
 
@@ -164,6 +176,21 @@ public class Deck {
         return discardedCards;
     }
 
+    /**
+     * Returns the running counts of the discarded Cards since the last
+     * remix, which are kept up to date as cards are discarded.
+     */
+    CardCounts getCounts() {
+        return counts;
+    }
+
+    /**
+     * Returns the Cards left to draw, top card first.
+     */
+    ArrayList<Card> getCards() {
+        return cards;
+    }
+
     public static void main(String args[]) {
         System.out.println("test Deck.");
         Deck d = new Deck();
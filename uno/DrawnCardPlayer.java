@@ -0,0 +1,33 @@
+package uno;
+
+import java.util.List;
+
+/**
+ * <p>An optional extension of UnoPlayer for strategies that can decide
+ * about a card they have just drawn without choosing from their whole hand
+ * again. A player who can't play draws a card, and a DrawnCardPlayer
+ * promises that play() returns -1 only when none of the hand is playable,
+ * so the drawn card is the only one that can have become playable. Game
+ * therefore passes straight on for a DrawnCardPlayer if the drawn card
+ * can't be played, and if it can, asks playDrawnCard() instead of calling
+ * play() a second time. Any other UnoPlayer is asked to play() again
+ * after every draw, as it always was.</p>
+ *
+ * <p>A strategy that always plays the best legal card, as most do, simply
+ * returns true.</p>
+ * @since 2.0
+ */
+public interface DrawnCardPlayer extends UnoPlayer {
+
+    /**
+     * Decide whether to play the card just drawn, which is legal on the up
+     * card, or keep it and pass. If it is played and is a wild,
+     * callColor() is called next, as after play().
+     * @param hand The player's hand, the drawn card included (last); it
+     * must not be modified.
+     * @param drawnCard The card just drawn.
+     * @return true to play the drawn card, false to keep it.
+     */
+    public boolean playDrawnCard(List<Card> hand, Card drawnCard,
+        Card upCard, Color calledColor, GameState state);
+}
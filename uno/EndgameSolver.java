@@ -0,0 +1,243 @@
+package uno;
+
+/**
+ * <p>An exact solver for the end of a game whose every card is known: a
+ * GameSnapshot, either of a real game or a determinization of one (see
+ * Observation). It answers whether a player can force a win, assuming
+ * every other player plays against them (the "paranoid" assumption, which
+ * is exact for two players and pessimistic for more). With the draw pile
+ * known, a game is a tree of moves without chance, searched depth-first
+ * with the usual early exits: the player needs one winning move, and the
+ * others need one move that beats them.</p>
+ *
+ * <p>Results are memoized in a transposition table of 2^tableBits entries,
+ * keyed by a Zobrist hash of the hands, up card, called color, direction,
+ * player to move and size of the draw pile, so positions reached by
+ * different orders of play are searched once. The table is bounded and
+ * kept from one solve to the next; entries of another draw pile can't be
+ * confused with the current one's, since each root's draw pile is hashed
+ * into its keys.</p>
+ *
+ * <p>A search gives up on a line, answering UNKNOWN, when it runs out of
+ * depth or nodes or would need to remix the discards (whose shuffle isn't
+ * part of the position).</p>
+ * @since 2.0
+ */
+public class EndgameSolver {
+
+    /**
+     * The player can force a win.
+     */
+    public static final int WIN = 1;
+
+    /**
+     * The other players can stop the player from winning (or the game is
+     * a draw).
+     */
+    public static final int LOSS = -1;
+
+    /**
+     * The search gave up before deciding.
+     */
+    public static final int UNKNOWN = 0;
+
+    /**
+     * The default size of the transposition table, as a power of two.
+     */
+    public static final int DEFAULT_TABLE_BITS = 16;
+
+    /**
+     * The most players a position may have.
+     */
+    static final int MAX_PLAYERS = 10;
+
+    private static final int MAX_COPIES = 4;
+    private static final int MAX_CARDS = GameSnapshot.FULL_DECK.length * 4;
+
+    private static final long[] HAND_KEYS =
+        new long[MAX_PLAYERS * Card.NUM_IDS * (MAX_COPIES + 1)];
+    private static final long[] UP_CARD_KEYS = new long[Card.NUM_IDS];
+    private static final long[] COLOR_KEYS = new long[GameSnapshot.NO_COLOR + 1];
+    private static final long[] PLAYER_KEYS = new long[MAX_PLAYERS];
+    private static final long[] SOLVER_KEYS = new long[MAX_PLAYERS];
+    private static final long[] DECK_SIZE_KEYS = new long[MAX_CARDS];
+    private static final long[] DECK_CARD_KEYS = new long[Card.NUM_IDS];
+    private static final long BACKWARDS_KEY;
+    private static final long HAS_DRAWN_KEY;
+
+    static {
+        java.util.Random rand = new java.util.Random(0x5EED5EEDL);
+        fill(HAND_KEYS, rand);
+        fill(UP_CARD_KEYS, rand);
+        fill(COLOR_KEYS, rand);
+        fill(PLAYER_KEYS, rand);
+        fill(SOLVER_KEYS, rand);
+        fill(DECK_SIZE_KEYS, rand);
+        fill(DECK_CARD_KEYS, rand);
+        BACKWARDS_KEY = rand.nextLong();
+        HAS_DRAWN_KEY = rand.nextLong();
+    }
+
+    private static void fill(long[] keys, java.util.Random rand) {
+        for (int i=0; i<keys.length; i++) {
+            keys[i] = rand.nextLong();
+        }
+    }
+
+    private long[] tableKeys;
+    private byte[] tableValues;
+    private byte[] tableDepths;
+    private int mask;
+    private int solver;
+    private long rootKey;
+    private long nodes;
+    private long maxNodes;
+    private int[][] moves;
+
+    /**
+     * Instantiate a solver with a table of the default size.
+     */
+    public EndgameSolver() {
+        this(DEFAULT_TABLE_BITS);
+    }
+
+    /**
+     * Instantiate a solver with a table of 2^tableBits entries.
+     */
+    public EndgameSolver(int tableBits) {
+        tableKeys = new long[1 << tableBits];
+        tableValues = new byte[1 << tableBits];
+        tableDepths = new byte[1 << tableBits];
+        mask = (1 << tableBits) - 1;
+        moves = new int[0][];
+    }
+
+    /**
+     * Return whether a player can force a win from a position.
+     * @param position The position, which is not changed.
+     * @param player The zero-based number of the player to solve for.
+     * @param maxDepth The most moves to look ahead.
+     * @param maxNodes The most positions to search.
+     * @return WIN, LOSS or UNKNOWN.
+     */
+    public int solve(GameSnapshot position, int player, int maxDepth,
+        long maxNodes) {
+        start(position, player, maxDepth, maxNodes);
+        return search(position, maxDepth);
+    }
+
+    /**
+     * Solve every legal move of the player to move, in the order of
+     * position.legalMoves().
+     * @return For each move, whether it lets the player to move force a
+     * win: WIN, LOSS or UNKNOWN.
+     */
+    public int[] solveMoves(GameSnapshot position, int maxDepth,
+        long maxNodes) {
+        int[] legal = position.legalMoves();
+        int[] results = new int[legal.length];
+        start(position, position.currPlayer, maxDepth, maxNodes);
+        for (int i=0; i<legal.length; i++) {
+            results[i] = searchMove(position, legal[i], maxDepth);
+        }
+        return results;
+    }
+
+    /**
+     * Return the number of positions searched by the last solve.
+     */
+    public long getNodesSearched() {
+        return nodes;
+    }
+
+    private void start(GameSnapshot position, int player, int maxDepth,
+        long maxNodes) {
+        if (position.numPlayers > MAX_PLAYERS) {
+            throw new IllegalArgumentException("Can't solve for more than " +
+                MAX_PLAYERS + " players.");
+        }
+        solver = player;
+        nodes = 0;
+        this.maxNodes = maxNodes;
+        if (moves.length < maxDepth + 1) {
+            moves = new int[maxDepth + 1][GameSnapshot.MAX_MOVES];
+        }
+        // Positions only share an entry if their draw piles are the same.
+        rootKey = SOLVER_KEYS[player];
+        for (int i=0; i<position.deckSize; i++) {
+            rootKey = rootKey * 31 + DECK_CARD_KEYS[position.deck[i]];
+        }
+    }
+
+    private int search(GameSnapshot g, int depth) {
+        if (g.winner >= 0) {
+            return g.winner == solver ? WIN : LOSS;
+        }
+        if (g.exhausted) {
+            return LOSS;
+        }
+        if (depth == 0 || nodes >= maxNodes) {
+            return UNKNOWN;
+        }
+        nodes++;
+        long key = hash(g);
+        int slot = (int) key & mask;
+        if (tableKeys[slot] == key && (tableValues[slot] != UNKNOWN ||
+            tableDepths[slot] >= depth)) {
+            return tableValues[slot];
+        }
+        int[] legal = moves[depth];
+        int n = g.legalMoves(legal);
+        boolean solving = g.currPlayer == solver;
+        int result = solving ? LOSS : WIN;
+        for (int i=0; i<n; i++) {
+            int value = searchMove(g, legal[i], depth);
+            if (value == (solving ? WIN : LOSS)) {
+                result = value;
+                break;
+            }
+            if (value == UNKNOWN) {
+                result = UNKNOWN;
+            }
+        }
+        if (result == UNKNOWN && nodes >= maxNodes) {
+            // Cut short; a later search may do better.
+            return result;
+        }
+        if (tableKeys[slot] != key || tableDepths[slot] <= depth ||
+            result != UNKNOWN) {
+            tableKeys[slot] = key;
+            tableValues[slot] = (byte) result;
+            tableDepths[slot] = (byte) depth;
+        }
+        return result;
+    }
+
+    private int searchMove(GameSnapshot g, int move, int depth) {
+        GameSnapshot next = g.copy();
+        next.applyInPlace(move);
+        if (next.remixes != g.remixes) {
+            return UNKNOWN;
+        }
+        return search(next, depth - 1);
+    }
+
+    private long hash(GameSnapshot g) {
+        long key = rootKey ^ UP_CARD_KEYS[g.upCard] ^
+            COLOR_KEYS[g.calledColor] ^ PLAYER_KEYS[g.currPlayer] ^
+            DECK_SIZE_KEYS[g.deckSize];
+        if (g.direction < 0) {
+            key ^= BACKWARDS_KEY;
+        }
+        if (g.hasDrawn) {
+            key ^= HAS_DRAWN_KEY;
+        }
+        for (int i=0; i<g.hands.length; i++) {
+            if (g.hands[i] != 0) {
+                key ^= HAND_KEYS[i * (MAX_COPIES + 1) +
+                    Math.min(g.hands[i], MAX_COPIES)];
+            }
+        }
+        return key;
+    }
+}
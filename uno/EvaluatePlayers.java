@@ -4,10 +4,8 @@ package uno;
  
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Scanner;
-import java.io.BufferedReader;
-import java.io.FileReader;
 
 /**
  * <p>An entire terminal-based simulation of a multi-game Uno match.
@@ -39,10 +37,35 @@ public class EvaluatePlayers {
      * </pre>
      * then the code would pit Fred (whose classname was
      * "uno.fsmith_UnoPlayer") against Jane (whose classname was
-     * "uno.jdoe_Unoplayer") against, Billy,... etc.
+     * "uno.jdoe_Unoplayer") against, Billy,... etc. A prefix may also
+     * be followed by parameters, such as a row of a values file for
+     * values_UnoPlayer (see Roster).
      */
     public static final String PLAYER_FILENAME = "players.txt";
 
+    /**
+     * The number of shuffled matches played, and so (times numberOfGames)
+     * the most games an evaluation can take.
+     */
+    public static final int NUM_MATCHES = 50;
+
+    /**
+     * How often, when stopping early, the running win counts are checked.
+     */
+    static final int CHECK_INTERVAL_MS = 10;
+
+    /**
+     * The strategy each player is seated against when evaluated against
+     * the field: as_UnoPlayer's values, which TrainValues trains against.
+     */
+    static final String FIELD_CLASS = "uno.values_UnoPlayer";
+
+    /**
+     * The number of players at each table when evaluating against the
+     * field, unless another is given.
+     */
+    static final int DEFAULT_FIELD_SIZE = 4;
+
     /*
      * The names ("Joe") and classes ("uno.jsmith_UnoPlayer") of competing
      * players.
@@ -54,41 +77,133 @@ public class EvaluatePlayers {
      * Run an Uno simulation of some number of games pitting some set of
      * opponents against each other. The mandatory command-line argument
      * (numberOfGames) should contain an integer specifying how many games
-     * to play in the match. The optional second command-line argument
-     * should be either the word "verbose" or "quiet" and controls the
-     * magnitude of output.
+     * to play in the match. The optional second command-line argument,
+     * "pergame", plays every game on its own (virtual, where supported)
+     * thread, for players that block on I/O. All 50 matches run at the
+     * same time within a single MatchScope.
+     *
+     * If an error rate (<i>e.g.</i>, 0.01) is given, the evaluation stops
+     * as soon as a SequentialTest shows, at that error rate, the order of
+     * the players by games won (or, if a number of places is given after
+     * the error rate, the order of that many top places: 1 asks only who
+     * leads), and ranks players by games won rather than by matches won.
+     * The ranking and verdict reported are those of the moment the test
+     * passed; games still in progress then are finished but not counted.
+     * The test looks at wins only: points per game are reported but don't
+     * decide when to stop. The 50 matches of numberOfGames games are the
+     * most it will play.
+     *
+     * With "field" (and optionally a number of players per table, 4 by
+     * default), players aren't pitted against each other; instead each one
+     * plays numberOfGames games on its own against the rest of a table of
+     * baseline players, as TrainValues measures fitness, and the players
+     * are ranked by points per game. All of these matches run at once, so
+     * players.txt may list more players than fit at a table: every row of
+     * a training history, for instance (see Roster).
      */
     public static void main(String args[]) {
         int numGames = 0;
-        if (args.length != 1  &&  args.length != 2) {
-            System.out.println("Usage: EvaluatePlayers numberOfGames.");
+        if (args.length < 1  ||  args.length > 4) {
+            System.out.println("Usage: EvaluatePlayers numberOfGames [pergame] [errorRate [places] | field [numPlayers]].");
             System.exit(1);
         }
         numGames = Integer.valueOf(args[0]);
+        boolean perGame = false;
+        double errorRate = 0;
+        int fieldSize = 0;
+        int places = 0;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("pergame")) {
+                perGame = true;
+            }
+            else if (args[i].equals("field")) {
+                fieldSize = DEFAULT_FIELD_SIZE;
+            }
+            else if (fieldSize > 0) {
+                fieldSize = Integer.parseInt(args[i]);
+                Game.checkNumPlayers(fieldSize);
+            }
+            else if (errorRate > 0) {
+                places = Integer.parseInt(args[i]);
+            }
+            else {
+                errorRate = Double.parseDouble(args[i]);
+            }
+        }
 
         try {
             ArrayList<Integer> map = new ArrayList<Integer>();
             loadPlayerData();
+            if (fieldSize > 0) {
+                evaluateAgainstField(numGames, perGame, fieldSize);
+                return;
+            }
             for (int i = 0; i < playerNames.size(); i++) {
                 map.add(i);
             }
             int[] gamesWon = new int[playerNames.size()];
-            for (int game = 0; game < 50; game++) {
-                Collections.shuffle(map);
-                ArrayList<String> newPlayerNames = new ArrayList<String>();
-                ArrayList<String> newPlayerClasses = new ArrayList<String>();
-                for (int i : map) {
-                    newPlayerNames.add(playerNames.get(i));
-                    newPlayerClasses.add(playerClasses.get(i));
+            ArrayList<ArrayList<String>> matchPlayerNames =
+                new ArrayList<ArrayList<String>>();
+            ArrayList<SimulationPool> matches = new ArrayList<SimulationPool>();
+            try (MatchScope scope = new MatchScope(perGame)) {
+                for (int game = 0; game < NUM_MATCHES; game++) {
+                    Collections.shuffle(map);
+                    ArrayList<String> newPlayerNames = new ArrayList<String>();
+                    ArrayList<String> newPlayerClasses = new ArrayList<String>();
+                    for (int i : map) {
+                        newPlayerNames.add(playerNames.get(i));
+                        newPlayerClasses.add(playerClasses.get(i));
+                    }
+                    matchPlayerNames.add(newPlayerNames);
+                    // The matches themselves already keep every core busy.
+                    matches.add(scope.fork(new SimulationPool(
+                        newPlayerNames.toArray(new String[0]),
+                        newPlayerClasses, numGames, 1)));
                 }
-                Scoreboard s = new Scoreboard(newPlayerNames.toArray(new String[0]));
-                for (int i=0; i<numGames; i++) {
-                    Game g = new Game(s,newPlayerClasses);
-                    if(!g.play()) {
-                        System.out.println("Illegal play. Aborting.");
+                if (errorRate > 0) {
+                    if (places <= 0 || places >= playerNames.size()) {
+                        places = playerNames.size() - 1;
+                    }
+                    SequentialTest test = new SequentialTest(
+                        playerNames.size(), errorRate);
+                    // The counts the verdict is reached on, kept so that
+                    // games finishing after it can't change it.
+                    long[] wins = new long[playerNames.size()];
+                    long[] points = new long[playerNames.size()];
+                    long gamesPlayed = 0;
+                    boolean settled = false;
+                    while (!scope.isFinished()) {
+                        gamesPlayed = tally(matches, matchPlayerNames, wins,
+                            points);
+                        if (test.isSettled(wins, places)) {
+                            settled = true;
+                            scope.stop();
+                            break;
+                        }
+                        Thread.sleep(CHECK_INTERVAL_MS);
+                    }
+                    if (!scope.join()) {
                         return;
                     }
+                    long allGames = tally(matches, matchPlayerNames,
+                        new long[wins.length], new long[wins.length]);
+                    if (!settled) {
+                        // Every game has been played; judge on all of them.
+                        gamesPlayed = tally(matches, matchPlayerNames, wins,
+                            points);
+                        settled = test.isSettled(wins, places);
+                    }
+                    reportSequential(test, places, wins, points, gamesPlayed,
+                        settled, allGames, (long) NUM_MATCHES * numGames);
+                    return;
+                }
+                if (!scope.join()) {
+                    return;
                 }
+            }
+            for (int game = 0; game < matches.size(); game++) {
+                ArrayList<String> newPlayerNames = matchPlayerNames.get(game);
+                Scoreboard s = matches.get(game).getScoreboard();
                 String name = newPlayerNames.get(s.getWinner());
                 gamesWon[playerNames.indexOf(name)]++;
                 int won = gamesWon[playerNames.indexOf(name)];
@@ -104,15 +219,128 @@ public class EvaluatePlayers {
         }
     }
 
-    private static void loadPlayerData() throws Exception {
-        BufferedReader br = new BufferedReader(new FileReader(
-            PLAYER_FILENAME));
-        String playerLine = br.readLine();
-        while (playerLine != null) {
-            Scanner line = new Scanner(playerLine).useDelimiter(",");
-            playerNames.add(line.next());
-            playerClasses.add("uno." + line.next() + "_UnoPlayer");
-            playerLine = br.readLine();
+    /**
+     * Play numGames games for each player against fieldSize-1 baseline
+     * players, every player's match at the same time, and print the
+     * players ranked by points per game.
+     */
+    private static void evaluateAgainstField(int numGames, boolean perGame,
+        int fieldSize) throws Exception {
+        String[] seatNames = new String[fieldSize];
+        seatNames[0] = "Player";
+        for (int i = 1; i < fieldSize; i++) {
+            seatNames[i] = "Field " + i;
+        }
+        ArrayList<SimulationPool> matches = new ArrayList<SimulationPool>();
+        try (MatchScope scope = new MatchScope(perGame)) {
+            for (int p = 0; p < playerClasses.size(); p++) {
+                ArrayList<String> classes = new ArrayList<String>();
+                classes.add(playerClasses.get(p));
+                for (int i = 1; i < fieldSize; i++) {
+                    classes.add(FIELD_CLASS);
+                }
+                // As with the shuffled matches, running them all at once
+                // keeps every core busy.
+                matches.add(scope.fork(new SimulationPool(seatNames, classes,
+                    numGames, 1)));
+            }
+            if (!scope.join()) {
+                return;
+            }
+        }
+        Scoreboard[] results = new Scoreboard[matches.size()];
+        for (int p = 0; p < results.length; p++) {
+            results[p] = matches.get(p).getScoreboard();
+        }
+        boolean[] listed = new boolean[results.length];
+        for (int rank = 0; rank < results.length; rank++) {
+            int best = -1;
+            for (int p = 0; p < results.length; p++) {
+                if (!listed[p] && (best < 0 || results[p].getMeanPoints(0) >
+                    results[best].getMeanPoints(0))) {
+                    best = p;
+                }
+            }
+            listed[best] = true;
+            System.out.println(String.format(
+                "%s: %.2f +/- %.2f points/game, %.2f%% +/- %.2f%% wins",
+                playerNames.get(best), results[best].getMeanPoints(0),
+                results[best].getPointsStandardError(0),
+                100 * results[best].getWinRate(0),
+                100 * results[best].getWinRateStandardError(0)));
+        }
+        System.out.println(playerNames.size() + " players, " + numGames +
+            " games each against " + (fieldSize - 1) + " baseline players.");
+    }
+
+    /**
+     * Fill in the games each player (in players.txt order) has won so far,
+     * across all matches, and the points they have scored.
+     * @return The number of games played so far.
+     */
+    private static long tally(ArrayList<SimulationPool> matches,
+        ArrayList<ArrayList<String>> matchPlayerNames, long[] wins,
+        long[] points) {
+        Arrays.fill(wins, 0);
+        Arrays.fill(points, 0);
+        long gamesPlayed = 0;
+        for (int m = 0; m < matches.size(); m++) {
+            ArrayList<String> names = matchPlayerNames.get(m);
+            for (int seat = 0; seat < names.size(); seat++) {
+                int player = playerNames.indexOf(names.get(seat));
+                wins[player] += matches.get(m).getWins(seat);
+                points[player] += matches.get(m).getScore(seat);
+            }
+        }
+        // Counted after the wins, so that no win is of an uncounted game.
+        for (SimulationPool match : matches) {
+            gamesPlayed += match.getGamesPlayed();
+        }
+        return gamesPlayed;
+    }
+
+    /**
+     * Print each player's games won and points per game, best first, and
+     * whether the order of the top places was settled within the budget
+     * of games, all as of the counts passed.
+     * @param allGames The games played in all, counting those finished
+     * after the verdict.
+     */
+    private static void reportSequential(SequentialTest test, int places,
+        long[] wins, long[] points, long gamesPlayed, boolean settled,
+        long allGames, long maxGames) {
+        boolean[] listed = new boolean[wins.length];
+        for (int rank = 0; rank < wins.length; rank++) {
+            int best = -1;
+            for (int i = 0; i < wins.length; i++) {
+                if (!listed[i] && (best < 0 || wins[i] > wins[best])) {
+                    best = i;
+                }
+            }
+            listed[best] = true;
+            System.out.println(String.format(
+                "%s: %d wins (%.2f%%), %.2f points/game", playerNames.get(best),
+                wins[best], 100.0 * wins[best] / gamesPlayed,
+                (double) points[best] / gamesPlayed));
+        }
+        String what = places == wins.length - 1 ? "Ranking" :
+            places == 1 ? "Leader" : "Top " + places + " places";
+        if (settled) {
+            System.out.println(what + " settled after " + gamesPlayed +
+                " of at most " + maxGames + " games (error rate " +
+                test.getErrorRate() + ")" + (allGames > gamesPlayed ? "; " +
+                (allGames - gamesPlayed) + " games in progress then were " +
+                "finished but not counted." : "."));
+        }
+        else {
+            System.out.println(what + " not settled within " + gamesPlayed +
+                " games.");
         }
     }
+
+    private static void loadPlayerData() throws Exception {
+        Roster roster = Roster.load(PLAYER_FILENAME);
+        playerNames.addAll(roster.getNames());
+        playerClasses.addAll(roster.getClasses());
+    }
 }
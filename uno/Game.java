@@ -4,6 +4,7 @@ package uno;
  
 
 import java.util.ArrayList;
+import java.util.Random;
 
 /**
  * <p>A Game object represents a single game of Uno in an overall match (of
@@ -26,8 +27,21 @@ public class Game {
      */
     static final int INIT_HAND_SIZE = 7;
 
+    /**
+     * The fewest and the most players a Game can be played by.
+     */
+    public static final int MIN_PLAYERS = 2;
+    public static final int MAX_PLAYERS = 10;
+
     public enum Direction { FORWARDS, BACKWARDS };
 
+    /**
+     * Results of playTurn().
+     */
+    static final int TURN_PLAYED = 0;
+    static final int GAME_WON = 1;
+    static final int ILLEGAL_PLAY = 2;
+
     /**
      * An object representing the state of the game at any point in time.
      * Note that much of the "state" is represented in the Game object
@@ -46,6 +60,20 @@ public class Game {
     UnoPlayer.Color calledColor;
     Scoreboard scoreboard;
     UnoPlayer.Color mostRecentColorCalled[];
+    int turnsPlayed;
+    RuleSet rules;
+
+    /**
+     * With stacking, the number of cards the current player must draw
+     * unless they stack another draw card on the up card.
+     */
+    int pendingDraws;
+
+    /**
+     * With jump-in, the index in the current player's hand of the card
+     * they are jumping in with, or -1.
+     */
+    private int jumpInIndex = -1;
 
     /**
      * Main constructor to instantiate a Game of Uno. Provided must be two
@@ -60,15 +88,61 @@ public class Game {
      * UnoPlayer interface.
      */
     public Game(Scoreboard scoreboard, ArrayList<String> playerClassList) {
+        this(scoreboard, newHands(scoreboard, playerClassList), new Random(),
+            RuleSet.getDefault());
+    }
+
+    /**
+     * Instantiate a Game of Uno between already-instantiated players. This
+     * works just like the class-list constructor, except that the same
+     * UnoPlayer objects can be reused from game to game (and, for
+     * StatelessUnoPlayers, shared between games running at the same time.)
+     * @param scoreboard A fully-populated Scoreboard object that contains
+     * the names of the contestants, in order.
+     * @param players The UnoPlayer each contestant will use, in order.
+     */
+    public Game(Scoreboard scoreboard, UnoPlayer[] players) {
+        this(scoreboard, newHands(scoreboard, players), new Random(),
+            RuleSet.getDefault());
+    }
+
+    /**
+     * Instantiate a Game of Uno whose deal, starting player and reshuffles
+     * are all determined by the seed passed. Two Games with the same seed
+     * and players that make the same decisions play out identically.
+     * @param scoreboard A fully-populated Scoreboard object that contains
+     * the names of the contestants, in order.
+     * @param players The UnoPlayer each contestant will use, in order.
+     * @param seed The seed for the Game's random number generator.
+     */
+    public Game(Scoreboard scoreboard, UnoPlayer[] players, long seed) {
+        this(scoreboard, newHands(scoreboard, players), new Random(seed),
+            RuleSet.getDefault());
+    }
+
+    /**
+     * Instantiate a seeded Game of Uno, as Game(Scoreboard, UnoPlayer[],
+     * long), played by the rules passed rather than those of the uno.rules
+     * property.
+     * @param rules The official rules, or a set of house rules.
+     */
+    public Game(Scoreboard scoreboard, UnoPlayer[] players, long seed,
+        RuleSet rules) {
+        this(scoreboard, newHands(scoreboard, players), new Random(seed),
+            rules);
+    }
+
+    private Game(Scoreboard scoreboard, Hand[] hands, Random rand,
+        RuleSet rules) {
+        checkNumPlayers(scoreboard.getNumPlayers());
         this.scoreboard = scoreboard;
-        deck = new Deck();
-        h = new Hand[scoreboard.getNumPlayers()];
+        this.rules = rules;
+        deck = new Deck(rand);
+        h = hands;
         mostRecentColorCalled =
             new UnoPlayer.Color[scoreboard.getNumPlayers()];
         try {
             for (int i=0; i<scoreboard.getNumPlayers(); i++) {
-                h[i] = new Hand(playerClassList.get(i),
-                    scoreboard.getPlayerList()[i]);
                 for (int j=0; j<INIT_HAND_SIZE; j++) {
                     h[i].addCard(deck.draw());
                 }
@@ -84,11 +158,42 @@ public class Game {
             System.exit(1);
         }
         direction = Direction.FORWARDS;
-        currPlayer =
-            new java.util.Random().nextInt(scoreboard.getNumPlayers());
+        currPlayer = rand.nextInt(scoreboard.getNumPlayers());
         calledColor = UnoPlayer.Color.NONE;
     }
 
+    /**
+     * Check that a table of the size passed can play a Game.
+     * @throws IllegalArgumentException If it has fewer than MIN_PLAYERS
+     * or more than MAX_PLAYERS seats.
+     */
+    public static void checkNumPlayers(int numPlayers) {
+        if (numPlayers < MIN_PLAYERS || numPlayers > MAX_PLAYERS) {
+            throw new IllegalArgumentException("A game needs from " +
+                MIN_PLAYERS + " to " + MAX_PLAYERS + " players, not " +
+                numPlayers + ".");
+        }
+    }
+
+    private static Hand[] newHands(Scoreboard scoreboard,
+        ArrayList<String> playerClassList) {
+        Hand[] hands = new Hand[scoreboard.getNumPlayers()];
+        for (int i=0; i<hands.length; i++) {
+            hands[i] = new Hand(playerClassList.get(i),
+                scoreboard.getPlayerList()[i]);
+        }
+        return hands;
+    }
+
+    private static Hand[] newHands(Scoreboard scoreboard,
+        UnoPlayer[] players) {
+        Hand[] hands = new Hand[scoreboard.getNumPlayers()];
+        for (int i=0; i<hands.length; i++) {
+            hands[i] = new Hand(players[i], scoreboard.getPlayerList()[i]);
+        }
+        return hands;
+    }
+
     private void printState() {
         for (int i=0; i<scoreboard.getNumPlayers(); i++) {
             System.out.println("Hand #" + i + ": " + h[i]);
@@ -135,79 +240,258 @@ public class Game {
     }
 
     /**
-     * Play an entire Game of Uno from start to finish. Hands should have
-     * already been dealt before this method is called, and a valid up card
-     * turned up. When the method is completed, the Game's scoreboard object
-     * will have been updated with new scoring favoring the winner.
+     * Play a single turn: the current player plays (or draws and then maybe
+     * plays), any card effect is applied, and play moves on to the next
+     * player. Stepping through a game one turn at a time with this method
+     * is exactly equivalent to calling play().
+     * @return TURN_PLAYED if the game goes on, GAME_WON if the current
+     * player just went out (the scoreboard has then been updated), or
+     * ILLEGAL_PLAY if the current player made an illegal play.
+     * @throws EmptyDeckException When a card must be drawn and none is
+     * left even after remixing, which makes the game a draw.
      */
-    public boolean play() {
-        println("Initial upcard is " + upCard + ".");
-        try {
-            while (true) {
-                //print("Hand #" + currPlayer + " (" + h[currPlayer] + ")");
-                print(h[currPlayer].getPlayerName() +
-                    " (" + h[currPlayer] + ")");
-                Card playedCard = h[currPlayer].play(this);
-                if (playedCard == null) {
-                    Card drawnCard;
-                    try {
-                        drawnCard = deck.draw();
-                    }
-                    catch (Exception e) {
-                        print("...deck exhausted, remixing...");
-                        deck.remix();
-                        drawnCard = deck.draw();
-                    }
+    int playTurn() throws EmptyDeckException {
+        //print("Hand #" + currPlayer + " (" + h[currPlayer] + ")");
+        if (UnoSimulation.PRINT_VERBOSE) {
+            print(h[currPlayer].getPlayerName() +
+                " (" + h[currPlayer] + ")");
+        }
+        Card playedCard = null;
+        if (jumpInIndex >= 0) {
+            playedCard = h[currPlayer].remove(jumpInIndex);
+            jumpInIndex = -1;
+            print(" jumps in!");
+        }
+        else if (pendingDraws > 0) {
+            int upId = upCard.getId();
+            if ((rules.getStackable(upId) &
+                h[currPlayer].getView().getHeld()) != 0) {
+                int index = h[currPlayer].choose(this);
+                if (index >= 0 && rules.canStack(
+                    h[currPlayer].getCards().get(index).getId(), upId)) {
+                    playedCard = h[currPlayer].remove(index);
+                }
+            }
+            if (playedCard == null) {
+                // Taking the stack costs the player their turn.
+                drawCards(currPlayer, pendingDraws);
+                pendingDraws = 0;
+                println("");
+                advanceToNextPlayer();
+                turnsPlayed++;
+                return TURN_PLAYED;
+            }
+        }
+        else {
+            playedCard = h[currPlayer].play(this);
+            if (playedCard == null) {
+                Card drawnCard;
+                do {
+                    drawnCard = drawCard();
                     h[currPlayer].addCard(drawnCard);
-                    print(" has to draw (" + drawnCard + ").");
+                    if (UnoSimulation.PRINT_VERBOSE) {
+                        print(" has to draw (" + drawnCard + ").");
+                    }
+                } while (rules.isDrawUntilPlayable() &&
+                    !rules.canPlay(drawnCard.getId(), upCard.getId(),
+                        calledColor));
+                // A DrawnCardPlayer (or UnoPlayerV2) passed because nothing
+                // in the hand was playable, so unless the drawn card is, it
+                // can only pass. Any other player is asked to play() again,
+                // as ever, and what it plays is checked below.
+                if (rules.canPlay(drawnCard.getId(), upCard.getId(),
+                    calledColor)) {
+                    playedCard = h[currPlayer].playDrawnCard(this);
+                }
+                else if (h[currPlayer].playsAgainAfterDraw()) {
                     playedCard = h[currPlayer].play(this);
                 }
-                if (playedCard != null) {
-                    if(!(playedCard.getColor() == this.getUpCard().getColor() ||
-                         playedCard.getRank() == UnoPlayer.Rank.WILD ||
-                         playedCard.getRank() == UnoPlayer.Rank.WILD_D4 ||
-                         playedCard.getColor() == this.calledColor ||
-                         (playedCard.getNumber() == this.getUpCard().getNumber() &&
-                          playedCard.getRank() == this.getUpCard().getRank()))) {
-                        System.out.println("\n******************************************************************************");
-                        System.out.println("*****Illegal play. " + h[currPlayer].getPlayerName()+ " played " + playedCard + " on " +
-                                   this.getUpCard() + " with a called color: " + this.calledColor + "*****");
-                        System.out.println("******************************************************************************\n");
-                        return false;
-                    }
-                    print(" plays " + playedCard + " on " + upCard + ".");
-                    deck.discard(upCard);
-                    upCard = playedCard;
-                    if (upCard.followedByCall()) {
-                        calledColor = h[currPlayer].callColor(this);
-                        mostRecentColorCalled[currPlayer] = calledColor;
-                        print(" (and calls " + calledColor +
-                            ").");
-                    }
-                    else {
-                        calledColor = UnoPlayer.Color.NONE;
-                    }
+            }
+        }
+        if (playedCard != null) {
+            if (!rules.canPlay(playedCard.getId(), upCard.getId(),
+                calledColor)) {
+                System.out.println("\n******************************************************************************");
+                System.out.println("*****Illegal play. " + h[currPlayer].getPlayerName()+ " played " + playedCard + " on " +
+                           this.getUpCard() + " with a called color: " + this.calledColor + "*****");
+                System.out.println("******************************************************************************\n");
+                return ILLEGAL_PLAY;
+            }
+            if (UnoSimulation.PRINT_VERBOSE) {
+                print(" plays " + playedCard + " on " + upCard + ".");
+            }
+            deck.discard(upCard);
+            upCard = playedCard;
+            if (upCard.followedByCall()) {
+                calledColor = h[currPlayer].callColor(this);
+                mostRecentColorCalled[currPlayer] = calledColor;
+                if (UnoSimulation.PRINT_VERBOSE) {
+                    print(" (and calls " + calledColor + ").");
                 }
-                if (h[currPlayer].isEmpty()) {
-                    int roundPoints = 0;
-                    for (int j=0; j<scoreboard.getNumPlayers(); j++) {
-                        roundPoints += h[j].countCards();
+            }
+            else {
+                calledColor = UnoPlayer.Color.NONE;
+            }
+        }
+        if (h[currPlayer].isEmpty()) {
+            int roundPoints = 0;
+            for (int j=0; j<scoreboard.getNumPlayers(); j++) {
+                roundPoints += h[j].countCards();
+            }
+            turnsPlayed++;
+            scoreboard.recordWin(currPlayer, roundPoints, turnsPlayed);
+            if (UnoSimulation.PRINT_VERBOSE) {
+                println("\n" + h[currPlayer].getPlayerName() +
+                    " wins! (and collects " + roundPoints +
+                    " points.)");
+                println("---------------\n" + scoreboard);
+            }
+            return GAME_WON;
+        }
+        if (h[currPlayer].size() == 1) {
+            print(" UNO!");
+        }
+        println("");
+        if (playedCard != null) {
+            int player = currPlayer;
+            performCardEffect(playedCard);
+            if (rules.canJumpIn(upCard.getId()) && pendingDraws == 0) {
+                findJumpIn(player);
+            }
+        }
+        else {
+            advanceToNextPlayer();
+        }
+        turnsPlayed++;
+        return TURN_PLAYED;
+    }
+
+    /**
+     * Apply the effect of the card just played, as the rules' tables give
+     * it: reverse the direction of play, make the next player draw (or,
+     * with stacking, add to the stack they face), trade hands, and move
+     * play on past any players the card skips.
+     * @throws EmptyDeckException Thrown only in very exceptional cases
+     * when a player must draw as a result of this card's effect, yet the
+     * draw cannot occur because of un-shufflable deck exhaustion.
+     */
+    private void performCardEffect(Card card) throws EmptyDeckException {
+        int id = card.getId();
+        if (rules.reverses(id)) {
+            reverseDirection();
+        }
+        int draws = rules.getDraws(id);
+        if (draws > 0) {
+            if (rules.isStacking()) {
+                pendingDraws += draws;
+            }
+            else {
+                drawCards(getNextPlayer(), draws);
+            }
+        }
+        switch (rules.getSwap(id)) {
+            case RuleSet.SWAP_WITH_SMALLEST:
+                int smallest = -1;
+                for (int i=1, p=currPlayer; i<h.length; i++) {
+                    p = seatAfter(p);
+                    if (smallest == -1 || h[p].size() < h[smallest].size()) {
+                        smallest = p;
                     }
-                    println("\n" + h[currPlayer].getPlayerName() +
-                        " wins! (and collects " + roundPoints + " points.)");
-                    scoreboard.addToScore(currPlayer,roundPoints);
-                    println("---------------\n" + scoreboard);
-                    return true;
                 }
-                if (h[currPlayer].size() == 1) {
-                    print(" UNO!");
+                h[currPlayer].swapCards(h[smallest]);
+                break;
+            case RuleSet.ROTATE:
+                // Swapping one hand with each of the others in turn passes
+                // every hand on one seat.
+                for (int i=1, p=currPlayer; i<h.length; i++) {
+                    p = seatAfter(p);
+                    h[currPlayer].swapCards(h[p]);
                 }
-                println("");
-                if (playedCard != null) {
-                    playedCard.performCardEffect(this);
+                break;
+        }
+        int advances = rules.getAdvances(id);
+        if (h.length == 2 && rules.reverses(id)) {
+            // Between two players a reverse skips the other player.
+            advances++;
+        }
+        for (int i=advances; i>0; i--) {
+            advanceToNextPlayer();
+        }
+    }
+
+    /**
+     * With jump-in, find the first player after the one who just played,
+     * in turn order, holding a copy of the up card, and make it their turn
+     * to play it.
+     */
+    private void findJumpIn(int player) {
+        int upId = upCard.getId();
+        for (int i=1, p=player; i<h.length; i++) {
+            p = seatAfter(p);
+            ArrayList<Card> cards = h[p].getCards();
+            for (int j=0; j<cards.size(); j++) {
+                if (cards.get(j).getId() == upId) {
+                    currPlayer = p;
+                    jumpInIndex = j;
+                    return;
                 }
-                else {
-                    advanceToNextPlayer();
+            }
+        }
+    }
+
+    /**
+     * Return the seat after the one passed, in the direction of play.
+     */
+    private int seatAfter(int seat) {
+        int n = scoreboard.getNumPlayers();
+        return direction == Direction.FORWARDS ? (seat + 1) % n :
+            (seat + n - 1) % n;
+    }
+
+    /**
+     * Draw a card, remixing the discards into the deck if it is empty.
+     * @throws EmptyDeckException If there is no card to draw even after
+     * remixing.
+     */
+    private Card drawCard() throws EmptyDeckException {
+        try {
+            return deck.draw();
+        }
+        catch (EmptyDeckException e) {
+            print("...deck exhausted, remixing...");
+            deck.remix();
+            return deck.draw();
+        }
+    }
+
+    /**
+     * Add the number of cards passed to a player's hand.
+     */
+    private void drawCards(int player, int count)
+        throws EmptyDeckException {
+        for (int i=0; i<count; i++) {
+            Card drawnCard = drawCard();
+            h[player].addCard(drawnCard);
+            if (UnoSimulation.PRINT_VERBOSE) {
+                println("  " + h[player].getPlayerName() +
+                    " draws " + drawnCard + ".");
+            }
+        }
+    }
+
+    /**
+     * Play an entire Game of Uno from start to finish. Hands should have
+     * already been dealt before this method is called, and a valid up card
+     * turned up. When the method is completed, the Game's scoreboard object
+     * will have been updated with new scoring favoring the winner.
+     */
+    public boolean play() {
+        println("Initial upcard is " + upCard + ".");
+        try {
+            while (true) {
+                int result = playTurn();
+                if (result != TURN_PLAYED) {
+                    return result == GAME_WON;
                 }
             }
         }
@@ -241,10 +525,52 @@ public class Game {
         return new GameState(this);
     }
 
+    /**
+     * Return a GameSnapshot of the whole game as it stands between turns,
+     * every hand included, which can be copied and played forward without
+     * affecting this Game. Only Games played by the official rules can be
+     * snapshotted.
+     * @param seed Seeds the snapshot's shuffles when it remixes the
+     * discards.
+     */
+    public GameSnapshot snapshot(long seed) {
+        if (!rules.isOfficial()) {
+            throw new UnsupportedOperationException("GameSnapshot models " +
+                "the official rules only, not " + rules + ".");
+        }
+        return new GameSnapshot(this, seed);
+    }
+
+    /**
+     * Return a GameSnapshot of the whole game, as snapshot(long), with a
+     * random seed.
+     */
+    public GameSnapshot snapshot() {
+        return snapshot(new Random().nextLong());
+    }
+
     /**
      * Return the Card that is currently the "up card" in the game.
      */
     public Card getUpCard() {
         return upCard;
     }
+
+    /**
+     * Return the ids of the cards the current player may play now, as a
+     * bitmask (see RuleSet.getPlayable()): with a stack to answer, those
+     * that can be stacked on it.
+     */
+    long getLegalMoves() {
+        int upId = upCard.getId();
+        return pendingDraws > 0 ? rules.getStackable(upId) :
+            rules.getPlayable(upId, calledColor.ordinal());
+    }
+
+    /**
+     * Return the rules this Game is played by.
+     */
+    public RuleSet getRules() {
+        return rules;
+    }
 }
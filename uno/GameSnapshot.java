@@ -0,0 +1,524 @@
+package uno;
+
+import java.util.Arrays;
+
+/**
+ * <p>A compact, complete copy of a game of Uno in progress, for lookahead
+ * players, what-if analysis and endgame solvers. Cards are represented by
+ * their ids (see Card.getId()): each hand is a count of how many of each
+ * card it holds, and the draw and discard piles are short arrays of ids,
+ * so a copy is a handful of small array clones. The rules are the
+ * official ones (RuleSet.OFFICIAL).</p>
+ *
+ * <p>Moves are ints: the id of the card to play, plus NUM_IDS times the
+ * ordinal of the color to call for a wild (see move()), or DRAW. A player
+ * who draws stays the current player if they can now play, and must play
+ * one of their legal cards; if they still cannot, play passes on.</p>
+ *
+ * <p>legalMoves() and apply() never change a snapshot: apply() returns a
+ * new one. A snapshot carries its own random number generator, used only
+ * to shuffle the discards back into an empty draw pile, so applying the
+ * same move to the same snapshot always gives the same result. (Searches
+ * that make millions of moves use the package's applyInPlace() instead.)
+ * Game.snapshot() takes a snapshot of a real game; it is a complete
+ * picture, every hand included, so it is for analysis tools rather than
+ * for UnoPlayers.</p>
+ * @since 2.0
+ */
+public final class GameSnapshot {
+
+    /**
+     * The move that draws a card instead of playing one.
+     */
+    public static final int DRAW = -1;
+
+    /**
+     * The calledColor of a snapshot whose up card is not a wild, and the
+     * lastCalled entry of a player who has not yet called a color.
+     */
+    public static final int NO_COLOR = 4;
+
+    /**
+     * The most moves any position can have: every non-wild card, and both
+     * wilds with each of four colors.
+     */
+    public static final int MAX_MOVES = Card.NUM_IDS + 6;
+
+    /**
+     * How many of each card a full deck holds.
+     */
+    static final byte[] FULL_DECK = new byte[Card.NUM_IDS];
+
+    /**
+     * What each card counts against the hand holding it when someone goes
+     * out (see Card.forfeitCost()).
+     */
+    static final int[] POINTS = new int[Card.NUM_IDS];
+
+    static {
+        for (int id=0; id<Card.NUM_IDS; id++) {
+            Card card = Card.forId(id);
+            POINTS[id] = card.forfeitCost();
+            if (id == Card.WILD_ID) {
+                FULL_DECK[id] = Deck.NUMBER_OF_WILD_CARDS;
+            }
+            else if (id == Card.WILD_D4_ID) {
+                FULL_DECK[id] = Deck.NUMBER_OF_WILD_D4_CARDS;
+            }
+            else if (card.getRank() != UnoPlayer.Rank.NUMBER) {
+                FULL_DECK[id] = Deck.NUMBER_OF_DUP_SPECIAL_CARDS;
+            }
+            else if (card.getNumber() == 0) {
+                FULL_DECK[id] = Deck.NUMBER_OF_DUP_ZERO_CARDS;
+            }
+            else {
+                FULL_DECK[id] = Deck.NUMBER_OF_DUP_REGULAR_CARDS;
+            }
+        }
+    }
+
+    int numPlayers;
+    byte[] hands;
+    int[] handSizes;
+    byte[] deck;
+    int deckSize;
+    byte[] discards;
+    int numDiscards;
+    int upCard;
+    int calledColor;
+    int direction;
+    int currPlayer;
+    boolean hasDrawn;
+    byte[] lastCalled;
+    int winner = -1;
+    boolean exhausted;
+    int remixes;
+    long seed;
+
+    /**
+     * Create an empty snapshot for numPlayers players: empty hands and
+     * piles, player 0 to move, play going forwards.
+     * @param seed Seeds the shuffles of later remixes.
+     */
+    GameSnapshot(int numPlayers, long seed) {
+        this.numPlayers = numPlayers;
+        hands = new byte[numPlayers * Card.NUM_IDS];
+        handSizes = new int[numPlayers];
+        int totalCards = 0;
+        for (byte count : FULL_DECK) {
+            totalCards += count;
+        }
+        deck = new byte[totalCards];
+        discards = new byte[totalCards];
+        lastCalled = new byte[numPlayers];
+        Arrays.fill(lastCalled, (byte) NO_COLOR);
+        calledColor = NO_COLOR;
+        direction = 1;
+        this.seed = seed == 0 ? 0x9E3779B97F4A7C15L : seed;
+    }
+
+    private GameSnapshot(GameSnapshot other) {
+        numPlayers = other.numPlayers;
+        hands = other.hands.clone();
+        handSizes = other.handSizes.clone();
+        deck = other.deck.clone();
+        deckSize = other.deckSize;
+        discards = other.discards.clone();
+        numDiscards = other.numDiscards;
+        upCard = other.upCard;
+        calledColor = other.calledColor;
+        direction = other.direction;
+        currPlayer = other.currPlayer;
+        hasDrawn = other.hasDrawn;
+        lastCalled = other.lastCalled.clone();
+        winner = other.winner;
+        exhausted = other.exhausted;
+        remixes = other.remixes;
+        seed = other.seed;
+    }
+
+    /**
+     * Take a snapshot of a Game between turns. The draw pile is copied in
+     * order, so the snapshot draws the same cards the Game would until the
+     * discards are next remixed.
+     */
+    GameSnapshot(Game game, long seed) {
+        this(game.scoreboard.getNumPlayers(), seed);
+        for (int p=0; p<numPlayers; p++) {
+            for (Card card : game.h[p].getCards()) {
+                addToHand(p, card.getId());
+            }
+            if (game.mostRecentColorCalled[p] != null) {
+                lastCalled[p] = (byte) game.mostRecentColorCalled[p].ordinal();
+            }
+        }
+        java.util.List<Card> drawPile = game.deck.getCards();
+        for (int i=drawPile.size()-1; i>=0; i--) {
+            deck[deckSize++] = (byte) drawPile.get(i).getId();
+        }
+        for (Card card : game.deck.getDiscardedCards()) {
+            discards[numDiscards++] = (byte) card.getId();
+        }
+        upCard = game.upCard.getId();
+        calledColor = game.calledColor == UnoPlayer.Color.NONE ? NO_COLOR :
+            game.calledColor.ordinal();
+        direction = game.direction == Game.Direction.FORWARDS ? 1 : -1;
+        currPlayer = game.currPlayer;
+    }
+
+    /**
+     * Return an independent copy of this snapshot.
+     */
+    public GameSnapshot copy() {
+        return new GameSnapshot(this);
+    }
+
+    /**
+     * Return the move that plays a card, calling a color if it is a wild.
+     * @param calledColor The color to call, ignored unless the card is a
+     * wild.
+     */
+    public static int move(Card card, UnoPlayer.Color calledColor) {
+        if (!card.followedByCall()) {
+            return card.getId();
+        }
+        if (calledColor == null || calledColor == UnoPlayer.Color.NONE) {
+            throw new IllegalArgumentException("A wild must call a color.");
+        }
+        return card.getId() + calledColor.ordinal() * Card.NUM_IDS;
+    }
+
+    /**
+     * Return the card a move plays, or null for DRAW.
+     */
+    public static Card getCard(int move) {
+        return move == DRAW ? null : Card.forId(move % Card.NUM_IDS);
+    }
+
+    /**
+     * Return the color a move calls, or Color.NONE if it doesn't play a
+     * wild.
+     */
+    public static UnoPlayer.Color getCalledColor(int move) {
+        return move == DRAW || move % Card.NUM_IDS < Card.WILD_ID ?
+            UnoPlayer.Color.NONE : UnoPlayer.Color.values()[move / Card.NUM_IDS];
+    }
+
+    /**
+     * Return the number of players.
+     */
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
+    /**
+     * Return the zero-based number of the player to move.
+     */
+    public int getCurrentPlayer() {
+        return currPlayer;
+    }
+
+    /**
+     * Return the direction of play.
+     */
+    public Game.Direction getDirection() {
+        return direction == 1 ? Game.Direction.FORWARDS :
+            Game.Direction.BACKWARDS;
+    }
+
+    /**
+     * Return the up card.
+     */
+    public Card getUpCard() {
+        return Card.forId(upCard);
+    }
+
+    /**
+     * Return the color called on the up card, or Color.NONE if it isn't a
+     * wild.
+     */
+    public UnoPlayer.Color getCalledColor() {
+        return UnoPlayer.Color.values()[calledColor];
+    }
+
+    /**
+     * Return the number of cards a player holds.
+     */
+    public int getHandSize(int player) {
+        return handSizes[player];
+    }
+
+    /**
+     * Return how many of a card a player holds.
+     * @param id The card's id (see Card.getId()).
+     */
+    public int count(int player, int id) {
+        return hands[player * Card.NUM_IDS + id];
+    }
+
+    /**
+     * Return the number of cards left in the draw pile.
+     */
+    public int getDeckSize() {
+        return deckSize;
+    }
+
+    /**
+     * Return true if the current player has drawn this turn, and so must
+     * play one of their legal cards rather than draw again.
+     */
+    public boolean hasDrawn() {
+        return hasDrawn;
+    }
+
+    /**
+     * Return true if the game is over, won or drawn.
+     */
+    public boolean isOver() {
+        return winner >= 0 || exhausted;
+    }
+
+    /**
+     * Return the zero-based number of the player who won, or -1 if nobody
+     * has (yet).
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * Return true if the game ended in a draw, with no card left to draw.
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * Give a player a card.
+     */
+    void addToHand(int player, int id) {
+        hands[player * Card.NUM_IDS + id]++;
+        handSizes[player]++;
+    }
+
+    /**
+     * Return the points the winner collects: the value of every card left
+     * in every hand.
+     */
+    public int countPoints() {
+        int points = 0;
+        for (int i=0; i<hands.length; i++) {
+            points += hands[i] * POINTS[i % Card.NUM_IDS];
+        }
+        return points;
+    }
+
+    /**
+     * Return true if the card whose id is passed may be played on the up
+     * card, as by Card.canPlayOn().
+     */
+    public static boolean canPlay(int id, int upCard, int calledColor) {
+        if (id >= Card.WILD_ID) {
+            return true;
+        }
+        int upColor = upCard >= Card.WILD_ID ? calledColor : upCard / 13;
+        return id / 13 == upColor ||
+            (upCard < Card.WILD_ID && id % 13 == upCard % 13);
+    }
+
+    /**
+     * Return true if the current player holds a card they may play.
+     */
+    boolean canPlay() {
+        int base = currPlayer * Card.NUM_IDS;
+        for (int id=0; id<Card.NUM_IDS; id++) {
+            if (hands[base + id] != 0 && canPlay(id, upCard, calledColor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the current player's legal moves: the cards they may play
+     * (each wild once per color), or only DRAW if there are none. Empty
+     * if the game is over.
+     */
+    public int[] legalMoves() {
+        int[] moves = new int[MAX_MOVES];
+        return Arrays.copyOf(moves, legalMoves(moves));
+    }
+
+    /**
+     * Fill moves with the current player's legal moves, without
+     * allocating anything.
+     * @param moves An array of at least MAX_MOVES ints.
+     * @return The number of legal moves, 0 only if the game is over.
+     */
+    public int legalMoves(int[] moves) {
+        if (isOver()) {
+            return 0;
+        }
+        int n = 0;
+        int base = currPlayer * Card.NUM_IDS;
+        for (int id=0; id<Card.WILD_ID; id++) {
+            if (hands[base + id] != 0 && canPlay(id, upCard, calledColor)) {
+                moves[n++] = id;
+            }
+        }
+        for (int id=Card.WILD_ID; id<Card.NUM_IDS; id++) {
+            if (hands[base + id] != 0) {
+                for (int color=0; color<4; color++) {
+                    moves[n++] = id + color * Card.NUM_IDS;
+                }
+            }
+        }
+        if (n == 0) {
+            moves[n++] = DRAW;
+        }
+        return n;
+    }
+
+    /**
+     * Return the snapshot that results from the current player making a
+     * move. This snapshot is left unchanged.
+     * @throws IllegalArgumentException If the move isn't legal.
+     */
+    public GameSnapshot apply(int move) {
+        int[] moves = new int[MAX_MOVES];
+        int n = legalMoves(moves);
+        for (int i=0; i<n; i++) {
+            if (moves[i] == move) {
+                GameSnapshot next = copy();
+                next.applyInPlace(move);
+                return next;
+            }
+        }
+        throw new IllegalArgumentException("Illegal move " + move + ".");
+    }
+
+    /**
+     * Make a move for the current player, changing this snapshot. The move
+     * must be legal; it is not checked.
+     */
+    void applyInPlace(int move) {
+        if (move == DRAW) {
+            int card = draw();
+            if (card < 0) {
+                return;
+            }
+            addToHand(currPlayer, card);
+            hasDrawn = canPlay();
+            if (!hasDrawn) {
+                advance(1);
+            }
+            return;
+        }
+        int id = move % Card.NUM_IDS;
+        hands[currPlayer * Card.NUM_IDS + id]--;
+        handSizes[currPlayer]--;
+        discards[numDiscards++] = (byte) upCard;
+        upCard = id;
+        hasDrawn = false;
+        if (id >= Card.WILD_ID) {
+            calledColor = move / Card.NUM_IDS;
+            lastCalled[currPlayer] = (byte) calledColor;
+        }
+        else {
+            calledColor = NO_COLOR;
+        }
+        if (handSizes[currPlayer] == 0) {
+            winner = currPlayer;
+            return;
+        }
+        if (id == Card.WILD_D4_ID) {
+            nextPlayerDraws(4);
+            advance(2);
+        }
+        else if (id == Card.WILD_ID) {
+            advance(1);
+        }
+        else {
+            switch (id % 13) {
+                case 10: // skip
+                    advance(2);
+                    break;
+                case 11: // reverse
+                    direction = -direction;
+                    advance(numPlayers == 2 ? 2 : 1);
+                    break;
+                case 12: // draw two
+                    nextPlayerDraws(2);
+                    advance(2);
+                    break;
+                default:
+                    advance(1);
+                    break;
+            }
+        }
+    }
+
+    private void advance(int players) {
+        currPlayer = Math.floorMod(currPlayer + players * direction,
+            numPlayers);
+    }
+
+    private void nextPlayerDraws(int cards) {
+        int next = Math.floorMod(currPlayer + direction, numPlayers);
+        for (int i=0; i<cards && !exhausted; i++) {
+            int card = draw();
+            if (card >= 0) {
+                addToHand(next, card);
+            }
+        }
+    }
+
+    /**
+     * Draw the top card of the deck, remixing the discards into it if it
+     * is empty.
+     * @return The card's id, or -1 if there was nothing left to draw, in
+     * which case the game is over as a draw.
+     */
+    private int draw() {
+        if (deckSize == 0) {
+            remix();
+            if (deckSize == 0) {
+                exhausted = true;
+                return -1;
+            }
+        }
+        return deck[--deckSize];
+    }
+
+    private void remix() {
+        System.arraycopy(discards, 0, deck, deckSize, numDiscards);
+        deckSize += numDiscards;
+        numDiscards = 0;
+        remixes++;
+        shuffle(deck, deckSize);
+    }
+
+    /**
+     * Shuffle the first n entries of cards, using this snapshot's own
+     * random number generator.
+     */
+    void shuffle(byte[] cards, int n) {
+        for (int i=n-1; i>0; i--) {
+            int j = nextInt(i + 1);
+            byte temp = cards[i];
+            cards[i] = cards[j];
+            cards[j] = temp;
+        }
+    }
+
+    /**
+     * Return a pseudorandom int from 0 up to (but not including) bound,
+     * from this snapshot's xorshift generator.
+     */
+    int nextInt(int bound) {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int) (((seed >>> 33) * bound) >>> 31);
+    }
+}
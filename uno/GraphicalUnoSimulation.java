@@ -9,7 +9,6 @@ import javax.swing.*;
 import java.io.*;
 import javax.imageio.*;
 import java.util.ArrayList;
-import java.util.Scanner;
 
 public class GraphicalUnoSimulation extends JFrame {
 
@@ -18,6 +17,13 @@ public class GraphicalUnoSimulation extends JFrame {
 
     public static final String PLAYER_FILENAME = "players.txt";
 
+    /**
+     * How many times per second the scoreboard is redrawn while a
+     * simulation is running. The games themselves run as fast as the
+     * simulation pool allows, independently of this rate.
+     */
+    public static final int FRAMES_PER_SECOND = 30;
+
     private ArrayList<String> playerNames;
     private ArrayList<String> playerClasses;
 
@@ -43,16 +49,16 @@ public class GraphicalUnoSimulation extends JFrame {
 
     private int numGames;
 
+    private SimulationPool pool;
+    private javax.swing.Timer frameTimer;
+    private long lastFrameTime;
+    private int lastFrameGames;
+    private double gamesPerSecond;
+
     private void loadPlayerData() throws Exception {
-        BufferedReader br = new BufferedReader(new FileReader(
-            PLAYER_FILENAME));
-        String playerLine = br.readLine();
-        while (playerLine != null) {
-            Scanner line = new Scanner(playerLine).useDelimiter(",");
-            playerNames.add(line.next());
-            playerClasses.add("uno." + line.next() + "_UnoPlayer");
-            playerLine = br.readLine();
-        }
+        Roster roster = Roster.load(PLAYER_FILENAME);
+        playerNames.addAll(roster.getNames());
+        playerClasses.addAll(roster.getClasses());
     }
 
     private GraphicalUnoSimulation(int numGames) throws Exception {
@@ -135,11 +141,7 @@ public class GraphicalUnoSimulation extends JFrame {
         c.fill = GridBagConstraints.NONE;
         cardButton.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent e) {
-                new Thread(new Runnable() {
-                    public void run() {
-                        simulate();
-                    }
-                }).start();
+                simulate();
             }
         });
         gridbag.setConstraints(cardButton, c);
@@ -187,33 +189,63 @@ public class GraphicalUnoSimulation extends JFrame {
         getContentPane().setBackground(new Color(230,230,230));
     }
 
+    /**
+     * Kick off a simulation on a background SimulationPool. The pool's
+     * workers never touch Swing components; instead, a Swing timer picks
+     * up a snapshot of the scores on the event dispatch thread a fixed
+     * number of times per second.
+     */
     private void simulate() {
+        if (pool != null) {
+            return;
+        }
         UnoSimulation.PRINT_VERBOSE = false;
         
         for (int j=0; j<playerClasses.size(); j++) {
             playerLabels.get(j).setForeground(Color.BLACK);
             scoreProgressBars.get(j).setForeground(Color.BLUE);
         }
-        try {
-            Scoreboard s = new Scoreboard(playerNames.toArray(new String[0]));
-            for (int i=1; i<=numGames; i++) {
-                Game g = new Game(s,playerClasses);
-                if(!g.play()) {
-                    System.out.println("Illegal play. Aborting.");
-                    return;
-                }
-                numGamesProgressBar.setString(i + " games");
-                numGamesProgressBar.setValue(i);
-                for (int j=0; j<playerClasses.size(); j++) {
-                    scoreProgressBars.get(j).setValue(s.getScore(j));
-                    scoreLabels.get(j).setText(""+s.getScore(j));
+        pool = new SimulationPool(playerNames.toArray(new String[0]),
+            playerClasses, numGames);
+        lastFrameTime = System.nanoTime();
+        lastFrameGames = 0;
+        gamesPerSecond = 0;
+        frameTimer = new javax.swing.Timer(1000 / FRAMES_PER_SECOND,
+            new ActionListener() {
+                public void actionPerformed(ActionEvent e) {
+                    drawFrame();
                 }
-            }
-            playerLabels.get(s.getWinner()).setForeground(Color.RED);
-            scoreProgressBars.get(s.getWinner()).setForeground(Color.RED);
+            });
+        pool.start();
+        frameTimer.start();
+    }
+
+    /**
+     * Copy the pool's current scores onto the screen. Called on the event
+     * dispatch thread by the frame timer.
+     */
+    private void drawFrame() {
+        boolean finished = pool.isFinished();
+        int gamesPlayed = pool.getGamesPlayed();
+        long now = System.nanoTime();
+        if (now - lastFrameTime >= 500000000L || finished) {
+            gamesPerSecond = (gamesPlayed - lastFrameGames) * 1e9 /
+                Math.max(1, now - lastFrameTime);
+            lastFrameTime = now;
+            lastFrameGames = gamesPlayed;
         }
-        catch (Exception e) {
-            e.printStackTrace();
+        numGamesProgressBar.setString(gamesPlayed + " games (" +
+            Math.round(gamesPerSecond) + " games/sec)");
+        numGamesProgressBar.setValue(gamesPlayed);
+        for (int j=0; j<playerClasses.size(); j++) {
+            scoreProgressBars.get(j).setValue(pool.getScore(j));
+            scoreLabels.get(j).setText(""+pool.getScore(j));
+        }
+        if (finished) {
+            frameTimer.stop();
+            playerLabels.get(pool.getWinner()).setForeground(Color.RED);
+            scoreProgressBars.get(pool.getWinner()).setForeground(Color.RED);
+            pool = null;
         }
     }
 
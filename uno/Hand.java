@@ -15,20 +15,25 @@ import java.util.ArrayList;
  */
 public class Hand {
 
-    private ArrayList<Card> cards;
-    private UnoPlayer player;
+    private HandView view = new HandView();
+    private UnoPlayerV2 player;
     private String playerName;
 
     /**
-     * Instantiate a Hand object to be played by the UnoPlayer class, and
-     * the player name, passed as arguments. This implements a strategy
-     * pattern whereby the constructor accepts various strategies that
-     * implement the UnoPlayer interface.
+     * Instantiate a Hand object to be played by the UnoPlayer (or
+     * UnoPlayerV2) class, and the player name, passed as arguments. This
+     * implements a strategy pattern whereby the constructor accepts
+     * various strategies that implement the UnoPlayer interface.
      */
     public Hand(String unoPlayerClassName, String playerName) {
         try {
-            player = (UnoPlayer)
-                Class.forName(unoPlayerClassName).newInstance();
+            Object strategy = Roster.newStrategy(unoPlayerClassName);
+            if (strategy instanceof UnoPlayerV2) {
+                player = (UnoPlayerV2) strategy;
+            }
+            else {
+                player = new LegacyUnoPlayerAdapter((UnoPlayer) strategy);
+            }
         }
         catch (Exception e) {
             System.out.println("Problem with " + unoPlayerClassName + ".");
@@ -36,21 +41,59 @@ public class Hand {
             System.exit(1);
         }
         this.playerName = playerName;
-        cards = new ArrayList<Card>();
+    }
+
+    /**
+     * Instantiate a Hand object to be played by an already-instantiated
+     * UnoPlayer, with the player name passed. A player that is also an
+     * UnoPlayerV2 is played through that interface. A PerThreadUnoPlayer
+     * is replaced by a fresh instance of the class it wraps, for this
+     * game alone.
+     */
+    public Hand(UnoPlayer player, String playerName) {
+        this(asV2(PerThreadUnoPlayer.forGame(player)), playerName);
+    }
+
+    private static UnoPlayerV2 asV2(UnoPlayer player) {
+        return player instanceof UnoPlayerV2 ? (UnoPlayerV2) player :
+            new LegacyUnoPlayerAdapter(player);
+    }
+
+    /**
+     * Instantiate a Hand object to be played by an already-instantiated
+     * UnoPlayerV2, with the player name passed.
+     */
+    public Hand(UnoPlayerV2 player, String playerName) {
+        this.player = player;
+        this.playerName = playerName;
     }
 
     /**
      * Add (draw) a card to the hand.
      */
     void addCard(Card c) {
-        cards.add(c);
+        view.add(c);
+    }
+
+    /**
+     * Return the Cards in the hand.
+     */
+    ArrayList<Card> getCards() {
+        return view.getCards();
+    }
+
+    /**
+     * Return the hand as its strategy sees it.
+     */
+    HandView getView() {
+        return view;
     }
 
     /**
      * Return the number of cards in the hand.
      */
     public int size() {
-        return cards.size();
+        return view.size();
     }
 
     /**
@@ -63,21 +106,65 @@ public class Hand {
      * this Hand as a side effect), or null if no such Card can be played.
      */
     Card play(Game game) {
-        int playedCard;
-        int x = 0;
-        playedCard = player.play(new ArrayList<Card>(cards), game.getUpCard(), game.calledColor,
-            game.getGameState());
+        int playedCard = choose(game);
         if (playedCard == -1) {
             return null;
         }
-        else {
-            
-                Card toPlay = cards.remove(playedCard);
-              
-                return toPlay;
-            
+        return view.remove(playedCard);
+    }
+
+    /**
+     * Ask the strategy which card to play, as play(), but leave it in the
+     * Hand: return its index, or -1 if the player plays nothing.
+     */
+    int choose(Game game) {
+        return player.play(view, game.upCard.getId(),
+            game.calledColor.ordinal(), game.getLegalMoves(),
+            game.getGameState());
+    }
+
+    /**
+     * Return true if the strategy is an UnoPlayer that isn't a
+     * DrawnCardPlayer (or an UnoPlayerV2), and so, as it always has been,
+     * is asked to play() again after every draw, whether or not the card
+     * drawn can be played.
+     */
+    boolean playsAgainAfterDraw() {
+        return player instanceof LegacyUnoPlayerAdapter &&
+            !(((LegacyUnoPlayerAdapter) player).getPlayer() instanceof
+            DrawnCardPlayer);
+    }
+
+    /**
+     * Ask the strategy whether to play the card just drawn (the last in
+     * the Hand), which is legal, and if so remove and return it; return
+     * null if the player keeps it.
+     */
+    Card playDrawnCard(Game game) {
+        int playedCard = player.playDrawnCard(view, game.upCard.getId(),
+            game.calledColor.ordinal(), game.getGameState());
+        if (playedCard == -1) {
+            return null;
         }
-       
+        return view.remove(playedCard);
+    }
+
+    /**
+     * Remove and return the card at the index passed, as play() does with
+     * the card the strategy chooses.
+     */
+    Card remove(int index) {
+        return view.remove(index);
+    }
+
+    /**
+     * Exchange the cards of this Hand with those of another, as when
+     * players trade hands; each Hand keeps its player.
+     */
+    void swapCards(Hand other) {
+        HandView mine = view;
+        view = other.view;
+        other.view = mine;
     }
 
     /**
@@ -89,7 +176,8 @@ public class Hand {
      * @return A Color value, <i>not</i> Color.NONE.
      */
     UnoPlayer.Color callColor(Game game) {
-        return player.callColor(cards);
+        return UnoPlayer.Color.values()[player.callColor(view,
+            game.getGameState())];
     }
 
     /**
@@ -97,7 +185,7 @@ public class Hand {
      * winning condition.
      */
     public boolean isEmpty() {
-        return cards.size() == 0;
+        return view.size() == 0;
     }
 
     /**
@@ -105,6 +193,7 @@ public class Hand {
      * notes about how individual cards are rendered.
      */
     public String toString() {
+        ArrayList<Card> cards = view.getCards();
         String retval = "";
         for (int i=0; i<cards.size(); i++) {
             retval += cards.get(i);
@@ -120,6 +209,7 @@ public class Hand {
      * words, the sum of all the forfeit values of cards still possessed.)
      */
     public int countCards() {
+        ArrayList<Card> cards = view.getCards();
         int total = 0;
         for (int i=0; i<cards.size(); i++) {
             total += cards.get(i).forfeitCost();
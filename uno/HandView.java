@@ -0,0 +1,108 @@
+package uno;
+
+import java.util.ArrayList;
+
+/**
+ * <p>The cards of a Hand, as UnoPlayerV2 strategies see them: a read-only
+ * view of card ids (see Card.getId()), in the order of the hand, with a
+ * count of each id and a bitmask of the ids held, all kept up to date as
+ * cards come and go. The Hand keeps its Card objects here as well, for
+ * the strategies that still work with them.</p>
+ *
+ * <p>A view shows the hand as it is when the strategy looks at it, and
+ * goes on changing with the game, so a strategy should copy out anything
+ * it wants to keep after its decision.</p>
+ * @since 2.0
+ */
+public final class HandView {
+
+    private final ArrayList<Card> cards = new ArrayList<Card>();
+    private int[] ids = new int[16];
+    private final int[] counts = new int[Card.NUM_IDS];
+    private long held;
+
+    /**
+     * Add a card at the end of the hand.
+     */
+    void add(Card card) {
+        int id = card.getId();
+        if (cards.size() == ids.length) {
+            int[] grown = new int[ids.length * 2];
+            System.arraycopy(ids, 0, grown, 0, ids.length);
+            ids = grown;
+        }
+        ids[cards.size()] = id;
+        cards.add(card);
+        counts[id]++;
+        held |= 1L << id;
+    }
+
+    /**
+     * Remove and return the card at the index passed.
+     */
+    Card remove(int index) {
+        Card card = cards.remove(index);
+        System.arraycopy(ids, index + 1, ids, index, cards.size() - index);
+        int id = card.getId();
+        if (--counts[id] == 0) {
+            held &= ~(1L << id);
+        }
+        return card;
+    }
+
+    /**
+     * Return the Card objects of the hand, in the same order.
+     */
+    ArrayList<Card> getCards() {
+        return cards;
+    }
+
+    /**
+     * Return the number of cards in the hand.
+     */
+    public int size() {
+        return cards.size();
+    }
+
+    /**
+     * Return the id of the card at the index passed.
+     */
+    public int getCard(int index) {
+        if (index >= cards.size()) {
+            throw new IndexOutOfBoundsException("Index " + index +
+                ", size " + cards.size());
+        }
+        return ids[index];
+    }
+
+    /**
+     * Return how many cards of the id passed the hand holds.
+     */
+    public int count(int id) {
+        return counts[id];
+    }
+
+    /**
+     * Return a bitmask with the bit (1L &lt;&lt; id) set for each id the
+     * hand holds at least one of. ANDed with the legal moves an
+     * UnoPlayerV2 is given, it shows at once whether the hand can play.
+     */
+    public long getHeld() {
+        return held;
+    }
+
+    /**
+     * Return the index of the first card of the id passed, or -1 if the
+     * hand holds none.
+     */
+    public int indexOf(int id) {
+        if (counts[id] == 0) {
+            return -1;
+        }
+        int i = 0;
+        while (ids[i] != id) {
+            i++;
+        }
+        return i;
+    }
+}
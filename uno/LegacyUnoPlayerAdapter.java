@@ -0,0 +1,58 @@
+package uno;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * <p>Runs a strategy written to the original UnoPlayer interface as an
+ * UnoPlayerV2. The strategy sees exactly the calls it always has: a copy
+ * of the hand's Cards for play(), the hand itself for callColor(), and
+ * (for a DrawnCardPlayer) a read-only view of it for playDrawnCard(). A
+ * strategy that isn't a DrawnCardPlayer is asked to play() again after
+ * drawing a playable card, as before. The legal moves the engine passes
+ * are left for the strategy to work out for itself.</p>
+ * @since 2.0
+ */
+public class LegacyUnoPlayerAdapter implements UnoPlayerV2 {
+
+    private static final UnoPlayer.Color[] COLORS = UnoPlayer.Color.values();
+
+    private final UnoPlayer player;
+
+    /**
+     * Adapt the UnoPlayer passed.
+     */
+    public LegacyUnoPlayerAdapter(UnoPlayer player) {
+        this.player = player;
+    }
+
+    /**
+     * Return the UnoPlayer this adapter runs.
+     */
+    public UnoPlayer getPlayer() {
+        return player;
+    }
+
+    public int play(HandView hand, int upCard, int calledColor,
+        long legalMoves, GameState state) {
+        return player.play(new ArrayList<Card>(hand.getCards()),
+            Card.forId(upCard), COLORS[calledColor], state);
+    }
+
+    public int playDrawnCard(HandView hand, int upCard, int calledColor,
+        GameState state) {
+        if (player instanceof DrawnCardPlayer) {
+            ArrayList<Card> cards = hand.getCards();
+            boolean play = ((DrawnCardPlayer) player).playDrawnCard(
+                Collections.unmodifiableList(cards),
+                cards.get(cards.size() - 1), Card.forId(upCard),
+                COLORS[calledColor], state);
+            return play ? cards.size() - 1 : -1;
+        }
+        return play(hand, upCard, calledColor, 0, state);
+    }
+
+    public int callColor(HandView hand, GameState state) {
+        return player.callColor(hand.getCards(), state).ordinal();
+    }
+}
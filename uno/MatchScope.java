@@ -0,0 +1,152 @@
+package uno;
+
+import java.util.ArrayList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * <p>A MatchScope runs several matches (SimulationPools) at the same time
+ * and treats them as a single unit of work, in the manner of structured
+ * concurrency. join() returns only once every match in the scope has
+ * finished, and as soon as any one match is aborted the others are
+ * cancelled. Closing the scope cancels whatever is still running and waits
+ * for it, so no match outlives the block of code that started it:</p>
+ * <pre>
+ * try (MatchScope scope = new MatchScope(true)) {
+ *     for (...) {
+ *         scope.fork(new SimulationPool(names, classes, numGames));
+ *     }
+ *     if (!scope.join()) { ... }
+ * }
+ * </pre>
+ * @since 2.0
+ */
+public class MatchScope implements AutoCloseable {
+
+    /**
+     * When running games one thread per game, the most games any one match
+     * in the scope may have in flight at once.
+     */
+    public static final int MAX_CONCURRENT_GAMES_PER_MATCH = 10000;
+
+    private boolean perGame;
+    private ExecutorService gameExecutor;
+    private ArrayList<SimulationPool> matches = new ArrayList<SimulationPool>();
+    private BlockingQueue<SimulationPool> finished =
+        new LinkedBlockingQueue<SimulationPool>();
+    private int joined = 0;
+    private volatile boolean aborted = false;
+
+    /**
+     * Instantiate an empty scope.
+     * @param perGame If true, matches play each game on a thread of its own
+     * (virtual, where the runtime supports it; see
+     * SimulationPool.startPerGame), all on one executor the scope shares
+     * between them, so that on runtimes without virtual threads the whole
+     * scope uses one bounded pool of platform threads however many
+     * matches it runs. If false, each match is started with
+     * SimulationPool.start().
+     */
+    public MatchScope(boolean perGame) {
+        this.perGame = perGame;
+    }
+
+    /**
+     * Start a match as part of this scope.
+     * @return The match passed, for convenience.
+     */
+    public SimulationPool fork(SimulationPool match) {
+        if (aborted) {
+            throw new IllegalStateException("Scope has already been aborted.");
+        }
+        match.notifyWhenFinished(finished);
+        if (perGame) {
+            if (gameExecutor == null) {
+                gameExecutor = SimulationPool.newPerGameExecutor(
+                    MAX_CONCURRENT_GAMES_PER_MATCH);
+            }
+            match.startPerGame(MAX_CONCURRENT_GAMES_PER_MATCH, gameExecutor);
+        }
+        else {
+            match.start();
+        }
+        matches.add(match);
+        return match;
+    }
+
+    /**
+     * Wait for every match in the scope to finish. Matches are taken in the
+     * order they finish, so the first one to be aborted (by an illegal play
+     * or an exception) cancels the rest at once.
+     * @return true if every match played all of its games.
+     */
+    public boolean join() throws InterruptedException {
+        while (joined < matches.size()) {
+            SimulationPool match = finished.take();
+            joined++;
+            if (!match.await()) {
+                cancelAll();
+            }
+        }
+        return !aborted;
+    }
+
+    /**
+     * Stop every match in the scope once the games in progress are done,
+     * because enough games have been played. Unlike an abort, this does not
+     * make join() report failure.
+     */
+    public void stop() {
+        for (SimulationPool match : matches) {
+            match.stop();
+        }
+    }
+
+    /**
+     * Return true once every match in the scope has finished.
+     */
+    public boolean isFinished() {
+        for (SimulationPool match : matches) {
+            if (!match.isFinished()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cancel any matches still running and wait for them to stop. If this
+     * thread is interrupted while waiting, the matches are left to wind
+     * down on their own and the interrupt is passed on by setting this
+     * thread's interrupt status again.
+     */
+    public void close() {
+        try {
+            for (SimulationPool match : matches) {
+                if (!match.isFinished()) {
+                    cancelAll();
+                    break;
+                }
+            }
+            for (SimulationPool match : matches) {
+                match.await();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            if (gameExecutor != null) {
+                gameExecutor.shutdown();
+            }
+        }
+    }
+
+    private void cancelAll() {
+        aborted = true;
+        for (SimulationPool match : matches) {
+            match.cancel();
+        }
+    }
+}
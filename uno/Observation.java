@@ -0,0 +1,111 @@
+package uno;
+
+import java.util.List;
+
+/**
+ * <p>What a player knows of the game when it is their turn, in the form a
+ * search can use: a GameSnapshot from their own point of view (they are
+ * player 0, and the other players are numbered in the order they will
+ * play next) with their own hand, the up card and the discard pile filled
+ * in, the sizes of the other hands, and the cards they can't see.
+ * determinize() deals the unseen cards at random into the other hands and
+ * the draw pile, giving one complete game consistent with everything the
+ * player knows.</p>
+ *
+ * <p>A GameSnapshot plays by the official rules only, so a game under
+ * house rules can't be observed; see canModel().</p>
+ * @since 2.0
+ */
+final class Observation {
+
+    private GameSnapshot known;
+    private int[] handSizes;
+    private byte[] unseen;
+    private int numUnseen;
+
+    /**
+     * Return true if the game the state describes can be observed: it is
+     * played by the official rules, and no draws are pending. Players that
+     * search through an Observation must fall back on something else when
+     * it can't.
+     */
+    static boolean canModel(GameState state) {
+        return state.getRules().isOfficial() && state.getPendingDraws() == 0;
+    }
+
+    /**
+     * Record what the player with this hand knows.
+     * @throws UnsupportedOperationException If the game can't be modeled
+     * (see canModel()).
+     */
+    Observation(List<Card> hand, Card upCard, UnoPlayer.Color calledColor,
+        GameState state) {
+        if (!canModel(state)) {
+            throw new UnsupportedOperationException("Observation models " +
+                "the official rules only, not " + state.getRules() + ".");
+        }
+        int[] upcoming = state.getNumCardsInHandsOfUpcomingPlayers();
+        int numPlayers = upcoming.length;
+        handSizes = new int[numPlayers];
+        handSizes[0] = hand.size();
+        for (int p=1; p<numPlayers; p++) {
+            handSizes[p] = upcoming[p - 1];
+        }
+        GameSnapshot g = new GameSnapshot(numPlayers, 1);
+        byte[] remaining = GameSnapshot.FULL_DECK.clone();
+        for (Card card : hand) {
+            g.addToHand(0, card.getId());
+            remaining[card.getId()]--;
+        }
+        g.upCard = upCard.getId();
+        remaining[g.upCard]--;
+        g.calledColor = calledColor == UnoPlayer.Color.NONE ?
+            GameSnapshot.NO_COLOR : calledColor.ordinal();
+        for (Card card : state.getPlayedCards()) {
+            g.discards[g.numDiscards++] = (byte) card.getId();
+            remaining[card.getId()]--;
+        }
+        UnoPlayer.Color[] called =
+            state.getMostRecentColorCalledByUpcomingPlayers();
+        for (int p=1; p<numPlayers && p-1<called.length; p++) {
+            if (called[p - 1] != null && called[p - 1] != UnoPlayer.Color.NONE) {
+                g.lastCalled[p] = (byte) called[p - 1].ordinal();
+            }
+        }
+        known = g;
+        unseen = new byte[g.deck.length];
+        for (int id=0; id<Card.NUM_IDS; id++) {
+            for (int i=0; i<remaining[id]; i++) {
+                unseen[numUnseen++] = (byte) id;
+            }
+        }
+    }
+
+    /**
+     * Return the number of cards each player holds, this player first.
+     */
+    int[] getHandSizes() {
+        return handSizes;
+    }
+
+    /**
+     * Deal the unseen cards at random to the other players and the draw
+     * pile.
+     * @param seed Seeds the deal, and the snapshot's own generator.
+     */
+    GameSnapshot determinize(long seed) {
+        GameSnapshot g = known.copy();
+        g.seed = seed == 0 ? 1 : seed;
+        byte[] cards = unseen.clone();
+        g.shuffle(cards, numUnseen);
+        int next = 0;
+        for (int p=1; p<g.numPlayers; p++) {
+            for (int i=0; i<handSizes[p] && next<numUnseen; i++) {
+                g.addToHand(p, cards[next++]);
+            }
+        }
+        g.deckSize = numUnseen - next;
+        System.arraycopy(cards, next, g.deck, 0, g.deckSize);
+        return g;
+    }
+}
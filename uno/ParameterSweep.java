@@ -0,0 +1,526 @@
+package uno;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Sweeps values_UnoPlayer's coefficients over a design (see
+ * SweepDesign), to map how its performance depends on them and how they
+ * interact. Every point of the design plays the same games in seat 0 of a
+ * table of baseline players, as TrainValues measures fitness: game i at
+ * every point is dealt with seed+i, so that differences between points
+ * come from the values rather than the deal. Games are played by the rules
+ * of the uno.rules property. The points are spread over one worker per
+ * processor, and each is appended to a CSV store as soon as it is
+ * done.</p>
+ *
+ * <p>The store has a row for each point: its number, its values, and the
+ * fitness, points and win rate of TrainValues' values files, then the
+ * number of games, players per table, seed and rules (with "+" for ","
+ * between rules). It can be read as a values file, so the best point
+ * found can be played from players.txt ("Swept,values:sweep.csv#best").
+ * Running the same sweep again on an existing store plays only the points
+ * it doesn't have yet, so an interrupted sweep picks up where it left
+ * off.</p>
+ *
+ * <p>Usage:</p>
+ * <pre>
+ * ParameterSweep run storeFile grid|lhs|sobol size gamesPerPoint ranges [numPlayers] [seed]
+ * ParameterSweep query storeFile [top [n] | coefficient [coefficient]]
+ * </pre>
+ * <p>where ranges are as for SweepDesign.parse() (for instance,
+ * "significantLeadRatio=0:2,drawTwoPoints=0:20"), numPlayers is 4 and seed
+ * 0 by default. "query" lists the fittest points (10 unless n is given),
+ * or the mean points per game and win rate over the range of one
+ * coefficient, or a table of points per game over the ranges of two.</p>
+ * @since 2.0
+ */
+public class ParameterSweep {
+
+    /**
+     * The number of players at each table, unless another is given.
+     */
+    static final int DEFAULT_NUM_PLAYERS = 4;
+
+    /**
+     * The number of points "query" lists, unless another is given.
+     */
+    static final int DEFAULT_TOP = 10;
+
+    /**
+     * The most bins "query" divides a coefficient's range into; a
+     * coefficient with no more distinct values than this (as on a grid)
+     * gets a bin for each.
+     */
+    static final int QUERY_BINS = 8;
+
+    /**
+     * Every how many points finished progress is reported.
+     */
+    static final int PROGRESS_POINTS = 10;
+
+    /**
+     * The columns of the store after the values.
+     */
+    private static final int FITNESS = values_UnoPlayer.NUM_VALUES + 1;
+    private static final int POINTS = FITNESS + 1;
+    private static final int RATE = POINTS + 1;
+    private static final int GAMES = RATE + 1;
+    private static final int PLAYERS = GAMES + 1;
+    private static final int SEED = PLAYERS + 1;
+    private static final int RULES = SEED + 1;
+    private static final int NUM_COLUMNS = RULES + 1;
+
+    private final SweepDesign design;
+    private final int gamesPerPoint;
+    private final int numPlayers;
+    private final long seed;
+    private final RuleSet rules;
+    private final File store;
+
+    private PrintWriter out;
+    private boolean[] done;
+    private final AtomicInteger numDone = new AtomicInteger();
+    private volatile boolean aborted = false;
+
+    public static void main(String args[]) {
+        if (args.length >= 6 && args.length <= 8 && args[0].equals("run")) {
+            try {
+                long seed = args.length > 7 ? Long.parseLong(args[7]) : 0;
+                ParameterSweep sweep = new ParameterSweep(new File(args[1]),
+                    SweepDesign.parse(args[2], Integer.parseInt(args[3]),
+                    args[5], seed), Integer.parseInt(args[4]),
+                    args.length > 6 ? Integer.parseInt(args[6]) :
+                    DEFAULT_NUM_PLAYERS, seed, RuleSet.getDefault());
+                sweep.run(Runtime.getRuntime().availableProcessors());
+            }
+            catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        else if (args.length >= 2 && args.length <= 4 &&
+            args[0].equals("query")) {
+            try {
+                query(readStore(new File(args[1])), args);
+            }
+            catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        else {
+            System.out.println("Usage: ParameterSweep run storeFile " +
+                "grid|lhs|sobol size gamesPerPoint ranges [numPlayers] " +
+                "[seed]");
+            System.out.println("       ParameterSweep query storeFile " +
+                "[top [n] | coefficient [coefficient]]");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Instantiate a sweep of the design passed, stored in the file passed.
+     * @param gamesPerPoint The number of games each point plays.
+     * @param numPlayers The number of players at each table: the point
+     * being played, and numPlayers-1 baseline players.
+     * @param seed Game i of every point is dealt with seed+i.
+     * @param rules The rules every game is played by.
+     */
+    public ParameterSweep(File store, SweepDesign design, int gamesPerPoint,
+        int numPlayers, long seed, RuleSet rules) {
+        Game.checkNumPlayers(numPlayers);
+        this.store = store;
+        this.design = design;
+        this.gamesPerPoint = gamesPerPoint;
+        this.numPlayers = numPlayers;
+        this.seed = seed;
+        this.rules = rules;
+    }
+
+    /**
+     * Play every point of the design the store doesn't already have, on
+     * numThreads workers, appending each to the store as it finishes.
+     * @return false if a game ended in an illegal play and the sweep was
+     * aborted, true otherwise.
+     */
+    public boolean run(int numThreads) throws IOException,
+        InterruptedException {
+        resume();
+        final int total = design.getNumPoints();
+        final int resumed = numDone.get();
+        System.out.println("Sweeping " + design + ": " + (total - resumed) +
+            " of " + total + " points to play, " + gamesPerPoint +
+            " games each.");
+        final UnoPlayer field = new values_UnoPlayer();
+        final long startTime = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(
+            Math.max(1, numThreads));
+        for (int p=0; p<total; p++) {
+            if (done[p]) {
+                continue;
+            }
+            final int point = p;
+            executor.execute(new Runnable() {
+                public void run() {
+                    if (!aborted && !play(point, field)) {
+                        aborted = true;
+                        System.out.println("Illegal play. Aborting.");
+                        return;
+                    }
+                    int n = numDone.incrementAndGet();
+                    if (!aborted && (n % PROGRESS_POINTS == 0 || n == total)) {
+                        double seconds = (System.nanoTime() - startTime) / 1e9;
+                        System.out.println(String.format(
+                            "%d/%d points done (%.1f a minute)", n, total,
+                            (n - resumed) / seconds * 60));
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        out.close();
+        return !aborted;
+    }
+
+    /**
+     * Play one point of the design and append its row to the store.
+     * @return false if a game ended in an illegal play.
+     */
+    private boolean play(int point, UnoPlayer field) {
+        double[] values = design.getPoint(point);
+        UnoPlayer[] players = new UnoPlayer[numPlayers];
+        String[] names = new String[numPlayers];
+        players[0] = new values_UnoPlayer(values);
+        names[0] = "Point " + point;
+        for (int i=1; i<numPlayers; i++) {
+            players[i] = field;
+            names[i] = "Field " + i;
+        }
+        Scoreboard s = new Scoreboard(names);
+        for (int g=0; g<gamesPerPoint && !aborted; g++) {
+            if (!new Game(s, players, seed + g, rules).play()) {
+                return false;
+            }
+        }
+        if (aborted) {
+            return true;
+        }
+        String row = point + "," + values_UnoPlayer.formatValues(values) +
+            "," + s.getScore(0) * s.getWinRate(0) + "," + s.getScore(0) +
+            "," + s.getWinRate(0) + "," + gamesPerPoint + "," + numPlayers +
+            "," + seed + "," + formatRules(rules);
+        synchronized (out) {
+            out.println(row);
+            out.flush();
+        }
+        return true;
+    }
+
+    /**
+     * Read the points the store already has, checking that they are points
+     * of this sweep, and rewrite it with just those (dropping any row left
+     * half-written by an interrupted run), ready for more to be appended.
+     * The rows are written to a temporary file that then replaces the
+     * store, so that the points already played survive a run killed while
+     * rewriting it.
+     * @throws IOException If the store holds points of some other sweep.
+     */
+    private void resume() throws IOException {
+        done = new boolean[design.getNumPoints()];
+        ArrayList<String[]> rows = store.exists() ? readStore(store) :
+            new ArrayList<String[]>();
+        for (String[] row : rows) {
+            int point = Integer.parseInt(row[0]);
+            if (point >= done.length || get(row, GAMES) != gamesPerPoint ||
+                get(row, PLAYERS) != numPlayers ||
+                Long.parseLong(row[SEED]) != seed ||
+                !parseRules(row[RULES]).equals(rules) ||
+                !sameValues(row, design.getPoint(point))) {
+                throw new IOException(store + " holds point " + point +
+                    " of a different sweep.");
+            }
+            if (!done[point]) {
+                done[point] = true;
+                numDone.incrementAndGet();
+            }
+        }
+        File temp = new File(store.getPath() + ".tmp");
+        PrintWriter pw = new PrintWriter(new FileWriter(temp));
+        try {
+            pw.println(header());
+            for (String[] row : rows) {
+                String line = row[0];
+                for (int i=1; i<row.length; i++) {
+                    line += "," + row[i];
+                }
+                pw.println(line);
+            }
+        }
+        finally {
+            pw.close();
+        }
+        if (pw.checkError()) {
+            throw new IOException("Can't write " + temp + ".");
+        }
+        Files.move(temp.toPath(), store.toPath(),
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+        out = new PrintWriter(new FileWriter(store, true));
+    }
+
+    private static boolean sameValues(String[] row, double[] values) {
+        for (int i=0; i<values.length; i++) {
+            if (Double.parseDouble(row[1 + i]) != values[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String header() {
+        String header = "point";
+        for (String name : values_UnoPlayer.NAMES) {
+            header += "," + name;
+        }
+        return header + ",fitness,points,rate,games,players,seed,rules";
+    }
+
+    /**
+     * Return the rules as the store records them: RuleSet.toString(), with
+     * "+" between rules, since the store separates its columns by ",".
+     */
+    private static String formatRules(RuleSet rules) {
+        return rules.toString().replace(',', '+');
+    }
+
+    private static RuleSet parseRules(String rules) {
+        return RuleSet.parse(rules.replace('+', ','));
+    }
+
+    /**
+     * Return the complete rows of a store, skipping its header and any row
+     * that was cut short.
+     */
+    private static ArrayList<String[]> readStore(File store)
+        throws IOException {
+        ArrayList<String[]> rows = new ArrayList<String[]>();
+        BufferedReader br = new BufferedReader(new FileReader(store));
+        try {
+            br.readLine();
+            for (String line = br.readLine(); line != null;
+                line = br.readLine()) {
+                String[] row = line.split(",");
+                if (row.length == NUM_COLUMNS && isComplete(row)) {
+                    rows.add(row);
+                }
+            }
+        }
+        finally {
+            br.close();
+        }
+        return rows;
+    }
+
+    private static boolean isComplete(String[] row) {
+        try {
+            Integer.parseInt(row[0]);
+            for (int i=1; i<RULES; i++) {
+                Double.parseDouble(row[i]);
+            }
+            parseRules(row[RULES]);
+            return true;
+        }
+        catch (IllegalArgumentException e) {
+            // Including NumberFormatException.
+            return false;
+        }
+    }
+
+    /**
+     * Answer the query the command line asks of the rows of a store.
+     */
+    private static void query(ArrayList<String[]> rows, String[] args) {
+        if (rows.isEmpty()) {
+            System.out.println("The store holds no points.");
+            return;
+        }
+        if (args.length == 2 || args[2].equals("top")) {
+            printTop(rows, args.length > 3 ? Integer.parseInt(args[3]) :
+                DEFAULT_TOP);
+        }
+        else if (args.length == 3) {
+            printBins(rows, SweepDesign.indexOf(args[2]));
+        }
+        else {
+            printTable(rows, SweepDesign.indexOf(args[2]),
+                SweepDesign.indexOf(args[3]));
+        }
+    }
+
+    /**
+     * Print the n fittest points, with the values of every coefficient
+     * that differs between points.
+     */
+    private static void printTop(ArrayList<String[]> rows, int n) {
+        ArrayList<Integer> varied = new ArrayList<Integer>();
+        for (int i=0; i<values_UnoPlayer.NUM_VALUES; i++) {
+            for (String[] row : rows) {
+                if (!row[1 + i].equals(rows.get(0)[1 + i])) {
+                    varied.add(i);
+                    break;
+                }
+            }
+        }
+        boolean[] listed = new boolean[rows.size()];
+        for (int rank=0; rank<Math.min(n, rows.size()); rank++) {
+            int best = -1;
+            for (int r=0; r<rows.size(); r++) {
+                if (!listed[r] && (best < 0 ||
+                    get(rows.get(r), FITNESS) > get(rows.get(best), FITNESS))) {
+                    best = r;
+                }
+            }
+            listed[best] = true;
+            String[] row = rows.get(best);
+            String line = String.format(
+                "Point %s: fitness %.1f, %.2f points/game, %.2f%% wins",
+                row[0], get(row, FITNESS), get(row, POINTS) / get(row, GAMES),
+                100 * get(row, RATE));
+            for (int i : varied) {
+                line += String.format(", %s=%.4g", values_UnoPlayer.NAMES[i],
+                    get(row, 1 + i));
+            }
+            System.out.println(line);
+        }
+        System.out.println(rows.size() + " points stored.");
+    }
+
+    /**
+     * Print the mean points per game and win rate of the points in each bin
+     * of one coefficient's range.
+     */
+    private static void printBins(ArrayList<String[]> rows, int c) {
+        double[] edges = binEdges(rows, c);
+        int bins = edges.length - 1;
+        double[] points = new double[bins];
+        double[] rates = new double[bins];
+        int[] counts = new int[bins];
+        for (String[] row : rows) {
+            int b = bin(edges, get(row, 1 + c));
+            points[b] += get(row, POINTS) / get(row, GAMES);
+            rates[b] += get(row, RATE);
+            counts[b]++;
+        }
+        System.out.println(String.format("%-25s %8s %12s %10s",
+            values_UnoPlayer.NAMES[c], "count", "points/game", "win rate"));
+        for (int b=0; b<bins; b++) {
+            if (counts[b] > 0) {
+                System.out.println(String.format("%-25s %8d %12.2f %9.2f%%",
+                    binName(edges, b), counts[b], points[b] / counts[b],
+                    100 * rates[b] / counts[b]));
+            }
+        }
+    }
+
+    /**
+     * Print a table of the mean points per game of the points in each pair
+     * of bins of two coefficients' ranges, the first down the side and the
+     * second across the top.
+     */
+    private static void printTable(ArrayList<String[]> rows, int c1, int c2) {
+        double[] edges1 = binEdges(rows, c1);
+        double[] edges2 = binEdges(rows, c2);
+        double[][] points = new double[edges1.length - 1][edges2.length - 1];
+        int[][] counts = new int[edges1.length - 1][edges2.length - 1];
+        for (String[] row : rows) {
+            int b1 = bin(edges1, get(row, 1 + c1));
+            int b2 = bin(edges2, get(row, 1 + c2));
+            points[b1][b2] += get(row, POINTS) / get(row, GAMES);
+            counts[b1][b2]++;
+        }
+        System.out.println("Points/game by " + values_UnoPlayer.NAMES[c1] +
+            " (down) and " + values_UnoPlayer.NAMES[c2] + " (across):");
+        String line = String.format("%-20s", "");
+        for (int b2=0; b2<counts[0].length; b2++) {
+            line += String.format(" %20s", binName(edges2, b2));
+        }
+        System.out.println(line);
+        for (int b1=0; b1<counts.length; b1++) {
+            line = String.format("%-20s", binName(edges1, b1));
+            for (int b2=0; b2<counts[b1].length; b2++) {
+                line += counts[b1][b2] == 0 ? String.format(" %20s", "-") :
+                    String.format(" %20.2f", points[b1][b2] / counts[b1][b2]);
+            }
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * Return the edges of the bins of a coefficient. If it has no more than
+     * QUERY_BINS distinct values, there is a bin for each, starting at that
+     * value, and the last edge is infinite; otherwise there are QUERY_BINS
+     * equal bins from the least value to the greatest.
+     */
+    private static double[] binEdges(ArrayList<String[]> rows, int c) {
+        ArrayList<Double> distinct = new ArrayList<Double>();
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (String[] row : rows) {
+            double value = get(row, 1 + c);
+            if (distinct.size() <= QUERY_BINS && !distinct.contains(value)) {
+                distinct.add(value);
+            }
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        if (distinct.size() <= QUERY_BINS) {
+            Collections.sort(distinct);
+            double[] edges = new double[distinct.size() + 1];
+            for (int i=0; i<distinct.size(); i++) {
+                edges[i] = distinct.get(i);
+            }
+            edges[distinct.size()] = Double.POSITIVE_INFINITY;
+            return edges;
+        }
+        double[] edges = new double[QUERY_BINS + 1];
+        for (int i=0; i<=QUERY_BINS; i++) {
+            edges[i] = min + (max - min) * i / QUERY_BINS;
+        }
+        return edges;
+    }
+
+    /**
+     * Return the bin a value falls in; the greatest value falls in the
+     * last.
+     */
+    private static int bin(double[] edges, double value) {
+        int b = 0;
+        while (b < edges.length - 2 && value >= edges[b + 1]) {
+            b++;
+        }
+        return b;
+    }
+
+    private static String binName(double[] edges, int b) {
+        if (edges[edges.length - 1] == Double.POSITIVE_INFINITY) {
+            return String.format("%.4g", edges[b]);
+        }
+        return String.format("%.4g-%.4g", edges[b], edges[b + 1]);
+    }
+
+    private static double get(String[] row, int column) {
+        return Double.parseDouble(row[column]);
+    }
+}
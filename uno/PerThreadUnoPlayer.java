@@ -0,0 +1,98 @@
+package uno;
+
+import java.util.List;
+
+/**
+ * <p>An adapter that lets an UnoPlayer written against the original
+ * two-call contract (play() followed by callColor(hand), with state kept
+ * in between, and often across a whole game) be shared between concurrent
+ * games. Every Game seated with one plays a fresh instance of the wrapped
+ * class, made when the hands are dealt (see forGame()), just as when each
+ * game instantiated its players by class name: nothing a player remembers
+ * carries over from one game to the next, and the engine sees the
+ * instance itself, with every interface it implements (DrawnCardPlayer,
+ * UnoPlayerV2).</p>
+ *
+ * <p>Called directly, outside a Game (as StrategyEvaluator and
+ * TestCaseProcessor call players on single positions), the adapter plays
+ * an instance of its own for each thread. A player's play() and
+ * callColor() for a given position happen on the same thread, one right
+ * after the other, so that instance sees the call sequence it
+ * expects.</p>
+ * @since 2.0
+ */
+public class PerThreadUnoPlayer implements StatelessUnoPlayer {
+
+    private String unoPlayerClassName;
+    private ThreadLocal<UnoPlayer> players;
+
+    /**
+     * Instantiate an adapter for the UnoPlayer class passed.
+     * @param unoPlayerClassName The fully-qualified name of a class that
+     * implements UnoPlayer and has a public no-argument constructor, or a
+     * class spec with parameters (see Roster).
+     */
+    public PerThreadUnoPlayer(String unoPlayerClassName) {
+        this.unoPlayerClassName = unoPlayerClassName;
+        players = new ThreadLocal<UnoPlayer>() {
+            protected UnoPlayer initialValue() {
+                return newPlayer(PerThreadUnoPlayer.this.unoPlayerClassName);
+            }
+        };
+    }
+
+    /**
+     * Return an UnoPlayer for the class passed that may be shared between
+     * any number of concurrent games. Stateless players are instantiated
+     * once and returned as-is; all others are wrapped in a
+     * PerThreadUnoPlayer.
+     */
+    public static UnoPlayer forClass(String unoPlayerClassName) {
+        UnoPlayer player = newPlayer(unoPlayerClassName);
+        if (player instanceof StatelessUnoPlayer) {
+            return player;
+        }
+        return new PerThreadUnoPlayer(unoPlayerClassName);
+    }
+
+    /**
+     * Return the player to seat in a new game for the player passed: a
+     * fresh instance of the wrapped class if it is a PerThreadUnoPlayer,
+     * and the player itself otherwise.
+     */
+    static UnoPlayer forGame(UnoPlayer player) {
+        if (player instanceof PerThreadUnoPlayer) {
+            return newPlayer(((PerThreadUnoPlayer) player).unoPlayerClassName);
+        }
+        return player;
+    }
+
+    /**
+     * Instantiate a fresh UnoPlayer of the class passed, exiting with a
+     * message (as Hand does) if that can't be done.
+     */
+    static UnoPlayer newPlayer(String unoPlayerClassName) {
+        try {
+            return (UnoPlayer) Roster.newStrategy(unoPlayerClassName);
+        }
+        catch (Exception e) {
+            System.out.println("Problem with " + unoPlayerClassName + ".");
+            e.printStackTrace();
+            System.exit(1);
+            return null;
+        }
+    }
+
+    public int play(List<Card> hand, Card upCard, Color calledColor,
+        GameState state) {
+        return players.get().play(hand, upCard, calledColor, state);
+    }
+
+    public Color callColor(List<Card> hand) {
+        return players.get().callColor(hand);
+    }
+
+    public Color callColor(List<Card> hand, GameState state) {
+        return players.get().callColor(hand, state);
+    }
+}
@@ -0,0 +1,413 @@
+package uno;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>Scores decisions for a whole population of as_UnoPlayer parameter
+ * vectors at once, to screen thousands of candidate vectors against a
+ * decision corpus (see TestCaseCorpus) in the time one simulation takes.
+ * as_UnoPlayer scores each legal card as a sum of terms, each a
+ * coefficient times a feature of the position; the features don't depend
+ * on the coefficients, so the kernel extracts them once per decision (a
+ * Decision) and then scores every card for every vector in loops that run
+ * over the population innermost, with the population stored
+ * column-by-column. Those loops are plain arithmetic over arrays, which
+ * the JIT compiles to vector instructions where it can.</p>
+ *
+ * <p>The terms are added in the same order as as_UnoPlayer adds them, so
+ * a vector's choice is exactly the one an as_UnoPlayer with those values
+ * would make: the same card, and after a wild the same color.</p>
+ * @since 2.0
+ */
+public class PopulationKernel {
+
+    /**
+     * The number of values in a parameter vector, in the order of
+     * unotraining.as_UnoPlayer.getValues().
+     */
+    public static final int NUM_VALUES = values_UnoPlayer.NUM_VALUES;
+
+    /**
+     * Roughly how many pieces the corpus is split into per thread.
+     */
+    static final int TASKS_PER_THREAD = 4;
+
+    /**
+     * The features of one decision that as_UnoPlayer's scores depend on,
+     * for each legal card and for the position as a whole.
+     */
+    public static class Decision {
+        int numLegal;
+        int[] handIndex = new int[TestCaseCorpus.MAX_HAND_SIZE];
+        boolean[] isNumber = new boolean[TestCaseCorpus.MAX_HAND_SIZE];
+        double[] numberValue = new double[TestCaseCorpus.MAX_HAND_SIZE];
+        boolean[] isColored = new boolean[TestCaseCorpus.MAX_HAND_SIZE];
+        double[] colorRatio = new double[TestCaseCorpus.MAX_HAND_SIZE];
+        boolean[] isMostHeld = new boolean[TestCaseCorpus.MAX_HAND_SIZE];
+        boolean[] isDisliked = new boolean[TestCaseCorpus.MAX_HAND_SIZE];
+        int[] offense = new int[TestCaseCorpus.MAX_HAND_SIZE];
+        boolean[] isWild = new boolean[TestCaseCorpus.MAX_HAND_SIZE];
+        int minCards;
+        double minRatio;
+        int nextCards;
+        double nextRatio;
+        double[] heldRatioAfterWild = new double[4];
+        int[] timesCalled = new int[4];
+
+        /**
+         * Extract the features of a decision: the player holding this hand
+         * must play on this up card.
+         * @param hand Card ids.
+         * @param calledColor The ordinal of the called Color.
+         */
+        public void extract(int[] hand, int handSize, int upCard,
+            int calledColor, GameState state) {
+            int[] colors = new int[4];
+            for (int i=0; i<handSize; i++) {
+                if (hand[i] < Card.WILD_ID) {
+                    colors[hand[i] / 13]++;
+                }
+            }
+            int maxColor = 0;
+            for (int c=1; c<4; c++) {
+                if (colors[c] > colors[maxColor]) {
+                    maxColor = c;
+                }
+            }
+            int[] cardsInHands = state.getNumCardsInHandsOfUpcomingPlayers();
+            int minIndex = 0;
+            for (int i=1; i<cardsInHands.length; i++) {
+                if (cardsInHands[i] < cardsInHands[minIndex]) {
+                    minIndex = i;
+                }
+            }
+            UnoPlayer.Color[] called =
+                state.getMostRecentColorCalledByUpcomingPlayers();
+            minCards = cardsInHands[minIndex];
+            minRatio = minCards / (double) handSize;
+            nextCards = cardsInHands[0];
+            nextRatio = nextCards / (double) handSize;
+            int disliked = called[minIndex] == null ? -1 :
+                called[minIndex].ordinal();
+
+            numLegal = 0;
+            for (int i=0; i<handSize; i++) {
+                int card = hand[i];
+                if (!GameSnapshot.canPlay(card, upCard, calledColor)) {
+                    continue;
+                }
+                int n = numLegal++;
+                int color = card >= Card.WILD_ID ? -1 : card / 13;
+                int face = card >= Card.WILD_ID ? card : card % 13;
+                handIndex[n] = i;
+                isNumber[n] = face <= 9;
+                numberValue[n] = face / 9.0;
+                isColored[n] = color >= 0;
+                colorRatio[n] = color < 0 ? 0 :
+                    colors[color] / (double) handSize;
+                isMostHeld[n] = color == maxColor;
+                isDisliked[n] = color >= 0 && color != disliked;
+                offense[n] = face == 11 ? 6 : face == 10 ? 7 : face == 12 ?
+                    8 : face == Card.WILD_D4_ID ? 9 : -1;
+                isWild[n] = color < 0;
+            }
+            for (int c=0; c<4; c++) {
+                heldRatioAfterWild[c] = colors[c] / (double) (handSize - 1);
+                timesCalled[c] = 0;
+            }
+            for (UnoPlayer.Color color : called) {
+                if (color != null) {
+                    timesCalled[color.ordinal()]++;
+                }
+            }
+        }
+
+        /**
+         * Return the number of legal cards.
+         */
+        public int getNumLegal() {
+            return numLegal;
+        }
+    }
+
+    private int size;
+    private double[][] columns;
+    private double[] best;
+    private double[] colorPoints;
+
+    /**
+     * Instantiate a kernel for a population of parameter vectors.
+     * @param population One vector of NUM_VALUES values per member.
+     */
+    public PopulationKernel(double[][] population) {
+        size = population.length;
+        columns = new double[NUM_VALUES][size];
+        for (int p=0; p<size; p++) {
+            for (int v=0; v<NUM_VALUES; v++) {
+                columns[v][p] = population[p][v];
+            }
+        }
+        best = new double[size];
+        colorPoints = new double[4 * size];
+    }
+
+    /**
+     * Return the number of vectors in the population.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Make a decision for every vector in the population.
+     * @param choices Receives, for each vector, the hand index of the card
+     * it plays, or -1 if it can't play.
+     * @param colors Receives, for each vector whose card is a wild, the
+     * ordinal of the color it calls, and otherwise -1.
+     */
+    public void choose(Decision d, int[] choices, int[] colors) {
+        double[] baseNumberPoints = columns[0];
+        double[] numberValueCoefficient = columns[1];
+        double[] mostHeldColorPoints = columns[2];
+        double[] colorRatioCoefficient = columns[3];
+        double[] significantLeadRatio = columns[4];
+        double[] dislikedColorPoints = columns[5];
+        java.util.Arrays.fill(best, 0, size, -1);
+        java.util.Arrays.fill(choices, 0, size, -1);
+        boolean nearlyOut = d.minCards < 4;
+        boolean nextNearlyOut = d.nextCards < 4;
+        for (int n=0; n<d.numLegal; n++) {
+            int index = d.handIndex[n];
+            boolean isNumber = d.isNumber[n];
+            double numberValue = d.numberValue[n];
+            boolean isColored = d.isColored[n];
+            double colorRatio = d.colorRatio[n];
+            boolean isMostHeld = d.isMostHeld[n];
+            boolean isDisliked = d.isDisliked[n];
+            double[] offensePoints = d.offense[n] < 0 ? null :
+                columns[d.offense[n]];
+            for (int p=0; p<size; p++) {
+                double points = 0;
+                if (isNumber) {
+                    points += baseNumberPoints[p] +
+                        (numberValueCoefficient[p] * numberValue);
+                }
+                if (isColored) {
+                    points += colorRatioCoefficient[p] * colorRatio;
+                }
+                if (isMostHeld) {
+                    points += mostHeldColorPoints[p];
+                }
+                if ((nearlyOut || d.minRatio < significantLeadRatio[p]) &&
+                    isDisliked) {
+                    points += dislikedColorPoints[p];
+                }
+                if (offensePoints != null && (d.nextRatio <
+                    significantLeadRatio[p] || nextNearlyOut)) {
+                    points += offensePoints[p];
+                }
+                if (points > best[p]) {
+                    best[p] = points;
+                    choices[p] = index;
+                }
+            }
+        }
+        chooseColors(d, choices, colors);
+    }
+
+    private void chooseColors(Decision d, int[] choices, int[] colors) {
+        double[] heldColorCoefficient = columns[10];
+        double[] calledColorPoints = columns[11];
+        boolean anyWild = false;
+        for (int n=0; n<d.numLegal; n++) {
+            anyWild |= d.isWild[n];
+        }
+        java.util.Arrays.fill(colors, 0, size, -1);
+        if (!anyWild) {
+            return;
+        }
+        for (int c=0; c<4; c++) {
+            double ratio = d.heldRatioAfterWild[c];
+            for (int p=0; p<size; p++) {
+                double points = heldColorCoefficient[p] * ratio;
+                for (int t=0; t<d.timesCalled[c]; t++) {
+                    points -= calledColorPoints[p];
+                }
+                colorPoints[c * size + p] = points;
+            }
+        }
+        for (int n=0; n<d.numLegal; n++) {
+            if (!d.isWild[n]) {
+                continue;
+            }
+            int index = d.handIndex[n];
+            for (int p=0; p<size; p++) {
+                if (choices[p] != index) {
+                    continue;
+                }
+                int highest = 0;
+                for (int c=1; c<4; c++) {
+                    if (colorPoints[c * size + p] >
+                        colorPoints[highest * size + p]) {
+                        highest = c;
+                    }
+                }
+                colors[p] = highest;
+            }
+        }
+    }
+
+    /**
+     * Count, for each vector, the decisions in the corpus on which it
+     * agrees with a reference vector: the same card and, after a wild, the
+     * same color. The corpus is spread across one thread per processor.
+     */
+    public long[] countAgreements(final TestCaseCorpus corpus,
+        final double[] reference) throws Exception {
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        int numChunks = corpus.getNumChunks();
+        int chunksPerTask = Math.max(1,
+            numChunks / (numThreads * TASKS_PER_THREAD));
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        ArrayList<Future<long[]>> tasks = new ArrayList<Future<long[]>>();
+        for (int first=0; first<numChunks; ) {
+            final int firstChunk = first;
+            final int lastChunk = corpus.getRangeEnd(first, chunksPerTask);
+            first = lastChunk;
+            tasks.add(executor.submit(new Callable<long[]>() {
+                public long[] call() throws Exception {
+                    return copy().countAgreements(corpus, reference,
+                        firstChunk, lastChunk);
+                }
+            }));
+        }
+        long[] agreements = new long[size];
+        try {
+            for (Future<long[]> task : tasks) {
+                long[] counts = task.get();
+                for (int p=0; p<size; p++) {
+                    agreements[p] += counts[p];
+                }
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        return agreements;
+    }
+
+    /**
+     * Return a kernel for the same population with scratch space of its
+     * own, for another thread.
+     */
+    private PopulationKernel copy() {
+        PopulationKernel copy = new PopulationKernel(new double[0][]);
+        copy.size = size;
+        copy.columns = columns;
+        copy.best = new double[size];
+        copy.colorPoints = new double[4 * size];
+        return copy;
+    }
+
+    private long[] countAgreements(TestCaseCorpus corpus, double[] reference,
+        int firstChunk, int lastChunk) throws IOException {
+        ByteBuffer buf = corpus.map(firstChunk, lastChunk);
+        long numRecords = corpus.getNumRecords(firstChunk, lastChunk);
+        TestCaseCorpus.Record r = new TestCaseCorpus.Record(corpus.hasStates());
+        PopulationKernel referenceKernel =
+            new PopulationKernel(new double[][] { reference });
+        Decision d = new Decision();
+        int[] choices = new int[size];
+        int[] colors = new int[size];
+        int[] referenceChoice = new int[1];
+        int[] referenceColor = new int[1];
+        long[] agreements = new long[size];
+        for (long i=0; i<numRecords; i++) {
+            r.read(buf);
+            d.extract(r.hand, r.handSize, r.upCard, r.calledColor,
+                r.getGameState());
+            referenceKernel.choose(d, referenceChoice, referenceColor);
+            choose(d, choices, colors);
+            for (int p=0; p<size; p++) {
+                if (choices[p] == referenceChoice[0] &&
+                    colors[p] == referenceColor[0]) {
+                    agreements[p]++;
+                }
+            }
+        }
+        return agreements;
+    }
+
+    /**
+     * Screen a population of parameter vectors against a corpus. Usage:
+     * <pre>
+     * PopulationKernel corpusFile populationFile [referenceFile]
+     * </pre>
+     * populationFile is a values file in any of the layouts of values/
+     * (see ValuesFile); the reference is the first vector of
+     * referenceFile, or as_UnoPlayer's own values. Prints each
+     * vector's agreement with the reference, most agreeing first.
+     */
+    public static void main(String args[]) {
+        if (args.length < 2  ||  args.length > 3) {
+            System.out.println("Usage: PopulationKernel corpusFile populationFile [referenceFile]");
+            System.exit(1);
+        }
+        try {
+            TestCaseCorpus corpus = new TestCaseCorpus(new File(args[0]));
+            double[][] population = readValues(args[1]);
+            double[] reference = args.length > 2 ? readValues(args[2])[0] :
+                values_UnoPlayer.getBaseline();
+            PopulationKernel kernel = new PopulationKernel(population);
+            long startTime = System.nanoTime();
+            long[] agreements = kernel.countAgreements(corpus, reference);
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            Integer[] order = new Integer[population.length];
+            for (int p=0; p<order.length; p++) {
+                order[p] = p;
+            }
+            final long[] counts = agreements;
+            java.util.Arrays.sort(order, new java.util.Comparator<Integer>() {
+                public int compare(Integer a, Integer b) {
+                    return Long.compare(counts[b], counts[a]);
+                }
+            });
+            long numRecords = corpus.getNumRecords();
+            for (int p : order) {
+                StringBuilder values = new StringBuilder();
+                for (int v=0; v<NUM_VALUES; v++) {
+                    values.append(v == 0 ? "" : ",").append(population[p][v]);
+                }
+                System.out.println(String.format("%8.4f%%  %s",
+                    100.0 * agreements[p] / numRecords, values));
+            }
+            System.out.println(String.format(
+                "%d vectors x %d decisions in %.2f seconds " +
+                "(%.0f vector-decisions/sec).", population.length,
+                numRecords, seconds, population.length * numRecords / seconds));
+            corpus.close();
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Read every parameter vector of a values file.
+     */
+    static double[][] readValues(String filename) throws IOException {
+        ValuesFile file = new ValuesFile(filename);
+        double[][] vectors = new double[file.size()][];
+        for (int i=0; i<vectors.length; i++) {
+            vectors[i] = file.getValues(i);
+        }
+        return vectors;
+    }
+}
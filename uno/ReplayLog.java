@@ -0,0 +1,478 @@
+package uno;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * <p>A compact log of played games from which any game can be replayed,
+ * turn by turn, after the fact. Rather than a trace of everything that
+ * happened, each game is stored as just its seed, its seating and the
+ * stream of decisions its players made (which card each play() returned,
+ * and each color called). Re-dealing the game from its seed and feeding
+ * those decisions back in reproduces it exactly, so a game costs a few
+ * dozen bytes.</p>
+ *
+ * <p>The file starts with a header:</p>
+ * <pre>
+ *   int   MAGIC
+ *   int   VERSION
+ *   long  base seed (game i is dealt with base seed + i + its seed delta)
+ *   UTF   the rules the games were played by (as RuleSet.toString())
+ *   int   number of players in the roster, then for each, its name and
+ *         UnoPlayer class (as written by DataOutputStream.writeUTF)
+ * </pre>
+ * <p>followed by the games, in game id order, each as a varint length and
+ * then a body of varints: the zigzag-encoded seed delta, the number of
+ * seats, the roster index of each seat's player, and then the decisions.
+ * A play decision is the index returned by play() plus one (so 0 means
+ * "draw"); a wild is followed by the ordinal of the color called. Last
+ * comes an index of the file offset of every INDEX_STRIDE'th game, then
+ * the number of games and the offset of the index.</p>
+ * @since 2.0
+ */
+public class ReplayLog {
+
+    public static final int MAGIC = 0x554E4F52; // "UNOR"
+    public static final int VERSION = 2;
+
+    /**
+     * Every how many games the file offset of a game goes in the index.
+     */
+    public static final int INDEX_STRIDE = 1024;
+
+    public static final String PLAYER_FILENAME = "players.txt";
+
+    /**
+     * A growable buffer of varints.
+     */
+    static class VarintBuffer {
+        byte[] bytes = new byte[64];
+        int size = 0;
+
+        void write(long value) {
+            while (true) {
+                if (size == bytes.length) {
+                    bytes = java.util.Arrays.copyOf(bytes, size * 2);
+                }
+                if ((value & ~0x7FL) == 0) {
+                    bytes[size++] = (byte) value;
+                    return;
+                }
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+        }
+    }
+
+    /**
+     * <p>Writes games to a replay log. Games may be finished in any order
+     * by any number of threads; they are held back until every game before
+     * them has been written, so the file is always in game id order.</p>
+     */
+    public static class Recorder implements java.io.Closeable {
+
+        private DataOutputStream out;
+        private RandomAccessFile header;
+        private long baseSeed;
+        private RuleSet rules;
+        private long position;
+        private long nextGameId = 0;
+        private TreeMap<Long, VarintBuffer> waiting =
+            new TreeMap<Long, VarintBuffer>();
+        private ArrayList<Long> index = new ArrayList<Long>();
+
+        /**
+         * Start a new replay log.
+         * @param names The names of the players games may seat.
+         * @param classes The UnoPlayer class of each of those players.
+         * @param baseSeed Game i will be dealt with baseSeed + i.
+         * @param rules The rules the games will be played by.
+         */
+        public Recorder(File file, String[] names, String[] classes,
+            long baseSeed, RuleSet rules) throws IOException {
+            this.baseSeed = baseSeed;
+            this.rules = rules;
+            out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(baseSeed);
+            out.writeUTF(rules.toString());
+            out.writeInt(names.length);
+            for (int i=0; i<names.length; i++) {
+                out.writeUTF(names[i]);
+                out.writeUTF(classes[i]);
+            }
+            position = out.size();
+        }
+
+        /**
+         * Return the seed game 0 is dealt with.
+         */
+        public long getBaseSeed() {
+            return baseSeed;
+        }
+
+        /**
+         * Return the rules the games are played by.
+         */
+        public RuleSet getRules() {
+            return rules;
+        }
+
+        /**
+         * Begin recording a game. Play the game with the players returned
+         * by getPlayers() on the Recording, dealt with baseSeed + gameId,
+         * then call finish().
+         * @param gameId The game's number; every number from 0 up must
+         * eventually be recorded exactly once.
+         * @param roster The roster index of each seat's player.
+         * @param players The UnoPlayer for each seat.
+         */
+        public Recording startGame(long gameId, int[] roster,
+            UnoPlayer[] players) {
+            return new Recording(this, gameId, roster, players);
+        }
+
+        synchronized void finishGame(long gameId, VarintBuffer game)
+            throws IOException {
+            waiting.put(gameId, game);
+            while (!waiting.isEmpty() && waiting.firstKey() == nextGameId) {
+                VarintBuffer next = waiting.remove(nextGameId);
+                if (nextGameId % INDEX_STRIDE == 0) {
+                    index.add(position);
+                }
+                VarintBuffer length = new VarintBuffer();
+                length.write(next.size);
+                out.write(length.bytes, 0, length.size);
+                out.write(next.bytes, 0, next.size);
+                position += length.size + next.size;
+                nextGameId++;
+            }
+        }
+
+        /**
+         * Write the index and close the file.
+         */
+        public synchronized void close() throws IOException {
+            if (!waiting.isEmpty()) {
+                throw new IOException("Game " + nextGameId +
+                    " was never recorded.");
+            }
+            for (long offset : index) {
+                out.writeLong(offset);
+            }
+            out.writeLong(nextGameId);
+            out.writeLong(position);
+            out.close();
+        }
+    }
+
+    /**
+     * The decisions of a single game being recorded.
+     */
+    public static class Recording {
+
+        private Recorder recorder;
+        private long gameId;
+        private VarintBuffer decisions = new VarintBuffer();
+        private UnoPlayer[] players;
+
+        Recording(Recorder recorder, long gameId, int[] roster,
+            UnoPlayer[] seatPlayers) {
+            this.recorder = recorder;
+            this.gameId = gameId;
+            decisions.write(0); // seed delta
+            decisions.write(roster.length);
+            for (int r : roster) {
+                decisions.write(r);
+            }
+            players = new UnoPlayer[seatPlayers.length];
+            for (int i=0; i<players.length; i++) {
+                final UnoPlayer player =
+                    PerThreadUnoPlayer.forGame(seatPlayers[i]);
+                players[i] = new StatelessUnoPlayer() {
+                    public int play(List<Card> hand, Card upCard,
+                        Color calledColor, GameState state) {
+                        int played = player.play(hand, upCard, calledColor,
+                            state);
+                        decisions.write(played + 1);
+                        return played;
+                    }
+                    public Color callColor(List<Card> hand) {
+                        return callColor(hand, new GameState());
+                    }
+                    public Color callColor(List<Card> hand,
+                        GameState state) {
+                        Color called = player.callColor(hand, state);
+                        decisions.write(called.ordinal());
+                        return called;
+                    }
+                };
+            }
+        }
+
+        /**
+         * Return the players to seat in the recorded game.
+         */
+        public UnoPlayer[] getPlayers() {
+            return players;
+        }
+
+        /**
+         * Hand the finished game to the recorder.
+         */
+        public void finish() throws IOException {
+            recorder.finishGame(gameId, decisions);
+        }
+    }
+
+    /**
+     * A player that makes the decisions read back from a log, whichever
+     * seat it is in.
+     */
+    private static class ReplayPlayer implements UnoPlayer {
+
+        private byte[] body;
+        private int[] cursor;
+
+        ReplayPlayer(byte[] body, int[] cursor) {
+            this.body = body;
+            this.cursor = cursor;
+        }
+
+        public int play(List<Card> hand, Card upCard, Color calledColor,
+            GameState state) {
+            return (int) readVarint(body, cursor) - 1;
+        }
+
+        public Color callColor(List<Card> hand) {
+            return Color.values()[(int) readVarint(body, cursor)];
+        }
+    }
+
+    private RandomAccessFile raf;
+    private long baseSeed;
+    private RuleSet rules;
+    private String[] playerNames;
+    private String[] playerClasses;
+    private long numGames;
+    private long[] index;
+
+    /**
+     * Open a replay log for reading.
+     */
+    public ReplayLog(File file) throws IOException {
+        raf = new RandomAccessFile(file, "r");
+        if (raf.readInt() != MAGIC || raf.readInt() != VERSION) {
+            raf.close();
+            throw new IOException(file + " is not a replay log.");
+        }
+        baseSeed = raf.readLong();
+        rules = RuleSet.parse(raf.readUTF());
+        playerNames = new String[raf.readInt()];
+        playerClasses = new String[playerNames.length];
+        for (int i=0; i<playerNames.length; i++) {
+            playerNames[i] = raf.readUTF();
+            playerClasses[i] = raf.readUTF();
+        }
+        raf.seek(raf.length() - 16);
+        numGames = raf.readLong();
+        long indexOffset = raf.readLong();
+        index = new long[(int) ((numGames + INDEX_STRIDE - 1) / INDEX_STRIDE)];
+        raf.seek(indexOffset);
+        for (int i=0; i<index.length; i++) {
+            index[i] = raf.readLong();
+        }
+    }
+
+    /**
+     * Return the number of games in the log.
+     */
+    public long getNumGames() {
+        return numGames;
+    }
+
+    /**
+     * Return the rules the logged games were played by.
+     */
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    /**
+     * Return the names of the players in the log's roster.
+     */
+    public String[] getPlayerNames() {
+        return playerNames;
+    }
+
+    /**
+     * Re-deal a logged game and play it forward a number of turns.
+     * @param gameId The number of the game.
+     * @param turns The number of turns to play; if the game ends sooner, it
+     * is returned finished.
+     * @return The game, with its state as it was after that many turns.
+     */
+    public synchronized Game replay(long gameId, int turns)
+        throws IOException {
+        byte[] body = readGame(gameId);
+        int[] cursor = { 0 };
+        long seed = baseSeed + gameId + unzigzag(readVarint(body, cursor));
+        int numSeats = (int) readVarint(body, cursor);
+        String[] names = new String[numSeats];
+        UnoPlayer[] players = new UnoPlayer[numSeats];
+        ReplayPlayer replayer = new ReplayPlayer(body, cursor);
+        for (int i=0; i<numSeats; i++) {
+            names[i] = playerNames[(int) readVarint(body, cursor)];
+            players[i] = replayer;
+        }
+        Game game = new Game(new Scoreboard(names), players, seed, rules);
+        try {
+            for (int t=0; t<turns; t++) {
+                if (game.playTurn() != Game.TURN_PLAYED) {
+                    break;
+                }
+            }
+        }
+        catch (EmptyDeckException e) {
+            // The game was a draw; return it as it stood.
+        }
+        return game;
+    }
+
+    private byte[] readGame(long gameId) throws IOException {
+        if (gameId < 0 || gameId >= numGames) {
+            throw new IllegalArgumentException("No game " + gameId + ".");
+        }
+        raf.seek(index[(int) (gameId / INDEX_STRIDE)]);
+        for (long g=gameId - gameId % INDEX_STRIDE; g<gameId; g++) {
+            raf.skipBytes((int) readVarint(raf));
+        }
+        byte[] body = new byte[(int) readVarint(raf)];
+        raf.readFully(body);
+        return body;
+    }
+
+    /**
+     * Close the log.
+     */
+    public void close() throws IOException {
+        raf.close();
+    }
+
+    static long readVarint(byte[] bytes, int[] cursor) {
+        long value = 0;
+        for (int shift=0; ; shift+=7) {
+            byte b = bytes[cursor[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static long readVarint(RandomAccessFile in) throws IOException {
+        long value = 0;
+        for (int shift=0; ; shift+=7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static long unzigzag(long n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    /**
+     * Record or inspect replay logs. Usage:
+     * <pre>
+     * ReplayLog record numberOfGames logFile [seed]
+     * ReplayLog show logFile gameId [turn]
+     * </pre>
+     * "record" plays a match between the players in players.txt (as
+     * UnoSimulation would, by the rules of the uno.rules property) and logs
+     * every game. "show" replays a game, by the rules it was recorded
+     * under, and prints every turn of it, or only the state after the
+     * given turn.
+     */
+    public static void main(String args[]) {
+        try {
+            if (args.length >= 3  &&  args[0].equals("record")) {
+                record(Integer.parseInt(args[1]), new File(args[2]),
+                    args.length > 3 ? Long.parseLong(args[3]) : 0);
+            }
+            else if (args.length >= 3  &&  args[0].equals("show")) {
+                ReplayLog log = new ReplayLog(new File(args[1]));
+                long gameId = Long.parseLong(args[2]);
+                if (args.length > 3) {
+                    show(log.replay(gameId, Integer.parseInt(args[3])));
+                }
+                else {
+                    for (int t=0; ; t++) {
+                        Game game = log.replay(gameId, t);
+                        if (game.turnsPlayed < t) {
+                            break;
+                        }
+                        show(game);
+                    }
+                }
+                log.close();
+            }
+            else {
+                System.out.println("Usage: ReplayLog record numberOfGames logFile [seed]");
+                System.out.println("       ReplayLog show logFile gameId [turn]");
+                System.exit(1);
+            }
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void record(int numGames, File file, long seed)
+        throws Exception {
+        Roster roster = Roster.load(PLAYER_FILENAME);
+        ArrayList<String> playerNames = roster.getNames();
+        ArrayList<String> playerClasses = roster.getClasses();
+        String[] names = playerNames.toArray(new String[0]);
+        Recorder recorder = new Recorder(file, names,
+            playerClasses.toArray(new String[0]), seed,
+            RuleSet.getDefault());
+        SimulationPool pool = new SimulationPool(names, playerClasses,
+            numGames);
+        pool.setRecorder(recorder);
+        pool.start();
+        pool.await();
+        recorder.close();
+        System.out.println(pool.getScoreboard());
+        System.out.println(numGames + " games logged in " + file.length() +
+            " bytes.");
+    }
+
+    private static void show(Game game) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("After turn " + game.turnsPlayed + ": up card " +
+            game.upCard);
+        if (game.calledColor != UnoPlayer.Color.NONE) {
+            sb.append(" (" + game.calledColor + " called)");
+        }
+        sb.append(", " + game.direction + ", " +
+            game.h[game.currPlayer].getPlayerName() + " to play\n");
+        for (int i=0; i<game.h.length; i++) {
+            sb.append("  " + game.h[i].getPlayerName() + ": " + game.h[i] +
+                "\n");
+        }
+        System.out.print(sb);
+    }
+}
@@ -0,0 +1,175 @@
+package uno;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * <p>The players listed in a players file (players.txt), as the names and
+ * class specs every simulation seats them by. Each line holds a player
+ * name, a comma, and what the player plays:</p>
+ * <ul>
+ * <li><b>prefix</b>: the class uno.<i>prefix</i>_UnoPlayer, as ever.</li>
+ * <li><b>prefix:v1,v2,...</b>: that class, instantiated with the numbers
+ * written inline (for values_UnoPlayer, its twelve values in the order of
+ * values_UnoPlayer.NAMES).</li>
+ * <li><b>prefix:file#row</b>: that class, instantiated with the values of
+ * one row of a values file (see ValuesFile): the row with that label
+ * (a generation in best.csv, a name in players.csv, or a row number in a
+ * file without labels), "best" for the fittest row or "last" for the last
+ * one.</li>
+ * <li><b>prefix:file</b>: one player for every row of the values file,
+ * named for the row (<i>name</i>#<i>label</i>), so that a whole training
+ * history can be evaluated at once.</li>
+ * </ul>
+ * <p>For example:</p>
+ * <pre>
+ * Baseline,as
+ * Tuned,values:values/best.csv#best
+ * Points,values:values/players.csv#points
+ * Custom,values:1,1,1,4,0.5,1,5,5,6,10,3,1
+ * </pre>
+ *
+ * <p>A class spec is a fully-qualified class name, followed for a player
+ * with parameters by a colon and the numbers, written out in full; values
+ * files are read once, here, so that a spec (as a ReplayLog records it)
+ * still names the same player after the file changes.
+ * newStrategy() instantiates a spec.</p>
+ * @since 2.0
+ */
+public final class Roster {
+
+    private final ArrayList<String> names = new ArrayList<String>();
+    private final ArrayList<String> classes = new ArrayList<String>();
+
+    private Roster() {
+    }
+
+    /**
+     * Read the players file passed.
+     * @throws IOException If it, or a values file it names, can't be read,
+     * or a line can't be understood.
+     */
+    public static Roster load(String filename) throws IOException {
+        Roster roster = new Roster();
+        BufferedReader br = new BufferedReader(new FileReader(filename));
+        try {
+            String line = br.readLine();
+            for (int n=1; line != null; n++, line = br.readLine()) {
+                if (line.trim().length() == 0) {
+                    continue;
+                }
+                int comma = line.indexOf(',');
+                if (comma < 0) {
+                    throw new IOException(filename + ", line " + n +
+                        ": expected a name and a player, not \"" + line +
+                        "\".");
+                }
+                roster.add(line.substring(0, comma).trim(),
+                    line.substring(comma + 1).trim());
+            }
+        }
+        finally {
+            br.close();
+        }
+        return roster;
+    }
+
+    /**
+     * Return the players' names, in the order of the file.
+     */
+    public ArrayList<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Return the players' class specs, in the order of the file.
+     */
+    public ArrayList<String> getClasses() {
+        return classes;
+    }
+
+    /**
+     * Return the number of players.
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Return the class spec of a single player, written as in a players
+     * file (for players named on the command line).
+     * @throws IOException If a values file it names can't be read, or it
+     * names a whole file of players rather than one.
+     */
+    public static String getClassSpec(String player) throws IOException {
+        Roster roster = new Roster();
+        roster.add(player, player);
+        if (roster.size() != 1) {
+            throw new IOException("\"" + player + "\" names " +
+                roster.size() + " players; choose a row with #.");
+        }
+        return roster.classes.get(0);
+    }
+
+    /**
+     * Instantiate the strategy a class spec names: an UnoPlayer or an
+     * UnoPlayerV2, through its no-argument constructor or, if the spec has
+     * parameters, a constructor taking them as a String.
+     */
+    public static Object newStrategy(String classSpec)
+        throws ReflectiveOperationException {
+        int colon = classSpec.indexOf(':');
+        if (colon < 0) {
+            return Class.forName(classSpec).getDeclaredConstructor()
+                .newInstance();
+        }
+        return Class.forName(classSpec.substring(0, colon))
+            .getConstructor(String.class)
+            .newInstance(classSpec.substring(colon + 1));
+    }
+
+    /**
+     * Add the player, or players, one line of the file lists.
+     */
+    private void add(String name, String player) throws IOException {
+        int colon = player.indexOf(':');
+        if (colon < 0) {
+            names.add(name);
+            classes.add("uno." + player + "_UnoPlayer");
+            return;
+        }
+        String className = "uno." + player.substring(0, colon) +
+            "_UnoPlayer";
+        String source = player.substring(colon + 1);
+        try {
+            values_UnoPlayer.parseValues(source);
+            names.add(name);
+            classes.add(className + ":" + source.replace(" ", ""));
+            return;
+        }
+        catch (NumberFormatException e) {
+            // Not numbers, so a values file.
+        }
+        int hash = source.lastIndexOf('#');
+        ValuesFile file = new ValuesFile(hash < 0 ? source :
+            source.substring(0, hash));
+        if (hash < 0) {
+            for (int row=0; row<file.size(); row++) {
+                names.add(name + "#" + file.getLabel(row));
+                classes.add(className + ":" +
+                    values_UnoPlayer.formatValues(file.getValues(row)));
+            }
+            return;
+        }
+        int row = file.find(source.substring(hash + 1));
+        if (row < 0) {
+            throw new IOException(file + " has no row \"" +
+                source.substring(hash + 1) + "\".");
+        }
+        names.add(name);
+        classes.add(className + ":" +
+            values_UnoPlayer.formatValues(file.getValues(row)));
+    }
+}
@@ -0,0 +1,356 @@
+package uno;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>The rules a Game is played by: the official rules, or the official
+ * rules with any of the house rules people actually play with. A RuleSet
+ * turns its rules into tables, built once, of what each card may be
+ * played on and what each card does when it is played, and Game looks
+ * its decisions up in those tables rather than asking each card.</p>
+ *
+ * <p>The house rules are:</p>
+ * <ul>
+ * <li><b>stacking</b>: a player facing a Draw Two may pass it on by
+ * playing another Draw Two, and a player facing a Wild Draw Four another
+ * Wild Draw Four; the first player who doesn't draws the whole stack and
+ * loses their turn. A player is only asked to stack if they hold a card
+ * that can, and one who answers with any other card takes the draw
+ * instead (and keeps the card), so players written for the official
+ * rules still play legally.</li>
+ * <li><b>seven-zero</b>: whoever plays a 7 swaps hands with the opponent
+ * holding the fewest cards (the first in turn order, on a tie), and
+ * whoever plays a 0 makes every player pass their hand on in the
+ * direction of play.</li>
+ * <li><b>jump-in</b>: after each play, the first other player in turn
+ * order holding a card identical to the new up card (never a wild)
+ * plays it out of turn, and play goes on from them. UnoPlayer has no way
+ * to decline, so a player who can jump in always does.</li>
+ * <li><b>draw-until-playable</b>: a player who can't play keeps drawing
+ * until they draw a card they can play, rather than drawing once.</li>
+ * </ul>
+ *
+ * <p>A RuleSet is written as a comma-separated list of the names above,
+ * or "official" for none of them (see parse() and toString()). Games
+ * built without one play by the rules named in the uno.rules system
+ * property, or the official rules if it isn't set. GameSnapshot,
+ * BatchSimulator and the players built on them model the official rules
+ * only.</p>
+ *
+ * <p>Strategies can be evaluated under the house rules (UnoSimulation,
+ * EvaluatePlayers, Tournament), and values_UnoPlayer's coefficients swept
+ * under them (ParameterSweep), but not trained under them: TrainValues
+ * runs on its own copy of the engine in the unotraining package, which
+ * plays the official rules only and refuses to start with uno.rules set
+ * to anything else.</p>
+ * @since 2.0
+ */
+public final class RuleSet {
+
+    /**
+     * The number of different called colors a position can have: the
+     * four colors, and Color.NONE.
+     */
+    private static final int NUM_CALLED = UnoPlayer.Color.values().length;
+
+    /**
+     * The names of the house rules, in the order of the constructor's
+     * parameters.
+     */
+    private static final String[] NAMES = { "stacking", "seven-zero",
+        "jump-in", "draw-until-playable" };
+
+    /**
+     * The official rules, with no house rules.
+     */
+    public static final RuleSet OFFICIAL =
+        new RuleSet(false, false, false, false);
+
+    /**
+     * The effects of seven-zero cards (see getSwap()).
+     */
+    public static final int NO_SWAP = 0;
+    public static final int SWAP_WITH_SMALLEST = 1;
+    public static final int ROTATE = 2;
+
+    private static RuleSet defaultRules;
+
+    private final boolean stacking;
+    private final boolean sevenZero;
+    private final boolean jumpIn;
+    private final boolean drawUntilPlayable;
+
+    /**
+     * For each up card and called color, a bit for each card id that may
+     * be played on it.
+     */
+    private final long[] playable = new long[Card.NUM_IDS * NUM_CALLED];
+
+    /**
+     * For each up card, a bit for each card id that may be stacked on it
+     * (all zero without stacking).
+     */
+    private final long[] stackable = new long[Card.NUM_IDS];
+
+    /**
+     * What each card does: how many cards the next player draws, whether
+     * it reverses the direction of play, how many players play moves on
+     * by afterwards, and which seven-zero effect it has.
+     */
+    private final int[] draws = new int[Card.NUM_IDS];
+    private final boolean[] reverses = new boolean[Card.NUM_IDS];
+    private final int[] advances = new int[Card.NUM_IDS];
+    private final int[] swaps = new int[Card.NUM_IDS];
+
+    /**
+     * The cards that may be jumped in with (none without jump-in).
+     */
+    private final long jumpable;
+
+    /**
+     * Build the tables for the official rules plus the house rules
+     * passed.
+     */
+    public RuleSet(boolean stacking, boolean sevenZero, boolean jumpIn,
+        boolean drawUntilPlayable) {
+        this.stacking = stacking;
+        this.sevenZero = sevenZero;
+        this.jumpIn = jumpIn;
+        this.drawUntilPlayable = drawUntilPlayable;
+        long colored = 0;
+        for (int up=0; up<Card.NUM_IDS; up++) {
+            for (int called=0; called<NUM_CALLED; called++) {
+                long mask = 0;
+                for (int id=0; id<Card.NUM_IDS; id++) {
+                    if (Card.forId(id).canPlayOn(Card.forId(up),
+                        UnoPlayer.Color.values()[called])) {
+                        mask |= 1L << id;
+                    }
+                }
+                playable[up * NUM_CALLED + called] = mask;
+            }
+            if (stacking && (Card.forId(up).getRank() ==
+                UnoPlayer.Rank.DRAW_TWO || up == Card.WILD_D4_ID)) {
+                for (int id=0; id<Card.NUM_IDS; id++) {
+                    if (Card.forId(id).getRank() ==
+                        Card.forId(up).getRank()) {
+                        stackable[up] |= 1L << id;
+                    }
+                }
+            }
+            if (up < Card.WILD_ID) {
+                colored |= 1L << up;
+            }
+        }
+        jumpable = jumpIn ? colored : 0;
+        for (int id=0; id<Card.NUM_IDS; id++) {
+            Card card = Card.forId(id);
+            switch (card.getRank()) {
+                case SKIP:
+                    advances[id] = 2;
+                    break;
+                case REVERSE:
+                    reverses[id] = true;
+                    advances[id] = 1;
+                    break;
+                case DRAW_TWO:
+                    draws[id] = 2;
+                    advances[id] = stacking ? 1 : 2;
+                    break;
+                case WILD_D4:
+                    draws[id] = 4;
+                    advances[id] = stacking ? 1 : 2;
+                    break;
+                default:
+                    advances[id] = 1;
+                    break;
+            }
+            if (sevenZero && card.getRank() == UnoPlayer.Rank.NUMBER) {
+                if (card.getNumber() == 7) {
+                    swaps[id] = SWAP_WITH_SMALLEST;
+                }
+                else if (card.getNumber() == 0) {
+                    swaps[id] = ROTATE;
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the RuleSet named by the string passed: "official", or a
+     * comma-separated list of house rules (see the class comment).
+     * @throws IllegalArgumentException If a name isn't a rule.
+     */
+    public static RuleSet parse(String rules) {
+        boolean[] on = new boolean[NAMES.length];
+        for (String name : rules.split(",")) {
+            name = name.trim();
+            if (name.equals("official") || name.length() == 0) {
+                continue;
+            }
+            int i = 0;
+            while (i < NAMES.length && !NAMES[i].equals(name)) {
+                i++;
+            }
+            if (i == NAMES.length) {
+                throw new IllegalArgumentException("Unknown rule \"" + name +
+                    "\"; the rules are official, stacking, seven-zero, " +
+                    "jump-in and draw-until-playable.");
+            }
+            on[i] = true;
+        }
+        return new RuleSet(on[0], on[1], on[2], on[3]);
+    }
+
+    /**
+     * Return the rules named by the uno.rules system property, or the
+     * official rules if it isn't set.
+     */
+    public static synchronized RuleSet getDefault() {
+        if (defaultRules == null) {
+            String rules = System.getProperty("uno.rules");
+            defaultRules = rules == null ? OFFICIAL : parse(rules);
+        }
+        return defaultRules;
+    }
+
+    /**
+     * Return true only if these are the official rules, with no house
+     * rules.
+     */
+    public boolean isOfficial() {
+        return !stacking && !sevenZero && !jumpIn && !drawUntilPlayable;
+    }
+
+    public boolean isStacking() {
+        return stacking;
+    }
+
+    public boolean isSevenZero() {
+        return sevenZero;
+    }
+
+    public boolean isJumpIn() {
+        return jumpIn;
+    }
+
+    public boolean isDrawUntilPlayable() {
+        return drawUntilPlayable;
+    }
+
+    /**
+     * Return true only if the card whose id is passed may be played on
+     * the up card, as Card.canPlayOn().
+     * @param calledColor The color called for a wild up card, or
+     * Color.NONE.
+     */
+    public boolean canPlay(int id, int upCard, UnoPlayer.Color calledColor) {
+        return (playable[upCard * NUM_CALLED + calledColor.ordinal()] >>>
+            id & 1) != 0;
+    }
+
+    /**
+     * Return true only if the card whose id is passed may be stacked on a
+     * draw card that is the up card.
+     */
+    public boolean canStack(int id, int upCard) {
+        return (stackable[upCard] >>> id & 1) != 0;
+    }
+
+    /**
+     * Return the ids that may be played on the up card passed, as a
+     * bitmask with the bit (1L &lt;&lt; id) set for each.
+     * @param calledColor The ordinal of the color called for a wild up
+     * card, or of Color.NONE.
+     */
+    public long getPlayable(int upCard, int calledColor) {
+        return playable[upCard * NUM_CALLED + calledColor];
+    }
+
+    /**
+     * Return the ids that may be stacked on the up card passed, as a
+     * bitmask (zero without stacking, or if the up card isn't a draw
+     * card).
+     */
+    public long getStackable(int upCard) {
+        return stackable[upCard];
+    }
+
+    /**
+     * Return true only if a player holding the card whose id is passed may
+     * jump in with it when the same card is turned up.
+     */
+    public boolean canJumpIn(int id) {
+        return (jumpable >>> id & 1) != 0;
+    }
+
+    /**
+     * Return how many cards playing the card whose id is passed makes the
+     * next player draw (or, with stacking, adds to the stack).
+     */
+    public int getDraws(int id) {
+        return draws[id];
+    }
+
+    /**
+     * Return true only if playing the card whose id is passed reverses
+     * the direction of play.
+     */
+    public boolean reverses(int id) {
+        return reverses[id];
+    }
+
+    /**
+     * Return how many times play moves on to the next player after the
+     * card whose id is passed is played: once normally, twice for a card
+     * that skips the next player.
+     */
+    public int getAdvances(int id) {
+        return advances[id];
+    }
+
+    /**
+     * Return the seven-zero effect of the card whose id is passed:
+     * NO_SWAP, SWAP_WITH_SMALLEST or ROTATE.
+     */
+    public int getSwap(int id) {
+        return swaps[id];
+    }
+
+    /**
+     * Return the name of this RuleSet, which parse() turns back into it.
+     */
+    public String toString() {
+        boolean[] on = { stacking, sevenZero, jumpIn, drawUntilPlayable };
+        List<String> names = new ArrayList<String>();
+        for (int i=0; i<NAMES.length; i++) {
+            if (on[i]) {
+                names.add(NAMES[i]);
+            }
+        }
+        if (names.isEmpty()) {
+            return "official";
+        }
+        String retval = names.get(0);
+        for (int i=1; i<names.size(); i++) {
+            retval += "," + names.get(i);
+        }
+        return retval;
+    }
+
+    public boolean equals(Object o) {
+        if (!(o instanceof RuleSet)) {
+            return false;
+        }
+        RuleSet other = (RuleSet) o;
+        return stacking == other.stacking && sevenZero == other.sevenZero &&
+            jumpIn == other.jumpIn &&
+            drawUntilPlayable == other.drawUntilPlayable;
+    }
+
+    public int hashCode() {
+        return (stacking ? 1 : 0) | (sevenZero ? 2 : 0) | (jumpIn ? 4 : 0) |
+            (drawUntilPlayable ? 8 : 0);
+    }
+}
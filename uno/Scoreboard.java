@@ -6,12 +6,41 @@ package uno;
  * scores. It can do the obvious things like increment someone's score,
  * find the score for a particular player, and determine the winner at the
  * end of the game.</p>
+ *
+ * <p>Alongside the scores, it keeps statistics on every game recorded with
+ * recordWin(): each player's wins, the first two moments of the points
+ * they score per game (counting a loss as 0), a small histogram of the
+ * points their wins were worth, and the first two moments of game length
+ * in turns. All of these take constant memory however many games are
+ * played, and are kept as exact integer sums, so Scoreboards from several
+ * threads merge into exactly the statistics one Scoreboard would have
+ * kept for all of their games, in any order.</p>
  * @since 1.0
  */
 public class Scoreboard {
 
+    /**
+     * The width, in points, of each bucket of a player's score histogram.
+     */
+    public static final int HISTOGRAM_BUCKET_WIDTH = 25;
+
+    /**
+     * The number of buckets in a score histogram. The last one holds every
+     * win worth more than the others cover.
+     */
+    public static final int HISTOGRAM_BUCKETS = 9;
+
     private String playerList[];
     private int scores[];
+    private long games;
+    private long wins[];
+    private long sumPoints[];
+    private long sumSquaredPoints[];
+    private long histograms[][];
+    private long sumTurns;
+    private long sumSquaredTurns;
+    private int shortestGame = Integer.MAX_VALUE;
+    private int longestGame = 0;
 
     /**
      * Instantiate a new Scoreboard object, given an array of player names.
@@ -22,17 +51,70 @@ public class Scoreboard {
             scores[i] = 0;
         }
         this.playerList = playerList;
+        wins = new long[playerList.length];
+        sumPoints = new long[playerList.length];
+        sumSquaredPoints = new long[playerList.length];
+        histograms = new long[playerList.length][HISTOGRAM_BUCKETS];
     }
 
     /**
-     * Award points to a particular player.
-     * @param player The zero-based player number who just won a game.
+     * Award points to a particular player, without recording a game.
+     * @param player The zero-based player number.
      * @param points The number of points to award.
      */
     public void addToScore(int player, int points) {
         scores[player] += points; 
     }
 
+    /**
+     * Record the end of a game: award the winner their points and update
+     * every player's statistics.
+     * @param player The zero-based player number who just won a game.
+     * @param points The number of points to award.
+     * @param turns The number of turns the game took.
+     */
+    public void recordWin(int player, int points, int turns) {
+        scores[player] += points;
+        games++;
+        wins[player]++;
+        sumPoints[player] += points;
+        sumSquaredPoints[player] += (long) points * points;
+        histograms[player][Math.min(points / HISTOGRAM_BUCKET_WIDTH,
+            HISTOGRAM_BUCKETS - 1)]++;
+        sumTurns += turns;
+        sumSquaredTurns += (long) turns * turns;
+        shortestGame = Math.min(shortestGame, turns);
+        longestGame = Math.max(longestGame, turns);
+    }
+
+    /**
+     * Add every player's score and statistics from another Scoreboard into
+     * this one. The other Scoreboard must have the same players in the same
+     * order. This lets several threads each keep a Scoreboard of their own
+     * and have them combined once the match is over.
+     * @param other A Scoreboard for the same roster of players.
+     */
+    public void merge(Scoreboard other) {
+        if (other.scores.length != scores.length) {
+            throw new IllegalArgumentException(
+                "Can't merge scoreboards with different numbers of players.");
+        }
+        for (int i=0; i<scores.length; i++) {
+            scores[i] += other.scores[i];
+            wins[i] += other.wins[i];
+            sumPoints[i] += other.sumPoints[i];
+            sumSquaredPoints[i] += other.sumSquaredPoints[i];
+            for (int b=0; b<HISTOGRAM_BUCKETS; b++) {
+                histograms[i][b] += other.histograms[i][b];
+            }
+        }
+        games += other.games;
+        sumTurns += other.sumTurns;
+        sumSquaredTurns += other.sumSquaredTurns;
+        shortestGame = Math.min(shortestGame, other.shortestGame);
+        longestGame = Math.max(longestGame, other.longestGame);
+    }
+
     /**
      * Obtain the score of a particular player.
      * @param player The zero-based player number whose score is desired.
@@ -41,6 +123,111 @@ public class Scoreboard {
         return scores[player];
     }
 
+    /**
+     * Return the number of games recorded.
+     */
+    public long getNumGames() {
+        return games;
+    }
+
+    /**
+     * Return the number of games a particular player has won.
+     * @param player The zero-based player number.
+     */
+    public long getWins(int player) {
+        return wins[player];
+    }
+
+    /**
+     * Return the fraction of recorded games a particular player has won.
+     * @param player The zero-based player number.
+     */
+    public double getWinRate(int player) {
+        return games == 0 ? 0 : (double) wins[player] / games;
+    }
+
+    /**
+     * Return the standard error of a player's win rate.
+     * @param player The zero-based player number.
+     */
+    public double getWinRateStandardError(int player) {
+        double rate = getWinRate(player);
+        return games < 2 ? 0 : Math.sqrt(rate * (1 - rate) / (games - 1));
+    }
+
+    /**
+     * Return the mean number of points a player scored per game.
+     * @param player The zero-based player number.
+     */
+    public double getMeanPoints(int player) {
+        return games == 0 ? 0 : (double) sumPoints[player] / games;
+    }
+
+    /**
+     * Return the sample variance of the points a player scored per game.
+     * @param player The zero-based player number.
+     */
+    public double getPointsVariance(int player) {
+        return variance(games, sumPoints[player], sumSquaredPoints[player]);
+    }
+
+    /**
+     * Return the standard error of a player's mean points per game.
+     * @param player The zero-based player number.
+     */
+    public double getPointsStandardError(int player) {
+        return games < 2 ? 0 : Math.sqrt(getPointsVariance(player) / games);
+    }
+
+    /**
+     * Return how many of a player's wins fell in each bucket of
+     * HISTOGRAM_BUCKET_WIDTH points: bucket b counts wins worth from
+     * b * HISTOGRAM_BUCKET_WIDTH points up to (but not including)
+     * (b + 1) * HISTOGRAM_BUCKET_WIDTH, except that the last bucket has no
+     * upper limit.
+     * @param player The zero-based player number.
+     */
+    public long[] getScoreHistogram(int player) {
+        return histograms[player].clone();
+    }
+
+    /**
+     * Return the mean number of turns a game took.
+     */
+    public double getMeanGameLength() {
+        return games == 0 ? 0 : (double) sumTurns / games;
+    }
+
+    /**
+     * Return the sample variance of the number of turns a game took.
+     */
+    public double getGameLengthVariance() {
+        return variance(games, sumTurns, sumSquaredTurns);
+    }
+
+    /**
+     * Return the number of turns the shortest game took, or 0 if no games
+     * have been recorded.
+     */
+    public int getShortestGame() {
+        return games == 0 ? 0 : shortestGame;
+    }
+
+    /**
+     * Return the number of turns the longest game took.
+     */
+    public int getLongestGame() {
+        return longestGame;
+    }
+
+    private static double variance(long n, long sum, long sumOfSquares) {
+        if (n < 2) {
+            return 0;
+        }
+        double mean = (double) sum / n;
+        return Math.max(0, (sumOfSquares - mean * sum) / (n - 1));
+    }
+
     /**
      * Render the Scoreboard as a string for display during game play.
      */
@@ -0,0 +1,110 @@
+package uno;
+
+/**
+ * <p>An anytime-valid test of whether one player wins more games than
+ * another, which may be checked after every game without inflating its
+ * error rate. It looks only at the games either of the two players won:
+ * if they were equally strong, each of those would be a coin flip. The
+ * evidence against that is the mixture likelihood ratio of a uniform
+ * prior over the first player's share p of those wins against p = 1/2,</p>
+ * <pre>
+ *   LR = 2^(w+l) w! l! / (w+l+1)!
+ * </pre>
+ * <p>for w wins and l losses. Under equal strength LR is a martingale with
+ * mean 1, so (by Ville's inequality) the chance it <i>ever</i> reaches
+ * 1/alpha is at most alpha, however long the match runs and however often
+ * it is checked. This is the mixture form of Wald's sequential probability
+ * ratio test, which needs no guess at how big a difference to look for.</p>
+ *
+ * <p>Ranking several players splits the error rate among every pair of
+ * them, so the chance of any pair coming out in the wrong order is at most
+ * errorRate overall.</p>
+ * @since 2.0
+ */
+public class SequentialTest {
+
+    private static final int LOG_FACTORIAL_TABLE_SIZE = 256;
+    private static final double[] LOG_FACTORIALS =
+        new double[LOG_FACTORIAL_TABLE_SIZE];
+    static {
+        for (int n=1; n<LOG_FACTORIAL_TABLE_SIZE; n++) {
+            LOG_FACTORIALS[n] = LOG_FACTORIALS[n - 1] + Math.log(n);
+        }
+    }
+
+    private double errorRate;
+    private double threshold;
+
+    /**
+     * Instantiate a test for ranking numPlayers players.
+     * @param errorRate The largest acceptable chance that any two players
+     * end up ranked in the wrong order.
+     */
+    public SequentialTest(int numPlayers, double errorRate) {
+        this.errorRate = errorRate;
+        double numPairs = Math.max(1, numPlayers * (numPlayers - 1) / 2);
+        threshold = Math.log(numPairs / errorRate);
+    }
+
+    /**
+     * Return the error rate the test was created with.
+     */
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * Return the natural log of the mixture likelihood ratio for a player
+     * who won w of the w+l games either they or an opponent won.
+     */
+    public static double logLikelihoodRatio(long w, long l) {
+        return (w + l) * Math.log(2) + logFactorial(w) + logFactorial(l) -
+            logFactorial(w + l + 1);
+    }
+
+    /**
+     * Return true if the evidence is strong enough to say that two players
+     * with these numbers of wins differ in strength.
+     */
+    public boolean isSeparated(long winsA, long winsB) {
+        return logLikelihoodRatio(winsA, winsB) >= threshold;
+    }
+
+    /**
+     * Return true if the players' current order by wins is settled: each
+     * player is separated from the one ranked just below them.
+     */
+    public boolean isSettled(long[] wins) {
+        return isSettled(wins, wins.length - 1);
+    }
+
+    /**
+     * Return true if the top places of the players' current order by wins
+     * are settled: each of the first places players is separated from the
+     * one ranked just below them. With places = 1, this asks only whether
+     * the leader is known.
+     */
+    public boolean isSettled(long[] wins, int places) {
+        long[] sorted = wins.clone();
+        java.util.Arrays.sort(sorted);
+        for (int i=sorted.length-1; i>=1 && i>=sorted.length-places; i--) {
+            if (!isSeparated(sorted[i], sorted[i - 1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return ln(n!), from a table for small n and Stirling's series
+     * otherwise.
+     */
+    static double logFactorial(long n) {
+        if (n < LOG_FACTORIAL_TABLE_SIZE) {
+            return LOG_FACTORIALS[(int) n];
+        }
+        double x = n;
+        return x * Math.log(x) - x + 0.5 * Math.log(2 * Math.PI * x) +
+            1 / (12 * x) - 1 / (360 * x * x * x);
+    }
+}
@@ -0,0 +1,485 @@
+package uno;
+
+import java.util.ArrayList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A SimulationPool plays a fixed number of games of Uno on several
+ * worker threads at once. Each worker claims games in small batches and
+ * plays them against its own Scoreboard, so no Scoreboard is ever shared
+ * between threads. Running totals are published through striped counters
+ * that can be read at any moment (for instance, by a GUI timer) without
+ * slowing the workers down.</p>
+ * @since 2.0
+ */
+public class SimulationPool {
+
+    /**
+     * The number of games a worker claims at a time. Claiming in batches
+     * keeps the workers from contending on the shared game counter.
+     */
+    static final int GAMES_PER_CLAIM = 64;
+
+    /**
+     * When running one thread per game on a Java runtime without virtual
+     * threads, the number of platform threads games are spread over.
+     */
+    static final int FALLBACK_GAME_THREADS = 256;
+
+    private String[] playerNames;
+    private UnoPlayer[] players;
+    private int numGames;
+    private int numThreads;
+
+    private AtomicInteger gamesClaimed = new AtomicInteger();
+    private LongAdder gamesPlayed = new LongAdder();
+    private LongAdder[] liveScores;
+    private LongAdder[] liveWins;
+    private volatile boolean aborted = false;
+    private volatile boolean stopped = false;
+    private ExecutorService executor;
+    private CountDownLatch done;
+    private volatile Throwable failure;
+    private BlockingQueue<SimulationPool> finishedQueue;
+    private Scoreboard[] shards;
+    private ReplayLog.Recorder recorder;
+    private int[] roster;
+
+    /**
+     * Instantiate a pool that will play numGames games between the given
+     * players, using one worker per available processor.
+     * @param playerNames The names of the contestants, in seat order.
+     * @param playerClasses The fully-qualified class names of each
+     * contestant's UnoPlayer, in seat order. Each class is instantiated
+     * once and shared by every game (see PerThreadUnoPlayer.forClass).
+     * @param numGames The total number of games to play.
+     */
+    public SimulationPool(String[] playerNames,
+        ArrayList<String> playerClasses, int numGames) {
+        this(playerNames, playerClasses, numGames,
+            Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Instantiate a pool that will play numGames games between the given
+     * players on numThreads workers.
+     */
+    public SimulationPool(String[] playerNames,
+        ArrayList<String> playerClasses, int numGames, int numThreads) {
+        this.playerNames = playerNames;
+        players = new UnoPlayer[playerClasses.size()];
+        for (int i=0; i<players.length; i++) {
+            players[i] = PerThreadUnoPlayer.forClass(playerClasses.get(i));
+        }
+        this.numGames = numGames;
+        this.numThreads = Math.max(1, numThreads);
+        liveScores = new LongAdder[playerNames.length];
+        liveWins = new LongAdder[playerNames.length];
+        for (int i=0; i<liveScores.length; i++) {
+            liveScores[i] = new LongAdder();
+            liveWins[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Log every game this pool plays to a replay log, so that any of them
+     * can be re-simulated afterward. Game i is dealt with the recorder's
+     * base seed + i, and seat j is logged as roster entry j. Must be called
+     * before the pool is started; close the recorder once await() returns.
+     */
+    public void setRecorder(ReplayLog.Recorder recorder) {
+        this.recorder = recorder;
+        roster = new int[players.length];
+        for (int j=0; j<roster.length; j++) {
+            roster[j] = j;
+        }
+    }
+
+    /**
+     * Start playing games in the background. This method returns
+     * immediately; use await() to wait for the match to finish.
+     */
+    public void start() {
+        done = new CountDownLatch(1);
+        executor = Executors.newFixedThreadPool(numThreads);
+        shards = new Scoreboard[numThreads];
+        final AtomicInteger workersLeft = new AtomicInteger(numThreads);
+        for (int t=0; t<numThreads; t++) {
+            final Scoreboard shard = new Scoreboard(playerNames);
+            shards[t] = shard;
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        playShard(shard);
+                    }
+                    catch (Throwable e) {
+                        fail(e);
+                    }
+                    finally {
+                        if (workersLeft.decrementAndGet() == 0) {
+                            finish();
+                        }
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * <p>Start playing games in the background, each game on a thread of
+     * its own. On runtimes that support virtual threads (Java 21 and up),
+     * those threads are virtual, so a game whose players block on I/O
+     * (a socket, a subprocess, a log sidecar) only holds on to a few
+     * hundred bytes of stack while it waits, and tens of thousands of such
+     * games can be in flight on a handful of cores. On older runtimes the
+     * games share a large fixed pool of platform threads instead.</p>
+     *
+     * <p>For CPU-bound players start() is the better choice: it keeps one
+     * worker per core and skips the per-game hand-off.</p>
+     * @param maxConcurrentGames The most games that may be in progress at
+     * once, which bounds memory use.
+     */
+    public void startPerGame(int maxConcurrentGames) {
+        executor = newPerGameExecutor(maxConcurrentGames);
+        startPerGame(maxConcurrentGames, executor);
+    }
+
+    /**
+     * Start playing games in the background as startPerGame(int) does, but
+     * on an executor (see newPerGameExecutor()) that other matches may be
+     * sharing, so that running many matches at once doesn't mean many
+     * thread pools. The executor is not shut down when the match ends.
+     * @param maxConcurrentGames The most games of this match that may be in
+     * progress at once.
+     */
+    public void startPerGame(final int maxConcurrentGames,
+        final ExecutorService gameExecutor) {
+        done = new CountDownLatch(1);
+        shards = new Scoreboard[numThreads];
+        for (int t=0; t<numThreads; t++) {
+            shards[t] = new Scoreboard(playerNames);
+        }
+        final Semaphore inFlight = new Semaphore(maxConcurrentGames);
+        Thread launcher = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    for (int i=0; i<numGames && !stopped; i++) {
+                        inFlight.acquire();
+                        final int gameId = i;
+                        final Scoreboard shard = shards[i % shards.length];
+                        gameExecutor.execute(new Runnable() {
+                            public void run() {
+                                try {
+                                    playOneGame(shard, gameId);
+                                }
+                                catch (Throwable e) {
+                                    fail(e);
+                                }
+                                finally {
+                                    inFlight.release();
+                                }
+                            }
+                        });
+                    }
+                }
+                catch (InterruptedException e) {
+                    abort();
+                }
+                catch (RejectedExecutionException e) {
+                    // The executor was shut down under us; stop launching.
+                    abort();
+                }
+                finally {
+                    // Every permit back means every game launched is over.
+                    inFlight.acquireUninterruptibly(maxConcurrentGames);
+                    if (gameExecutor == executor) {
+                        executor.shutdown();
+                    }
+                    finish();
+                }
+            }
+        });
+        launcher.setDaemon(true);
+        launcher.start();
+    }
+
+    /**
+     * Return an executor that starts a new virtual thread for each task if
+     * this runtime has them, or a fixed pool of platform threads if not.
+     * Looked up reflectively so that this code still compiles and runs on
+     * runtimes older than Java 21.
+     * @param maxConcurrentGames The most games that will be in progress on
+     * it at once; there are never more platform threads than this, nor
+     * more than FALLBACK_GAME_THREADS.
+     */
+    static ExecutorService newPerGameExecutor(int maxConcurrentGames) {
+        try {
+            return (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(
+                Math.min(maxConcurrentGames, FALLBACK_GAME_THREADS));
+        }
+    }
+
+    /**
+     * Have this pool put itself on the given queue once it has finished,
+     * so that whoever is running several pools can block until the next
+     * one finishes. Must be called before the pool is started.
+     */
+    void notifyWhenFinished(BlockingQueue<SimulationPool> queue) {
+        finishedQueue = queue;
+    }
+
+    /**
+     * Block until every game has been played (or the match was stopped or
+     * aborted).
+     * @return false if some game ended in an illegal play, a game threw an
+     * exception (see getFailure()), or the match was cancelled, and the
+     * match was aborted; true otherwise.
+     */
+    public boolean await() throws InterruptedException {
+        done.await();
+        return !aborted;
+    }
+
+    /**
+     * Return true once every worker has stopped, either because all games
+     * were played or because the match was stopped or aborted.
+     */
+    public boolean isFinished() {
+        return done != null && done.getCount() == 0;
+    }
+
+    /**
+     * Return the first exception thrown while playing this match's games,
+     * which aborted the match, or null if there was none.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Stop handing out games. Games already in progress are finished.
+     */
+    public void cancel() {
+        abort();
+    }
+
+    /**
+     * Stop handing out games because enough have been played, rather than
+     * because something went wrong: games already in progress are
+     * finished, and await() still reports success.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    private void abort() {
+        aborted = true;
+        stopped = true;
+    }
+
+    /**
+     * Record an exception that escaped a game, and abort the match: a
+     * match that lost games to an exception must not look complete.
+     */
+    private void fail(Throwable t) {
+        synchronized (this) {
+            if (failure == null) {
+                failure = t;
+                t.printStackTrace();
+            }
+        }
+        abort();
+    }
+
+    private void finish() {
+        done.countDown();
+        if (finishedQueue != null) {
+            finishedQueue.add(this);
+        }
+    }
+
+    /**
+     * Return the number of games completed so far.
+     */
+    public int getGamesPlayed() {
+        return gamesPlayed.intValue();
+    }
+
+    /**
+     * Return the total number of games this pool will play.
+     */
+    public int getNumGames() {
+        return numGames;
+    }
+
+    /**
+     * Return the number of points a player has accumulated so far, across
+     * all workers.
+     * @param player The zero-based player number whose score is desired.
+     */
+    public int getScore(int player) {
+        return liveScores[player].intValue();
+    }
+
+    /**
+     * Return the number of games a player has won so far, across all
+     * workers.
+     * @param player The zero-based player number.
+     */
+    public int getWins(int player) {
+        return liveWins[player].intValue();
+    }
+
+    /**
+     * Return the zero-based number of the player with the highest score so
+     * far.
+     */
+    public int getWinner() {
+        int winner = 0;
+        for (int i=1; i<liveScores.length; i++) {
+            if (getScore(i) > getScore(winner)) {
+                winner = i;
+            }
+        }
+        return winner;
+    }
+
+    /**
+     * Return a Scoreboard holding the final totals of the match, built by
+     * merging every worker's Scoreboard in worker order. Should only be
+     * called once await() has returned.
+     */
+    public Scoreboard getScoreboard() {
+        Scoreboard total = new Scoreboard(playerNames);
+        for (Scoreboard shard : shards) {
+            total.merge(shard);
+        }
+        return total;
+    }
+
+    /**
+     * Play a single game for startPerGame(). Each game gets a Scoreboard of
+     * its own, seeded with the current live totals so that GameState
+     * reports (nearly) current scores. Once the game is over the seed is
+     * taken back out, and what is left (the game's result and statistics)
+     * is added to the live totals and merged into one of the shards.
+     */
+    private void playOneGame(Scoreboard shard, int gameId) {
+        if (stopped) {
+            return;
+        }
+        Scoreboard s = new Scoreboard(playerNames);
+        int[] startScores = new int[playerNames.length];
+        for (int j=0; j<startScores.length; j++) {
+            startScores[j] = getScore(j);
+            s.addToScore(j, startScores[j]);
+        }
+        if (!playGame(s, gameId)) {
+            abort();
+            return;
+        }
+        for (int j=0; j<startScores.length; j++) {
+            s.addToScore(j, -startScores[j]);
+            liveScores[j].add(s.getScore(j));
+            // A win can be worth 0 points, so count wins, not scores.
+            if (s.getWins(j) != 0) {
+                liveWins[j].increment();
+            }
+        }
+        synchronized (shard) {
+            shard.merge(s);
+        }
+        gamesPlayed.increment();
+    }
+
+    /**
+     * Play games for start() against the worker's own shard. Like
+     * playOneGame(), each game starts from the live totals of the whole
+     * match, not just this shard's: the difference is added to the shard
+     * before the game and taken back out after it, so the shard is left
+     * holding only its own games.
+     */
+    private void playShard(Scoreboard shard) {
+        int[] lastScores = new int[playerNames.length];
+        long[] lastWins = new long[playerNames.length];
+        int[] offsets = new int[playerNames.length];
+        while (!stopped) {
+            int first = gamesClaimed.getAndAdd(GAMES_PER_CLAIM);
+            if (first >= numGames) {
+                return;
+            }
+            int last = Math.min(first + GAMES_PER_CLAIM, numGames);
+            for (int i=first; i<last && !stopped; i++) {
+                for (int j=0; j<offsets.length; j++) {
+                    offsets[j] = getScore(j) - lastScores[j];
+                    shard.addToScore(j, offsets[j]);
+                }
+                boolean legal = playGame(shard, i);
+                for (int j=0; j<offsets.length; j++) {
+                    shard.addToScore(j, -offsets[j]);
+                }
+                if (!legal) {
+                    abort();
+                    return;
+                }
+                // Only the winner's score and wins changed; publish the
+                // difference. A win can be worth 0 points, so the winner is
+                // found by wins, not by score.
+                for (int j=0; j<lastScores.length; j++) {
+                    if (shard.getWins(j) != lastWins[j]) {
+                        int score = shard.getScore(j);
+                        liveScores[j].add(score - lastScores[j]);
+                        liveWins[j].increment();
+                        lastScores[j] = score;
+                        lastWins[j] = shard.getWins(j);
+                    }
+                }
+                gamesPlayed.increment();
+            }
+        }
+    }
+
+    /**
+     * Play game number gameId against the given Scoreboard, logging it if
+     * a recorder has been set.
+     * @return false if the game ended in an illegal play.
+     */
+    private boolean playGame(Scoreboard s, int gameId) {
+        if (recorder == null) {
+            Game g = new Game(s, players);
+            if (!g.play()) {
+                System.out.println("Illegal play. Aborting.");
+                return false;
+            }
+            return true;
+        }
+        ReplayLog.Recording recording = recorder.startGame(gameId, roster,
+            players);
+        Game g = new Game(s, recording.getPlayers(),
+            recorder.getBaseSeed() + gameId, recorder.getRules());
+        boolean legal = g.play();
+        try {
+            recording.finish();
+        }
+        catch (java.io.IOException e) {
+            System.out.println("Can't write replay log: " + e);
+            return false;
+        }
+        if (!legal) {
+            System.out.println("Illegal play. Aborting.");
+        }
+        return legal;
+    }
+}
@@ -0,0 +1,16 @@
+package uno;
+
+/**
+ * <p>A marker interface for UnoPlayers that keep no state of their own
+ * between calls. Everything such a player needs to choose a card or call a
+ * color is passed to play() and callColor(hand, state), so a single
+ * instance can be shared by any number of games, on any number of threads
+ * at once.</p>
+ * <p>Strategies that do remember something from play() for a later
+ * callColor() must not implement this interface. The simulators run them
+ * through a PerThreadUnoPlayer instead.</p>
+ * @since 2.0
+ */
+public interface StatelessUnoPlayer extends UnoPlayer {
+
+}
@@ -0,0 +1,329 @@
+package uno;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>Compares two strategies offline, over a recorded corpus of decision
+ * points (as written by TestCaseGenerator), instead of by simulating
+ * another match. Both strategies are shown every recorded position --
+ * hand, up card, called color and, if the corpus has them, the GameState
+ * the original player saw -- and the evaluator counts how often the
+ * candidate plays a different card than the reference, and how often it
+ * calls a different color after the reference's wild. Disagreements are
+ * broken down by a handful of features of the position, which shows where
+ * a change to a strategy actually bites before any full simulation is
+ * run.</p>
+ *
+ * <p>Since whole positions are replayed rather than whole games, a change
+ * that never alters a decision shows up as 0% disagreement at once, and
+ * a corpus of millions of positions is checked in seconds.</p>
+ * @since 2.0
+ */
+public class StrategyEvaluator {
+
+    /**
+     * Roughly how many pieces the corpus is split into per thread, so that
+     * threads that finish early can pick up more work.
+     */
+    static final int TASKS_PER_THREAD = 4;
+
+    /**
+     * The features positions are broken down by, and the label of each of
+     * their buckets.
+     */
+    static final String[] FEATURES = { "hand size", "legal plays",
+        "up card", "next player's cards", "reference plays" };
+    static final String[][] BUCKETS = {
+        { "1", "2", "3-4", "5-7", "8-11", "12+" },
+        { "0", "1", "2", "3", "4+" },
+        { "number", "skip", "reverse", "draw two", "wild", "wild d4" },
+        { "1", "2", "3-4", "5+", "unknown" },
+        { "number", "skip", "reverse", "draw two", "wild", "wild d4",
+            "draw" },
+    };
+
+    /**
+     * The tallies kept for each bucket: positions, play disagreements,
+     * wilds the reference played, and color disagreements after them.
+     */
+    private static final int POSITIONS = 0, PLAY_DIFFS = 1, WILDS = 2,
+        COLOR_DIFFS = 3, NUM_TALLIES = 4;
+
+    private UnoPlayer candidate;
+    private UnoPlayer reference;
+    private long[][][] tallies = newTallies();
+    private long numIllegalPlays = 0;
+
+    /**
+     * Compare two strategies over a corpus. Usage:
+     * <pre>
+     * StrategyEvaluator CandidateClassName ReferenceClassName corpusFile
+     * </pre>
+     * Players are given as in players.txt (<i>e.g.</i>, "as" for
+     * uno.as_UnoPlayer, or "values:values/players.csv#as1" for the values
+     * as1 was tuned to; see Roster).
+     */
+    public static void main(String args[]) {
+        if (args.length != 3) {
+            System.out.println("Usage: StrategyEvaluator CandidateClassName ReferenceClassName corpusFile");
+            System.exit(1);
+        }
+        try {
+            StrategyEvaluator evaluator = new StrategyEvaluator(
+                PerThreadUnoPlayer.forClass(Roster.getClassSpec(args[0])),
+                PerThreadUnoPlayer.forClass(Roster.getClassSpec(args[1])));
+            TestCaseCorpus corpus = new TestCaseCorpus(new File(args[2]));
+            if (!corpus.hasStates()) {
+                System.out.println("(" + args[2] + " holds no GameStates; " +
+                    "both strategies will be shown blank ones.)");
+            }
+            long startTime = System.nanoTime();
+            evaluator.evaluate(corpus);
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            System.out.println(args[0] + " vs. " + args[1] + ":");
+            evaluator.report(System.out);
+            System.out.println(String.format(
+                "%.2f seconds, %.0f decisions/sec.", seconds,
+                corpus.getNumRecords() / seconds));
+            corpus.close();
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Instantiate an evaluator. Both players may be shared by several
+     * threads at once, so they should be stateless or wrapped in a
+     * PerThreadUnoPlayer.
+     */
+    public StrategyEvaluator(UnoPlayer candidate, UnoPlayer reference) {
+        this.candidate = candidate;
+        this.reference = reference;
+    }
+
+    /**
+     * Show both strategies every position in the corpus, spread across one
+     * thread per processor, adding to this evaluator's tallies.
+     */
+    public void evaluate(final TestCaseCorpus corpus) throws Exception {
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        int numChunks = corpus.getNumChunks();
+        int chunksPerTask = Math.max(1,
+            numChunks / (numThreads * TASKS_PER_THREAD));
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        ArrayList<Future<?>> tasks = new ArrayList<Future<?>>();
+        for (int first=0; first<numChunks; ) {
+            final int firstChunk = first;
+            final int lastChunk = corpus.getRangeEnd(first, chunksPerTask);
+            first = lastChunk;
+            tasks.add(executor.submit(new Callable<Void>() {
+                public Void call() throws Exception {
+                    evaluateChunks(corpus, firstChunk, lastChunk);
+                    return null;
+                }
+            }));
+        }
+        try {
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Return the overall fraction of positions in which the candidate
+     * played a different card than the reference.
+     */
+    public synchronized double getPlayDisagreementRate() {
+        long positions = 0, diffs = 0;
+        for (long[] bucket : tallies[0]) {
+            positions += bucket[POSITIONS];
+            diffs += bucket[PLAY_DIFFS];
+        }
+        return positions == 0 ? 0 : (double) diffs / positions;
+    }
+
+    /**
+     * Return the overall fraction of the reference's wilds after which the
+     * candidate called a different color.
+     */
+    public synchronized double getColorDisagreementRate() {
+        long wilds = 0, diffs = 0;
+        for (long[] bucket : tallies[0]) {
+            wilds += bucket[WILDS];
+            diffs += bucket[COLOR_DIFFS];
+        }
+        return wilds == 0 ? 0 : (double) diffs / wilds;
+    }
+
+    /**
+     * Print the overall disagreement rates and their breakdown by feature.
+     */
+    public synchronized void report(java.io.PrintStream out) {
+        long positions = 0, wilds = 0;
+        for (long[] bucket : tallies[0]) {
+            positions += bucket[POSITIONS];
+            wilds += bucket[WILDS];
+        }
+        out.println(String.format(
+            "%d decisions: %.2f%% of plays differ, %.2f%% of colors called " +
+            "after %d wilds differ, %d illegal plays.", positions,
+            100 * getPlayDisagreementRate(),
+            100 * getColorDisagreementRate(), wilds, numIllegalPlays));
+        for (int f=0; f<FEATURES.length; f++) {
+            out.println(String.format("  %-22s %12s %10s %12s", FEATURES[f],
+                "decisions", "plays", "colors"));
+            for (int b=0; b<BUCKETS[f].length; b++) {
+                long[] bucket = tallies[f][b];
+                if (bucket[POSITIONS] == 0) {
+                    continue;
+                }
+                out.println(String.format("    %-20s %12d %9.2f%% %11s",
+                    BUCKETS[f][b], bucket[POSITIONS],
+                    100.0 * bucket[PLAY_DIFFS] / bucket[POSITIONS],
+                    bucket[WILDS] == 0 ? "-" : String.format("%.2f%%",
+                        100.0 * bucket[COLOR_DIFFS] / bucket[WILDS])));
+            }
+        }
+    }
+
+    private static long[][][] newTallies() {
+        long[][][] tallies = new long[FEATURES.length][][];
+        for (int f=0; f<FEATURES.length; f++) {
+            tallies[f] = new long[BUCKETS[f].length][NUM_TALLIES];
+        }
+        return tallies;
+    }
+
+    /**
+     * Evaluate a range of chunks into tallies of their own, then add those
+     * to the evaluator's.
+     */
+    private void evaluateChunks(TestCaseCorpus corpus, int firstChunk,
+        int lastChunk) throws IOException {
+        ByteBuffer buf = corpus.map(firstChunk, lastChunk);
+        long numRecords = corpus.getNumRecords(firstChunk, lastChunk);
+        TestCaseCorpus.Record r = new TestCaseCorpus.Record(corpus.hasStates());
+        long[][][] local = newTallies();
+        int[] buckets = new int[FEATURES.length];
+        long illegal = 0;
+        for (long i=0; i<numRecords; i++) {
+            r.read(buf);
+            if (!evaluatePosition(r, local, buckets)) {
+                illegal++;
+            }
+        }
+        synchronized (this) {
+            for (int f=0; f<FEATURES.length; f++) {
+                for (int b=0; b<BUCKETS[f].length; b++) {
+                    for (int t=0; t<NUM_TALLIES; t++) {
+                        tallies[f][b][t] += local[f][b][t];
+                    }
+                }
+            }
+            numIllegalPlays += illegal;
+        }
+    }
+
+    /**
+     * Show both strategies one position and tally the result.
+     * @return false if the candidate made an illegal play.
+     */
+    private boolean evaluatePosition(TestCaseCorpus.Record r,
+        long[][][] local, int[] buckets) {
+        List<Card> hand = new ArrayList<Card>(r.handSize);
+        for (int i=0; i<r.handSize; i++) {
+            hand.add(Card.forId(r.hand[i]));
+        }
+        Card upCard = Card.forId(r.upCard);
+        UnoPlayer.Color calledColor = UnoPlayer.Color.values()[r.calledColor];
+        GameState state = r.getGameState();
+
+        int referencePlay = reference.play(hand, upCard, calledColor, state);
+        int candidatePlay = candidate.play(hand, upCard, calledColor, state);
+
+        int legalPlays = 0;
+        for (int i=0; i<r.handSize; i++) {
+            if (r.isValid(i)) {
+                legalPlays++;
+            }
+        }
+        buckets[0] = bucket(r.handSize, 1, 2, 3, 5, 8, 12);
+        buckets[1] = Math.min(legalPlays, 4);
+        buckets[2] = rankBucket(upCard);
+        if (r.state != null && r.state.numSeats > 0) {
+            buckets[3] = bucket(r.state.numCards[0], 1, 2, 3, 5);
+        }
+        else {
+            buckets[3] = 4;
+        }
+        buckets[4] = referencePlay < 0 || referencePlay >= r.handSize ?
+            6 : rankBucket(hand.get(referencePlay));
+
+        // Two copies of a card are the same play, whichever is chosen.
+        boolean playDiffers = cardId(hand, candidatePlay) !=
+            cardId(hand, referencePlay);
+        boolean wild = false, colorDiffers = false;
+        if (referencePlay >= 0 && referencePlay < r.handSize &&
+            hand.get(referencePlay).followedByCall()) {
+            wild = true;
+            List<Card> rest = new ArrayList<Card>(hand);
+            rest.remove(referencePlay);
+            colorDiffers = candidate.callColor(rest, state) !=
+                reference.callColor(rest, state);
+        }
+        for (int f=0; f<FEATURES.length; f++) {
+            long[] bucket = local[f][buckets[f]];
+            bucket[POSITIONS]++;
+            if (playDiffers) {
+                bucket[PLAY_DIFFS]++;
+            }
+            if (wild) {
+                bucket[WILDS]++;
+                if (colorDiffers) {
+                    bucket[COLOR_DIFFS]++;
+                }
+            }
+        }
+        return r.isValid(candidatePlay);
+    }
+
+    /**
+     * Return the id of the card at index play of the hand, or -1 if play
+     * is a pass (or not an index of the hand at all).
+     */
+    private static int cardId(List<Card> hand, int play) {
+        return play < 0 || play >= hand.size() ? -1 : hand.get(play).getId();
+    }
+
+    /**
+     * Return the index of the last of the (ascending) lower bounds that
+     * value reaches.
+     */
+    private static int bucket(int value, int... lowerBounds) {
+        int b = 0;
+        while (b + 1 < lowerBounds.length && value >= lowerBounds[b + 1]) {
+            b++;
+        }
+        return b;
+    }
+
+    private static int rankBucket(Card card) {
+        if (card.getRank() == UnoPlayer.Rank.NUMBER) {
+            return 0;
+        }
+        return card.getRank().ordinal() - UnoPlayer.Rank.SKIP.ordinal() + 1;
+    }
+}
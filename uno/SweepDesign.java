@@ -0,0 +1,301 @@
+package uno;
+
+import java.util.Random;
+
+/**
+ * <p>The points of a parameter sweep: which of values_UnoPlayer's
+ * coefficients are varied, over what ranges, and the values vector of each
+ * point, with every other coefficient at its baseline value. Three designs
+ * are supported:</p>
+ * <ul>
+ * <li><b>grid</b>: size evenly spaced levels of each coefficient, from
+ * the bottom of its range to the top, in every combination (size to the
+ * power of the number of coefficients points).</li>
+ * <li><b>lhs</b>: a Latin hypercube of size points: each coefficient's
+ * range is cut into size strata, and each stratum of each coefficient
+ * holds exactly one point, at a random place within it.</li>
+ * <li><b>sobol</b>: the first size points of a Sobol sequence, which
+ * fill the space more evenly than random points do, and go on doing so
+ * however many are taken.</li>
+ * </ul>
+ *
+ * <p>A design is written as its kind, its size and its ranges (see
+ * parse()), and the same design always has the same points in the same
+ * order (the Latin hypercube is drawn from the seed passed), so a sweep
+ * can be stopped and picked up again point by point.</p>
+ * @since 2.0
+ */
+public final class SweepDesign {
+
+    public static final int GRID = 0;
+    public static final int LATIN_HYPERCUBE = 1;
+    public static final int SOBOL = 2;
+
+    private static final String[] KINDS = { "grid", "lhs", "sobol" };
+
+    /**
+     * The bits of precision of a Sobol coordinate.
+     */
+    private static final int SOBOL_BITS = 32;
+
+    /**
+     * The primitive polynomials (degree, then coefficients) and initial
+     * direction numbers of Sobol dimensions 2 and up, from Joe and Kuo's
+     * new-joe-kuo-6.21201 table; dimension 1 is the van der Corput
+     * sequence. There is one for each coefficient a sweep can vary.
+     */
+    private static final int[][] SOBOL_TABLE = {
+        { 1, 0, 1 },
+        { 2, 1, 1, 3 },
+        { 3, 1, 1, 3, 1 },
+        { 3, 2, 1, 1, 1 },
+        { 4, 1, 1, 1, 3, 3 },
+        { 4, 4, 1, 3, 5, 13 },
+        { 5, 2, 1, 1, 5, 5, 17 },
+        { 5, 4, 1, 1, 5, 5, 5 },
+        { 5, 7, 1, 1, 7, 11, 19 },
+        { 5, 11, 1, 1, 5, 1, 1 },
+        { 5, 13, 1, 1, 1, 3, 11 },
+    };
+
+    private final int kind;
+    private final int size;
+    private final int[] coefficients;
+    private final double[] low;
+    private final double[] high;
+    private final int numPoints;
+
+    /**
+     * For a Latin hypercube, each point's place in the unit range of each
+     * coefficient; for Sobol, each coefficient's direction numbers.
+     */
+    private double[][] unitPoints;
+    private long[][] directions;
+
+    /**
+     * Instantiate a design.
+     * @param kind GRID, LATIN_HYPERCUBE or SOBOL.
+     * @param size The number of levels of each coefficient of a grid, or
+     * the number of points of the other designs.
+     * @param coefficients The indexes (in values_UnoPlayer.NAMES) of the
+     * coefficients varied.
+     * @param low The bottom of each one's range.
+     * @param high The top of each one's range.
+     * @param seed The seed a Latin hypercube is drawn from.
+     * @throws IllegalArgumentException If the design can't be built.
+     */
+    public SweepDesign(int kind, int size, int[] coefficients, double[] low,
+        double[] high, long seed) {
+        if (size < 1) {
+            throw new IllegalArgumentException("A design needs a size of " +
+                "at least 1.");
+        }
+        if (coefficients.length < 1 ||
+            coefficients.length > values_UnoPlayer.NUM_VALUES) {
+            throw new IllegalArgumentException("A design varies from 1 to " +
+                values_UnoPlayer.NUM_VALUES + " coefficients.");
+        }
+        this.kind = kind;
+        this.size = size;
+        this.coefficients = coefficients.clone();
+        this.low = low.clone();
+        this.high = high.clone();
+        if (kind == GRID) {
+            long points = 1;
+            for (int i=0; i<coefficients.length; i++) {
+                points *= size;
+                if (points > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("A grid of " + size +
+                        " levels of " + coefficients.length +
+                        " coefficients has too many points.");
+                }
+            }
+            numPoints = (int) points;
+        }
+        else {
+            numPoints = size;
+        }
+        if (kind == LATIN_HYPERCUBE) {
+            Random rand = new Random(seed);
+            unitPoints = new double[numPoints][coefficients.length];
+            for (int c=0; c<coefficients.length; c++) {
+                int[] strata = new int[numPoints];
+                for (int i=0; i<numPoints; i++) {
+                    strata[i] = i;
+                }
+                for (int i=numPoints-1; i>0; i--) {
+                    int j = rand.nextInt(i + 1);
+                    int swap = strata[i];
+                    strata[i] = strata[j];
+                    strata[j] = swap;
+                }
+                for (int i=0; i<numPoints; i++) {
+                    unitPoints[i][c] = (strata[i] + rand.nextDouble()) /
+                        numPoints;
+                }
+            }
+        }
+        else if (kind == SOBOL) {
+            directions = new long[coefficients.length][];
+            for (int c=0; c<coefficients.length; c++) {
+                directions[c] = sobolDirections(c);
+            }
+        }
+    }
+
+    /**
+     * Return the design a kind, size and list of ranges name. The ranges
+     * are comma-separated, each a coefficient's name, "=", and the bottom
+     * and top of its range separated by ":" (for instance,
+     * "significantLeadRatio=0:2,drawTwoPoints=0:20").
+     * @throws IllegalArgumentException If they don't name a design.
+     */
+    public static SweepDesign parse(String kind, int size, String ranges,
+        long seed) {
+        int k = 0;
+        while (k < KINDS.length && !KINDS[k].equals(kind)) {
+            k++;
+        }
+        if (k == KINDS.length) {
+            throw new IllegalArgumentException("Unknown design \"" + kind +
+                "\"; the designs are grid, lhs and sobol.");
+        }
+        String[] fields = ranges.split(",");
+        int[] coefficients = new int[fields.length];
+        double[] low = new double[fields.length];
+        double[] high = new double[fields.length];
+        for (int i=0; i<fields.length; i++) {
+            int equals = fields[i].indexOf('=');
+            int colon = fields[i].indexOf(':', equals + 1);
+            if (equals < 0 || colon < 0) {
+                throw new IllegalArgumentException("Expected " +
+                    "coefficient=low:high, not \"" + fields[i] + "\".");
+            }
+            coefficients[i] = indexOf(fields[i].substring(0, equals).trim());
+            for (int j=0; j<i; j++) {
+                if (coefficients[j] == coefficients[i]) {
+                    throw new IllegalArgumentException(
+                        values_UnoPlayer.NAMES[coefficients[i]] +
+                        " is given twice.");
+                }
+            }
+            low[i] = Double.parseDouble(
+                fields[i].substring(equals + 1, colon));
+            high[i] = Double.parseDouble(fields[i].substring(colon + 1));
+        }
+        return new SweepDesign(k, size, coefficients, low, high, seed);
+    }
+
+    /**
+     * Return the index in values_UnoPlayer.NAMES of the coefficient named.
+     * @throws IllegalArgumentException If there is no such coefficient.
+     */
+    public static int indexOf(String name) {
+        for (int i=0; i<values_UnoPlayer.NUM_VALUES; i++) {
+            if (values_UnoPlayer.NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown coefficient \"" + name +
+            "\".");
+    }
+
+    /**
+     * Return the number of points in the design.
+     */
+    public int getNumPoints() {
+        return numPoints;
+    }
+
+    /**
+     * Return the indexes (in values_UnoPlayer.NAMES) of the coefficients
+     * the design varies.
+     */
+    public int[] getCoefficients() {
+        return coefficients.clone();
+    }
+
+    /**
+     * Return the full values vector of the point passed (counting from
+     * 0): the baseline values, with each varied coefficient set for the
+     * point.
+     */
+    public double[] getPoint(int point) {
+        double[] values = values_UnoPlayer.getBaseline();
+        for (int c=0; c<coefficients.length; c++) {
+            double x;
+            if (kind == GRID) {
+                int level = point;
+                for (int d=coefficients.length-1; d>c; d--) {
+                    level /= size;
+                }
+                level %= size;
+                x = size == 1 ? 0.5 : level / (double) (size - 1);
+            }
+            else if (kind == LATIN_HYPERCUBE) {
+                x = unitPoints[point][c];
+            }
+            else {
+                x = sobol(point, c);
+            }
+            values[coefficients[c]] = low[c] + (high[c] - low[c]) * x;
+        }
+        return values;
+    }
+
+    public String toString() {
+        String retval = KINDS[kind] + " " + size;
+        for (int c=0; c<coefficients.length; c++) {
+            retval += (c == 0 ? " " : ",") +
+                values_UnoPlayer.NAMES[coefficients[c]] + "=" + low[c] +
+                ":" + high[c];
+        }
+        return retval;
+    }
+
+    /**
+     * Return coordinate c of Sobol point number point. The all-zero first
+     * point of the sequence is skipped, since it would put every
+     * coefficient at the bottom of its range.
+     */
+    private double sobol(int point, int c) {
+        long n = point + 1L;
+        long gray = n ^ (n >>> 1);
+        long x = 0;
+        for (int bit=0; gray != 0; bit++, gray >>>= 1) {
+            if ((gray & 1) != 0) {
+                x ^= directions[c][bit];
+            }
+        }
+        return x / (double) (1L << SOBOL_BITS);
+    }
+
+    /**
+     * Return the direction numbers, scaled to SOBOL_BITS bits, of Sobol
+     * dimension c+1.
+     */
+    private static long[] sobolDirections(int c) {
+        long[] v = new long[SOBOL_BITS];
+        if (c == 0) {
+            for (int i=0; i<SOBOL_BITS; i++) {
+                v[i] = 1L << (SOBOL_BITS - 1 - i);
+            }
+            return v;
+        }
+        int[] row = SOBOL_TABLE[c - 1];
+        int degree = row[0];
+        int a = row[1];
+        for (int i=0; i<degree; i++) {
+            v[i] = (long) row[2 + i] << (SOBOL_BITS - 1 - i);
+        }
+        for (int i=degree; i<SOBOL_BITS; i++) {
+            v[i] = v[i - degree] ^ (v[i - degree] >>> degree);
+            for (int k=1; k<degree; k++) {
+                if ((a >>> (degree - 1 - k) & 1) != 0) {
+                    v[i] ^= v[i - k];
+                }
+            }
+        }
+        return v;
+    }
+}
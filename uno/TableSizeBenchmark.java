@@ -0,0 +1,86 @@
+package uno;
+
+/**
+ * <p>Measures how fast Game plays at each table size it supports, from
+ * Game.MIN_PLAYERS to Game.MAX_PLAYERS seats, with the same strategy in
+ * every seat: games per second, turns per game, and the cost of a turn.
+ * A strategy that only looks at its own hand should cost about the same
+ * per turn at any size of table, since GameState builds its per-opponent
+ * arrays only when asked for them; one that asks for them pays for every
+ * seat.</p>
+ *
+ * <p>Usage: TableSizeBenchmark gamesPerSize [playerPrefix] [seed]</p>
+ *
+ * <p>The player is loaded as "uno.<i>playerPrefix</i>_UnoPlayer" (as by
+ * default), or from any other player written as in players.txt (see
+ * Roster), one instance per seat, and plays by the rules of the uno.rules
+ * property. Game i at every size uses seed+i, so runs are repeatable.
+ * Each size is played once unmeasured first, to let the JIT settle.</p>
+ * @since 2.0
+ */
+public class TableSizeBenchmark {
+
+    public static void main(String args[]) {
+        if (args.length < 1 || args.length > 3) {
+            System.out.println("Usage: TableSizeBenchmark gamesPerSize " +
+                "[playerPrefix] [seed]");
+            System.exit(1);
+        }
+        int gamesPerSize = Integer.parseInt(args[0]);
+        String prefix = args.length > 1 ? args[1] : "as";
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        try {
+            String classSpec = Roster.getClassSpec(prefix);
+            System.out.println(String.format("%5s %12s %10s %10s %8s",
+                "seats", "games/sec", "turns/game", "ns/turn", "drawn"));
+            for (int seats=Game.MIN_PLAYERS; seats<=Game.MAX_PLAYERS;
+                seats++) {
+                UnoPlayer[] players = new UnoPlayer[seats];
+                String[] names = new String[seats];
+                for (int i=0; i<seats; i++) {
+                    players[i] = (UnoPlayer) Roster.newStrategy(classSpec);
+                    names[i] = prefix + i;
+                }
+                run(players, names, gamesPerSize, seed);
+                long[] result = run(players, names, gamesPerSize, seed);
+                double seconds = result[0] / 1e9;
+                System.out.println(String.format("%5d %12.0f %10.1f %10.0f %8d",
+                    seats, gamesPerSize / seconds,
+                    result[1] / (double) gamesPerSize,
+                    result[0] / (double) result[1], result[2]));
+            }
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Play the games of one table size, and return the nanoseconds they
+     * took, the turns they took and how many were drawn.
+     */
+    private static long[] run(UnoPlayer[] players, String[] names,
+        int games, long seed) throws Exception {
+        long turns = 0;
+        int drawn = 0;
+        long start = System.nanoTime();
+        for (int g=0; g<games; g++) {
+            Game game = new Game(new Scoreboard(names), players, seed + g);
+            int result;
+            try {
+                do {
+                    result = game.playTurn();
+                } while (result == Game.TURN_PLAYED);
+                if (result == Game.ILLEGAL_PLAY) {
+                    throw new IllegalStateException(names[game.currPlayer] +
+                        " made an illegal play in game " + (seed + g) + ".");
+                }
+            }
+            catch (EmptyDeckException e) {
+                drawn++;
+            }
+            turns += game.turnsPlayed;
+        }
+        return new long[] { System.nanoTime() - start, turns, drawn };
+    }
+}
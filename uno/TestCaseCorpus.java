@@ -0,0 +1,455 @@
+package uno;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>A compact binary form of a test-case corpus (the hands, up cards,
+ * called colors and valid plays of testCases.txt), laid out so that it can
+ * be memory-mapped and checked by several threads at once.</p>
+ *
+ * <p>The file starts with a header:</p>
+ * <pre>
+ *   int   MAGIC
+ *   int   VERSION
+ *   int   flags (FLAG_STATES, or 0)
+ *   long  number of records
+ *   long  offset of the chunk index
+ * </pre>
+ * <p>followed by the records, each laid out as:</p>
+ * <pre>
+ *   byte  hand size n
+ *   n bytes of card ids (see Card.getId)
+ *   byte  up card id
+ *   byte  called color ordinal
+ *   ceil((n+1)/8) bytes of valid-play bitmask: bit 0 means "-1" (draw)
+ *         is a valid answer, bit i+1 means playing card i is
+ * </pre>
+ * <p>If FLAG_STATES is set, each record is followed by a snapshot of the
+ * GameState the player was shown:</p>
+ * <pre>
+ *   byte  number of seats k
+ *   k times: byte cards in hand (capped at 255), byte color most
+ *         recently called (NO_COLOR if none), int total score, for each
+ *         upcoming player in GameState order
+ *   short number of played cards p, then p bytes of their card ids
+ * </pre>
+ * <p>and finally the chunk index: one long per RECORDS_PER_CHUNK records,
+ * giving the file offset of the first record in that chunk, so readers can
+ * split the file between threads without scanning it.</p>
+ * @since 2.0
+ */
+public class TestCaseCorpus {
+
+    public static final int MAGIC = 0x554E4F43; // "UNOC"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 28;
+
+    /**
+     * Set in the header if every record carries a GameState snapshot.
+     */
+    public static final int FLAG_STATES = 1;
+
+    /**
+     * Stands in a snapshot for a player who has not yet called a color.
+     */
+    static final int NO_COLOR = 255;
+
+    /**
+     * How many records share one entry in the chunk index.
+     */
+    public static final int RECORDS_PER_CHUNK = 4096;
+
+    /**
+     * The largest hand a record can hold.
+     */
+    public static final int MAX_HAND_SIZE = 255;
+
+    /**
+     * The most bytes of records to map() at once, comfortably below the
+     * Integer.MAX_VALUE bytes a MappedByteBuffer can hold. Any one chunk
+     * is far smaller.
+     */
+    public static final int MAX_MAP_BYTES = 1 << 30;
+
+    /**
+     * The parts of a GameState a player can see, as plain arrays so they
+     * can be stored and read back without a Game.
+     */
+    public static class State {
+        public int numSeats;
+        public int[] numCards;
+        public int[] calledColors;
+        public int[] scores;
+        public int numPlayed;
+        public int[] played = new int[Card.NUM_IDS];
+
+        /**
+         * Create a State big enough to read any snapshot into.
+         */
+        public State() {
+            this(MAX_HAND_SIZE);
+        }
+
+        private State(int maxSeats) {
+            numCards = new int[maxSeats];
+            calledColors = new int[maxSeats];
+            scores = new int[maxSeats];
+        }
+
+        /**
+         * Take a snapshot of a GameState as it stands now.
+         */
+        public static State of(GameState gameState) {
+            int[] numCards = gameState.getNumCardsInHandsOfUpcomingPlayers();
+            int[] scores = gameState.getTotalScoreOfUpcomingPlayers();
+            UnoPlayer.Color[] colors =
+                gameState.getMostRecentColorCalledByUpcomingPlayers();
+            State state = new State(Math.min(numCards.length, MAX_HAND_SIZE));
+            state.numSeats = Math.min(numCards.length, MAX_HAND_SIZE);
+            for (int i=0; i<state.numSeats; i++) {
+                state.numCards[i] = Math.min(numCards[i], MAX_HAND_SIZE);
+                state.scores[i] = scores[i];
+                state.calledColors[i] =
+                    colors[i] == null ? NO_COLOR : colors[i].ordinal();
+            }
+            List<Card> played = gameState.getPlayedCards();
+            state.numPlayed = played.size();
+            state.played = new int[state.numPlayed];
+            for (int i=0; i<state.numPlayed; i++) {
+                state.played[i] = played.get(i).getId();
+            }
+            return state;
+        }
+
+        /**
+         * Return a GameState showing what this snapshot holds.
+         */
+        public GameState toGameState() {
+            UnoPlayer.Color[] colors = new UnoPlayer.Color[numSeats];
+            for (int i=0; i<numSeats; i++) {
+                if (calledColors[i] != NO_COLOR) {
+                    colors[i] = UnoPlayer.Color.values()[calledColors[i]];
+                }
+            }
+            List<Card> playedCards = new ArrayList<Card>(numPlayed);
+            for (int i=0; i<numPlayed; i++) {
+                playedCards.add(Card.forId(played[i]));
+            }
+            return new GameState(Arrays.copyOf(numCards, numSeats), colors,
+                Arrays.copyOf(scores, numSeats), playedCards);
+        }
+
+        void read(ByteBuffer buf) {
+            numSeats = buf.get() & 0xFF;
+            for (int i=0; i<numSeats; i++) {
+                numCards[i] = buf.get() & 0xFF;
+                calledColors[i] = buf.get() & 0xFF;
+                scores[i] = buf.getInt();
+            }
+            numPlayed = buf.getShort() & 0xFFFF;
+            if (played.length < numPlayed) {
+                played = new int[numPlayed];
+            }
+            for (int i=0; i<numPlayed; i++) {
+                played[i] = buf.get() & 0xFF;
+            }
+        }
+    }
+
+    /**
+     * A single decoded test case. Readers reuse one Record for every case
+     * they decode, so nothing is allocated per case.
+     */
+    public static class Record {
+        public int handSize;
+        public int[] hand = new int[MAX_HAND_SIZE];
+        public int upCard;
+        public int calledColor;
+        private byte[] validMask = new byte[(MAX_HAND_SIZE + 8) / 8];
+
+        /**
+         * The GameState snapshot of the case, or null if the corpus has
+         * none.
+         */
+        public State state;
+
+        /**
+         * Create a Record for reading a corpus without GameState snapshots.
+         */
+        public Record() {
+            this(false);
+        }
+
+        /**
+         * Create a Record for reading a corpus, with or without GameState
+         * snapshots (see TestCaseCorpus.hasStates()).
+         */
+        public Record(boolean withStates) {
+            if (withStates) {
+                state = new State();
+            }
+        }
+
+        /**
+         * Return the GameState the player was shown, or a blank one if the
+         * corpus does not record them.
+         */
+        public GameState getGameState() {
+            return state != null ? state.toGameState() : new GameState();
+        }
+
+        /**
+         * Returns true only if the play passed (a card index, or -1 to draw)
+         * is one of this case's valid plays.
+         */
+        public boolean isValid(int play) {
+            int bit = play + 1;
+            if (bit < 0 || bit > handSize) {
+                return false;
+            }
+            return (validMask[bit >> 3] & (1 << (bit & 7))) != 0;
+        }
+
+        /**
+         * Read the next record from the buffer passed into this object.
+         */
+        public void read(ByteBuffer buf) {
+            handSize = buf.get() & 0xFF;
+            for (int i=0; i<handSize; i++) {
+                hand[i] = buf.get() & 0xFF;
+            }
+            upCard = buf.get() & 0xFF;
+            calledColor = buf.get() & 0xFF;
+            buf.get(validMask, 0, maskBytes(handSize));
+            if (state != null) {
+                state.read(buf);
+            }
+        }
+    }
+
+    private static int maskBytes(int handSize) {
+        return (handSize + 8) / 8;
+    }
+
+    /**
+     * <p>Writes a corpus file one record at a time, holding only a small
+     * buffer and the chunk index in memory.</p>
+     */
+    public static class Writer implements java.io.Closeable {
+
+        private File file;
+        private DataOutputStream out;
+        private long position = HEADER_SIZE;
+        private long numRecords = 0;
+        private ArrayList<Long> chunkOffsets = new ArrayList<Long>();
+        private byte[] mask = new byte[(MAX_HAND_SIZE + 8) / 8];
+        private boolean withStates;
+
+        /**
+         * Create a corpus file without GameState snapshots.
+         */
+        public Writer(File file) throws IOException {
+            this(file, false);
+        }
+
+        /**
+         * Create a corpus file, with or without GameState snapshots. If
+         * with, every record must be written with one.
+         */
+        public Writer(File file, boolean withStates) throws IOException {
+            this.file = file;
+            this.withStates = withStates;
+            out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file), 1 << 16));
+            out.write(new byte[HEADER_SIZE]);
+        }
+
+        /**
+         * Append one test case.
+         * @param hand The card ids of the hand, of which the first handSize
+         * are used.
+         * @param valid Whether each play is valid: valid[0] for -1 (draw),
+         * valid[i+1] for card i.
+         */
+        public void write(int[] hand, int handSize, int upCard,
+            int calledColor, boolean[] valid) throws IOException {
+            write(hand, handSize, upCard, calledColor, valid, null);
+        }
+
+        /**
+         * Append one test case along with the GameState snapshot the
+         * player was shown.
+         */
+        public void write(int[] hand, int handSize, int upCard,
+            int calledColor, boolean[] valid, State state)
+            throws IOException {
+            if ((state != null) != withStates) {
+                throw new IllegalArgumentException(withStates ?
+                    "Every test case in this corpus needs a GameState." :
+                    "This corpus does not hold GameStates.");
+            }
+            if (handSize > MAX_HAND_SIZE) {
+                throw new IllegalArgumentException("Hand of " + handSize +
+                    " cards is too big for a test case.");
+            }
+            if (numRecords % RECORDS_PER_CHUNK == 0) {
+                chunkOffsets.add(position);
+            }
+            out.writeByte(handSize);
+            for (int i=0; i<handSize; i++) {
+                out.writeByte(hand[i]);
+            }
+            out.writeByte(upCard);
+            out.writeByte(calledColor);
+            int maskBytes = maskBytes(handSize);
+            java.util.Arrays.fill(mask, 0, maskBytes, (byte) 0);
+            for (int bit=0; bit<=handSize; bit++) {
+                if (valid[bit]) {
+                    mask[bit >> 3] |= 1 << (bit & 7);
+                }
+            }
+            out.write(mask, 0, maskBytes);
+            position += 3 + handSize + maskBytes;
+            if (state != null) {
+                out.writeByte(state.numSeats);
+                for (int i=0; i<state.numSeats; i++) {
+                    out.writeByte(state.numCards[i]);
+                    out.writeByte(state.calledColors[i]);
+                    out.writeInt(state.scores[i]);
+                }
+                out.writeShort(state.numPlayed);
+                for (int i=0; i<state.numPlayed; i++) {
+                    out.writeByte(state.played[i]);
+                }
+                position += 3 + 6 * state.numSeats + state.numPlayed;
+            }
+            numRecords++;
+        }
+
+        /**
+         * Write the chunk index and the header, and close the file.
+         */
+        public void close() throws IOException {
+            for (long offset : chunkOffsets) {
+                out.writeLong(offset);
+            }
+            out.close();
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            raf.writeInt(MAGIC);
+            raf.writeInt(VERSION);
+            raf.writeInt(withStates ? FLAG_STATES : 0);
+            raf.writeLong(numRecords);
+            raf.writeLong(position);
+            raf.close();
+        }
+    }
+
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private int flags;
+    private long numRecords;
+    private long indexOffset;
+    private long[] chunkOffsets;
+
+    /**
+     * Open a corpus file for reading.
+     */
+    public TestCaseCorpus(File file) throws IOException {
+        raf = new RandomAccessFile(file, "r");
+        if (raf.readInt() != MAGIC || raf.readInt() != VERSION) {
+            raf.close();
+            throw new IOException(file + " is not a test case corpus.");
+        }
+        flags = raf.readInt();
+        numRecords = raf.readLong();
+        indexOffset = raf.readLong();
+        channel = raf.getChannel();
+        int numChunks =
+            (int) ((numRecords + RECORDS_PER_CHUNK - 1) / RECORDS_PER_CHUNK);
+        chunkOffsets = new long[numChunks + 1];
+        ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY,
+            indexOffset, 8L * numChunks);
+        for (int i=0; i<numChunks; i++) {
+            chunkOffsets[i] = index.getLong();
+        }
+        chunkOffsets[numChunks] = indexOffset;
+    }
+
+    /**
+     * Return true if every test case carries a GameState snapshot.
+     */
+    public boolean hasStates() {
+        return (flags & FLAG_STATES) != 0;
+    }
+
+    /**
+     * Return the number of test cases in the corpus.
+     */
+    public long getNumRecords() {
+        return numRecords;
+    }
+
+    /**
+     * Return the number of chunks the corpus is divided into.
+     */
+    public int getNumChunks() {
+        return chunkOffsets.length - 1;
+    }
+
+    /**
+     * Return the number of records in the chunks from firstChunk up to (but
+     * not including) lastChunk.
+     */
+    public long getNumRecords(int firstChunk, int lastChunk) {
+        return Math.min(numRecords, (long) lastChunk * RECORDS_PER_CHUNK) -
+            (long) firstChunk * RECORDS_PER_CHUNK;
+    }
+
+    /**
+     * Return the end of a range of chunks to map at once: up to maxChunks
+     * chunks from firstChunk, but no more than fit in MAX_MAP_BYTES (and
+     * always at least one), so that map() can map the range.
+     * @return One past the last chunk of the range.
+     */
+    public int getRangeEnd(int firstChunk, int maxChunks) {
+        int lastChunk = firstChunk + 1;
+        while (lastChunk < getNumChunks() &&
+            lastChunk - firstChunk < maxChunks &&
+            chunkOffsets[lastChunk + 1] - chunkOffsets[firstChunk] <=
+            MAX_MAP_BYTES) {
+            lastChunk++;
+        }
+        return lastChunk;
+    }
+
+    /**
+     * Memory-map the records of a range of chunks. The range must span no
+     * more than MAX_MAP_BYTES; see getRangeEnd().
+     * @param firstChunk The first chunk to map.
+     * @param lastChunk One past the last chunk to map.
+     */
+    public MappedByteBuffer map(int firstChunk, int lastChunk)
+        throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY,
+            chunkOffsets[firstChunk],
+            chunkOffsets[lastChunk] - chunkOffsets[firstChunk]);
+    }
+
+    /**
+     * Close the corpus file.
+     */
+    public void close() throws IOException {
+        raf.close();
+    }
+}
@@ -0,0 +1,365 @@
+package uno;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Generates test cases for TestCaseProcessor from real games. The
+ * players in players.txt play seeded games on one thread per processor.
+ * Whenever one of them is asked to play, the position they were shown
+ * (their hand, the up card and the called color) is kept with probability
+ * samplingRate, along with its valid plays as determined by
+ * Card.canPlayOn(). Positions that come up rarely in ordinary play (a
+ * wild on top of a wild, or a hand of HUGE_HAND_SIZE cards or more) are
+ * always kept, so even small samples contain plenty of them.</p>
+ *
+ * <p>Positions are written as they are generated, in the text format of
+ * testCases.txt or (for any file name not ending in ".txt") the binary
+ * format of TestCaseCorpus. Binary corpora also record the GameState each
+ * player was shown, for StrategyEvaluator. Memory use does not depend on
+ * the number of positions asked for.</p>
+ * @since 2.0
+ */
+public class TestCaseGenerator {
+
+    public static final String PLAYER_FILENAME = "players.txt";
+
+    /**
+     * Hands of at least this many cards are always sampled.
+     */
+    public static final int HUGE_HAND_SIZE = 15;
+
+    /**
+     * The number of positions handed from a game thread to the writer at a
+     * time.
+     */
+    static final int BATCH_SIZE = 1024;
+
+    /**
+     * The number of full batches that may be waiting for the writer before
+     * game threads have to wait too. This is what bounds memory use.
+     */
+    static final int MAX_QUEUED_BATCHES = 16;
+
+    private static ArrayList<String> playerNames = new ArrayList<String>();
+    private static ArrayList<String> playerClasses = new ArrayList<String>();
+
+    /**
+     * A batch of sampled positions, stored as flat arrays of card ids.
+     */
+    private static class Batch {
+        int size = 0;
+        int[][] hands = new int[BATCH_SIZE][];
+        int[] upCards = new int[BATCH_SIZE];
+        int[] calledColors = new int[BATCH_SIZE];
+        boolean[][] valid = new boolean[BATCH_SIZE][];
+        TestCaseCorpus.State[] states = new TestCaseCorpus.State[BATCH_SIZE];
+    }
+
+    private long numPositions;
+    private double samplingRate;
+    private long seed;
+    private AtomicLong positionsClaimed = new AtomicLong();
+    private AtomicLong gamesClaimed = new AtomicLong();
+    private ArrayBlockingQueue<Batch> fullBatches =
+        new ArrayBlockingQueue<Batch>(MAX_QUEUED_BATCHES);
+    private UnoPlayer[] players;
+
+    /**
+     * Generate test cases. Usage:
+     * <pre>
+     * TestCaseGenerator numberOfPositions outputFile [samplingRate] [seed]
+     * </pre>
+     * The sampling rate must be greater than 0, and defaults to 0.05; the
+     * seed defaults to 0. Game number i is dealt with seed + i.
+     */
+    public static void main(String args[]) {
+        if (args.length < 2  ||  args.length > 4) {
+            System.out.println("Usage: TestCaseGenerator numberOfPositions outputFile [samplingRate] [seed]");
+            System.exit(1);
+        }
+        double samplingRate = args.length > 2 ?
+            Double.parseDouble(args[2]) : 0.05;
+        if (!(samplingRate > 0)) {
+            // Games would go on forever waiting for positions to sample.
+            System.out.println("The sampling rate must be greater than 0.");
+            System.exit(1);
+        }
+        try {
+            loadPlayerData();
+            TestCaseGenerator generator = new TestCaseGenerator(
+                Long.parseLong(args[0]), samplingRate,
+                args.length > 3 ? Long.parseLong(args[3]) : 0);
+            long startTime = System.nanoTime();
+            long numGames = generator.generate(new File(args[1]));
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            System.out.println(String.format(
+                "%d positions from %d games in %.2f seconds (%.0f positions/sec).",
+                generator.numPositions, numGames, seconds,
+                generator.numPositions / seconds));
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private TestCaseGenerator(long numPositions, double samplingRate,
+        long seed) {
+        this.numPositions = numPositions;
+        this.samplingRate = samplingRate;
+        this.seed = seed;
+        players = new UnoPlayer[playerClasses.size()];
+        for (int i=0; i<players.length; i++) {
+            players[i] = PerThreadUnoPlayer.forClass(playerClasses.get(i));
+        }
+    }
+
+    /**
+     * Play games until enough positions have been written to the file.
+     * @return The number of games played.
+     */
+    private long generate(File file) throws Exception {
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        Thread[] threads = new Thread[numThreads];
+        for (int t=0; t<numThreads; t++) {
+            threads[t] = new Thread(new Runnable() {
+                public void run() {
+                    playGames();
+                }
+            });
+            threads[t].start();
+        }
+        long written = 0;
+        if (file.getName().endsWith(".txt")) {
+            BufferedWriter out = new BufferedWriter(new FileWriter(file),
+                1 << 16);
+            while (written < numPositions) {
+                Batch batch = fullBatches.take();
+                for (int i=0; i<batch.size; i++) {
+                    writeText(out, batch, i);
+                }
+                written += batch.size;
+            }
+            out.close();
+        }
+        else {
+            TestCaseCorpus.Writer out = new TestCaseCorpus.Writer(file, true);
+            while (written < numPositions) {
+                Batch batch = fullBatches.take();
+                for (int i=0; i<batch.size; i++) {
+                    out.write(batch.hands[i], batch.hands[i].length,
+                        batch.upCards[i], batch.calledColors[i],
+                        batch.valid[i], batch.states[i]);
+                }
+                written += batch.size;
+            }
+            out.close();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return gamesClaimed.get();
+    }
+
+    private static void writeText(BufferedWriter out, Batch batch, int i)
+        throws IOException {
+        int[] hand = batch.hands[i];
+        for (int j=0; j<hand.length; j++) {
+            if (j > 0) {
+                out.write(",");
+            }
+            writeCard(out, Card.forId(hand[j]));
+        }
+        out.newLine();
+        writeCard(out, Card.forId(batch.upCards[i]));
+        out.newLine();
+        out.write(UnoPlayer.Color.values()[batch.calledColors[i]].toString());
+        out.newLine();
+        String separator = "";
+        for (int play=-1; play<hand.length; play++) {
+            if (batch.valid[i][play + 1]) {
+                out.write(separator + play);
+                separator = ",";
+            }
+        }
+        out.newLine();
+        out.write("-------");
+        out.newLine();
+    }
+
+    private static void writeCard(BufferedWriter out, Card card)
+        throws IOException {
+        out.write(card.getColor() + " " + card.getRank() + " " +
+            card.getNumber());
+    }
+
+    /**
+     * Body of each game thread: play seeded games, with every seat's
+     * player wrapped so its positions can be sampled, until enough
+     * positions have been claimed.
+     */
+    private void playGames() {
+        Batch[] batch = { new Batch() };
+        Random sampler = new Random();
+        UnoPlayer[] samplingPlayers = new UnoPlayer[players.length];
+        String[] names = playerNames.toArray(new String[0]);
+        Scoreboard s = new Scoreboard(names);
+        while (positionsClaimed.get() < numPositions) {
+            // Wrapped afresh for every game, so that a player that keeps
+            // state gets a new instance for each (see PerThreadUnoPlayer).
+            for (int i=0; i<players.length; i++) {
+                samplingPlayers[i] = new SamplingPlayer(
+                    PerThreadUnoPlayer.forGame(players[i]), batch, sampler);
+            }
+            long gameNumber = gamesClaimed.getAndIncrement();
+            sampler.setSeed(~(seed + gameNumber));
+            Game g = new Game(s, samplingPlayers, seed + gameNumber);
+            g.play();
+        }
+        if (batch[0] != null && batch[0].size > 0) {
+            hand(batch[0]);
+        }
+    }
+
+    /**
+     * A seat's player, wrapped so that the positions it is asked to play
+     * can be sampled. It is played through UnoPlayerV2, as the player it
+     * wraps would be, so that every call the engine makes (playDrawnCard()
+     * included, for an UnoPlayerV2 or a DrawnCardPlayer) reaches that
+     * player just as it would unwrapped.
+     */
+    private class SamplingPlayer implements StatelessUnoPlayer, UnoPlayerV2 {
+
+        private final UnoPlayer player;
+        private final UnoPlayerV2 strategy;
+        private final Batch[] batch;
+        private final Random sampler;
+
+        /**
+         * @param batch The game thread's current batch, in a one-element
+         * array shared by every seat on the thread.
+         * @param sampler The game thread's random number generator.
+         */
+        SamplingPlayer(UnoPlayer player, Batch[] batch, Random sampler) {
+            this.player = player;
+            this.strategy = player instanceof UnoPlayerV2 ?
+                (UnoPlayerV2) player : new LegacyUnoPlayerAdapter(player);
+            this.batch = batch;
+            this.sampler = sampler;
+        }
+
+        public int play(HandView hand, int upCard, int calledColor,
+            long legalMoves, GameState state) {
+            List<Card> cards = hand.getCards();
+            Card up = Card.forId(upCard);
+            if (shouldSample(sampler, cards, up)) {
+                batch[0] = sample(batch[0], cards, up,
+                    Color.values()[calledColor], state);
+            }
+            return strategy.play(hand, upCard, calledColor, legalMoves,
+                state);
+        }
+
+        public int playDrawnCard(HandView hand, int upCard, int calledColor,
+            GameState state) {
+            return strategy.playDrawnCard(hand, upCard, calledColor, state);
+        }
+
+        public int callColor(HandView hand, GameState state) {
+            return strategy.callColor(hand, state);
+        }
+
+        public int play(List<Card> hand, Card upCard, Color calledColor,
+            GameState state) {
+            return player.play(hand, upCard, calledColor, state);
+        }
+
+        public Color callColor(List<Card> hand) {
+            return player.callColor(hand);
+        }
+
+        public Color callColor(List<Card> hand, GameState state) {
+            return player.callColor(hand, state);
+        }
+    }
+
+    private boolean shouldSample(Random sampler, List<Card> hand,
+        Card upCard) {
+        if (hand.size() >= HUGE_HAND_SIZE) {
+            return true;
+        }
+        if (upCard.followedByCall()) {
+            for (Card card : hand) {
+                if (card.followedByCall()) {
+                    return true;
+                }
+            }
+        }
+        return sampler.nextDouble() < samplingRate;
+    }
+
+    /**
+     * Add a position to the batch, handing the batch to the writer once it
+     * is full.
+     * @return The batch to add the next position to, or null if no more
+     * positions are needed.
+     */
+    private Batch sample(Batch batch, List<Card> hand, Card upCard,
+        UnoPlayer.Color calledColor, GameState state) {
+        if (batch == null) {
+            return null;
+        }
+        if (positionsClaimed.getAndIncrement() >= numPositions) {
+            if (batch.size > 0) {
+                hand(batch);
+            }
+            return null;
+        }
+        int n = hand.size();
+        int[] ids = new int[n];
+        boolean[] valid = new boolean[n + 1];
+        boolean anyValid = false;
+        for (int j=0; j<n; j++) {
+            ids[j] = hand.get(j).getId();
+            valid[j + 1] = hand.get(j).canPlayOn(upCard, calledColor);
+            anyValid |= valid[j + 1];
+        }
+        valid[0] = !anyValid;
+        int i = batch.size++;
+        batch.hands[i] = ids;
+        batch.upCards[i] = upCard.getId();
+        batch.calledColors[i] = calledColor.ordinal();
+        batch.valid[i] = valid;
+        batch.states[i] = TestCaseCorpus.State.of(state);
+        if (batch.size == BATCH_SIZE) {
+            hand(batch);
+            return new Batch();
+        }
+        return batch;
+    }
+
+    /**
+     * Pass a batch to the writer, waiting if too many are already queued.
+     */
+    private void hand(Batch batch) {
+        try {
+            fullBatches.put(batch);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void loadPlayerData() throws Exception {
+        Roster roster = Roster.load(PLAYER_FILENAME);
+        playerNames.addAll(roster.getNames());
+        playerClasses.addAll(roster.getClasses());
+    }
+}
@@ -4,22 +4,55 @@ package uno;
  
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class TestCaseProcessor {
 
+    /**
+     * How many failures are described in full at the end of a run. The
+     * rest are only counted.
+     */
+    public static final int MAX_REPORTED_FAILURES = 20;
+
+    /**
+     * Roughly how many pieces the corpus is split into per thread, so that
+     * threads that finish early can pick up more work.
+     */
+    static final int TASKS_PER_THREAD = 4;
+
     public String classname = "uno.sk_UnoPlayer";
     public String filename = "testCases.txt";
 
     private UnoPlayer thePlayer;
 
+    private AtomicLong numPlayFailures = new AtomicLong();
+    private AtomicLong numColorFailures = new AtomicLong();
+    private ConcurrentLinkedQueue<String> failureReports =
+        new ConcurrentLinkedQueue<String>();
+
 	public static void main(String args[]) {
 		try {
-            if (args.length != 1) {
-                System.out.println("Usage: TestCaseProcessor UnoPlayerClassName.");
+            if (args.length == 3  &&  args[0].equals("compile")) {
+                compile(new File(args[1]), new File(args[2]));
+                return;
+            }
+            if (args.length != 1  &&  args.length != 2) {
+                System.out.println("Usage: TestCaseProcessor UnoPlayerClassName [testCaseFile]");
+                System.out.println("       TestCaseProcessor compile testCases.txt testCases.bin");
                 System.exit(1);
             }
-			new TestCaseProcessor(args[0]).doIt();
+            TestCaseProcessor processor = new TestCaseProcessor(args[0]);
+            if (args.length == 2) {
+                processor.filename = args[1];
+            }
+			processor.doIt();
 		}
 		catch (Exception e) {
 			e.printStackTrace();
@@ -28,112 +61,182 @@ public class TestCaseProcessor {
 
 	private TestCaseProcessor(String classname) throws Exception {
         this.classname = classname;
-        thePlayer = (UnoPlayer) Class.forName("uno." + classname + "_UnoPlayer").newInstance();
+        thePlayer = PerThreadUnoPlayer.forClass("uno." + classname + "_UnoPlayer");
 	}
 
-	private void doIt() throws Exception {
-        int numHandsTested = 0;
-        BufferedReader br = new BufferedReader(new FileReader(filename));
+    /**
+     * Turn a text corpus (in the format of testCases.txt) into the binary
+     * format read by doIt(). See TestCaseCorpus for the layout.
+     */
+    static void compile(File textFile, File binaryFile) throws IOException {
+        BufferedReader br = new BufferedReader(new FileReader(textFile),
+            1 << 16);
+        TestCaseCorpus.Writer writer = new TestCaseCorpus.Writer(binaryFile);
+        int[] hand = new int[TestCaseCorpus.MAX_HAND_SIZE];
+        boolean[] valid = new boolean[TestCaseCorpus.MAX_HAND_SIZE + 1];
         String handLine = br.readLine();
         while (handLine != null) {
-            Scanner handLineScanner = new Scanner(handLine).
-                useDelimiter(",");
-            ArrayList<Card> hand = new ArrayList<Card>();
-            while (handLineScanner.hasNext()) {
-                String cardString = handLineScanner.next();
-                Scanner cardStringScanner = new Scanner(cardString);
-                Card card = new Card(
-                    UnoPlayer.Color.valueOf(cardStringScanner.next()),
-                    UnoPlayer.Rank.valueOf(cardStringScanner.next()),
-                    cardStringScanner.nextInt());
-                hand.add(card);
+            String[] cardStrings = handLine.split(",");
+            for (int i=0; i<cardStrings.length; i++) {
+                hand[i] = parseCard(cardStrings[i]).getId();
             }
-
-            String upCardLine = br.readLine();
-            Scanner upCardLineScanner = new Scanner(upCardLine);
-            Card upCard = new Card(
-                UnoPlayer.Color.valueOf(upCardLineScanner.next()),
-                UnoPlayer.Rank.valueOf(upCardLineScanner.next()),
-                upCardLineScanner.nextInt());
-            
-            String calledColorLine = br.readLine();
-            UnoPlayer.Color calledColor = UnoPlayer.Color.valueOf(calledColorLine);
-
-            ArrayList<Integer> validPlays = new ArrayList<Integer>();
-            String validPlaysLine = br.readLine();
-            Scanner validPlaysScanner =
-                new Scanner(validPlaysLine).useDelimiter(",");
-            while (validPlaysScanner.hasNextInt()) {
-                validPlays.add(new Integer(validPlaysScanner.nextInt()));
-            }
-            
-            testHand(hand,upCard,calledColor,validPlays);
-            numHandsTested++;
-
-            if (numHandsTested < 100  ||  numHandsTested % 100 == 0) {
-                System.out.println(numHandsTested + " test hands passed!");
+            int upCard = parseCard(br.readLine()).getId();
+            int calledColor =
+                UnoPlayer.Color.valueOf(br.readLine().trim()).ordinal();
+            Arrays.fill(valid, false);
+            for (String play : br.readLine().split(",")) {
+                if (!play.isEmpty()) {
+                    valid[Integer.parseInt(play.trim()) + 1] = true;
+                }
             }
+            writer.write(hand, cardStrings.length, upCard, calledColor,
+                valid);
 
             br.readLine(); // consume --------- delimiter
 
             handLine = br.readLine();
         }
-	}
-
-    private void testHand(
-        List<Card> hand, Card upCard, 
-        UnoPlayer.Color calledColor,
-        ArrayList<Integer> validPlays) throws Exception {
+        br.close();
+        writer.close();
+    }
 
-        int cardPlayed = 
-            thePlayer.play(hand, upCard, calledColor, new GameState());
+    private static Card parseCard(String cardString) {
+        String[] parts = cardString.trim().split(" ");
+        return new Card(UnoPlayer.Color.valueOf(parts[0]),
+            UnoPlayer.Rank.valueOf(parts[1]), Integer.parseInt(parts[2]));
+    }
 
-        if (!validPlays.contains(new Integer(cardPlayed))) {
-            System.out.println("Whoops -- your play() method has an error!");
-            System.out.println("You were given this hand:");
-            for (int i=0; i<hand.size(); i++) {
-                System.out.println("  " + i + ". " + hand.get(i));
+    /**
+     * Check every test case in the corpus, spread across one thread per
+     * processor, then report all failures and the overall throughput. A
+     * text corpus is first compiled to a binary one alongside it (unless an
+     * up-to-date one is already there).
+     */
+	private void doIt() throws Exception {
+        File corpusFile = new File(filename);
+        if (filename.endsWith(".txt")) {
+            File binaryFile = new File(filename.substring(0,
+                filename.length() - 4) + ".bin");
+            if (!binaryFile.exists() ||
+                binaryFile.lastModified() < corpusFile.lastModified()) {
+                compile(corpusFile, binaryFile);
             }
+            corpusFile = binaryFile;
+        }
+        final TestCaseCorpus corpus = new TestCaseCorpus(corpusFile);
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        int numChunks = corpus.getNumChunks();
+        int chunksPerTask = Math.max(1,
+            numChunks / (numThreads * TASKS_PER_THREAD));
+
+        long startTime = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        ArrayList<Future<?>> tasks = new ArrayList<Future<?>>();
+        for (int first=0; first<numChunks; ) {
+            final int firstChunk = first;
+            final int lastChunk = corpus.getRangeEnd(first, chunksPerTask);
+            first = lastChunk;
+            tasks.add(executor.submit(new Callable<Void>() {
+                public Void call() throws Exception {
+                    testChunks(corpus, firstChunk, lastChunk);
+                    return null;
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        executor.shutdown();
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        corpus.close();
 
-            System.out.println("and the up card was: " + upCard);
-            if (upCard.getRank() == UnoPlayer.Rank.WILD ||
-                upCard.getRank() == UnoPlayer.Rank.WILD_D4) {
-                System.out.println("and the called color was: " + calledColor);
-            }
-            System.out.println("and you (wrongly) returned " + 
-                cardPlayed + ".");
-            System.out.print("Valid plays would have included: ");
-            for (int i=0; i<validPlays.size(); i++) {
-                System.out.print(validPlays.get(i));
-                if (i<validPlays.size()-1) {
-                    System.out.print(",");
+        for (String report : failureReports) {
+            System.out.println(report);
+        }
+        long numFailures = numPlayFailures.get() + numColorFailures.get();
+        System.out.println(corpus.getNumRecords() + " test hands tested, " +
+            numFailures + " failed (" + numPlayFailures.get() +
+            " in play(), " + numColorFailures.get() + " in callColor()).");
+        System.out.println(String.format("%.2f seconds, %.0f hands/sec.",
+            seconds, corpus.getNumRecords() / seconds));
+        if (numPlayFailures.get() > 0) {
+            System.exit(3);
+        }
+        if (numColorFailures.get() > 0) {
+            System.exit(4);
+        }
+	}
+
+    private void testChunks(TestCaseCorpus corpus, int firstChunk,
+        int lastChunk) throws IOException {
+        ByteBuffer buf = corpus.map(firstChunk, lastChunk);
+        long numRecords = corpus.getNumRecords(firstChunk, lastChunk);
+        TestCaseCorpus.Record r = new TestCaseCorpus.Record(corpus.hasStates());
+        for (long i=0; i<numRecords; i++) {
+            r.read(buf);
+            testHand(r);
+        }
+    }
+
+    private void testHand(TestCaseCorpus.Record r) {
+        List<Card> hand = new ArrayList<Card>(r.handSize);
+        for (int i=0; i<r.handSize; i++) {
+            hand.add(Card.forId(r.hand[i]));
+        }
+        Card upCard = Card.forId(r.upCard);
+        UnoPlayer.Color calledColor = UnoPlayer.Color.values()[r.calledColor];
+        GameState state = r.getGameState();
+
+        int cardPlayed = 
+            thePlayer.play(hand, upCard, calledColor, state);
+
+        if (!r.isValid(cardPlayed)) {
+            if (numPlayFailures.incrementAndGet() + numColorFailures.get() <=
+                MAX_REPORTED_FAILURES) {
+                StringBuilder report = new StringBuilder();
+                report.append("Whoops -- your play() method has an error!\n");
+                describeHand(report, r, hand, upCard, calledColor);
+                report.append("and you (wrongly) returned " + cardPlayed +
+                    ".\n");
+                report.append("Valid plays would have included: ");
+                String separator = "";
+                for (int play=-1; play<r.handSize; play++) {
+                    if (r.isValid(play)) {
+                        report.append(separator + play);
+                        separator = ",";
+                    }
                 }
+                failureReports.add(report.toString());
             }
-            System.out.println();
-            System.exit(3);
+            return;
         }
 
-        UnoPlayer.Color color = thePlayer.callColor(hand);
+        UnoPlayer.Color color = thePlayer.callColor(hand, state);
 
         if (color != UnoPlayer.Color.RED  &&  color != UnoPlayer.Color.BLUE  &&  color !=
             UnoPlayer.Color.GREEN  &&  color != UnoPlayer.Color.YELLOW) {
 
-            System.out.println("Whoops -- your callColor() method has an error!");
-            System.out.println("You were given this hand:");
-            for (int i=0; i<hand.size(); i++) {
-                System.out.println("  " + i + ". " + hand.get(i));
+            if (numColorFailures.incrementAndGet() + numPlayFailures.get() <=
+                MAX_REPORTED_FAILURES) {
+                StringBuilder report = new StringBuilder();
+                report.append("Whoops -- your callColor() method has an error!\n");
+                describeHand(report, r, hand, upCard, calledColor);
+                report.append("and you (wrongly) returned " + color + ".");
+                failureReports.add(report.toString());
             }
+        }
+    }
 
-            System.out.println("and the up card was: " + upCard);
-            if (upCard.getRank() == UnoPlayer.Rank.WILD ||
-                upCard.getRank() == UnoPlayer.Rank.WILD_D4) {
-                System.out.println("and the called color was: " + calledColor);
-            }
-            System.out.println("and you (wrongly) returned " + color + ".");
-            System.exit(4);
+    private void describeHand(StringBuilder report, TestCaseCorpus.Record r,
+        List<Card> hand, Card upCard, UnoPlayer.Color calledColor) {
+        report.append("You were given this hand:\n");
+        for (int i=0; i<hand.size(); i++) {
+            report.append("  " + i + ". " + hand.get(i) + "\n");
+        }
+        report.append("and the up card was: " + upCard + "\n");
+        if (upCard.getRank() == UnoPlayer.Rank.WILD ||
+            upCard.getRank() == UnoPlayer.Rank.WILD_D4) {
+            report.append("and the called color was: " + calledColor + "\n");
         }
-        
     }
 }
-
-
@@ -0,0 +1,374 @@
+package uno;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>A round-robin tournament between every player in players.txt. Every
+ * combination of tableSize players (or, for rosters too big for that, a
+ * random sample of maxTables combinations) sits down at a table once per
+ * seat rotation, so each of them plays from every seat, and each rotation
+ * plays the same gamesPerTable deals. Tables are played in parallel, one
+ * per worker thread, and each table's results update the players' Elo
+ * ratings as soon as it finishes.</p>
+ *
+ * <p>A game is scored as a win for its winner over each of the other
+ * players at the table (and nothing between the players who lost). The
+ * final ranking orders players by performance rating -- the rating
+ * implied by their share of those pairwise results against the final
+ * ratings of the opponents they met, averaged over the pairwise results
+ * against each, which unlike the running Elo rating does not depend on
+ * the order tables finished in -- and shows a 95% confidence interval on
+ * it. The results of one game are not independent of each other, so the
+ * interval counts games played rather than pairwise results.</p>
+ * @since 2.0
+ */
+public class Tournament {
+
+    public static final String PLAYER_FILENAME = "players.txt";
+
+    public static final double INITIAL_RATING = 1500;
+
+    /**
+     * How far one pairwise result moves a rating, before it is divided
+     * among the opponents at the table.
+     */
+    public static final double K_FACTOR = 16;
+
+    /**
+     * The number of standard errors either side of a performance rating
+     * its confidence interval spans (95%).
+     */
+    static final double Z = 1.96;
+
+    /**
+     * The most tables played unless more are asked for. Rosters with more
+     * combinations than this are sampled.
+     */
+    public static final int DEFAULT_MAX_TABLES = 20000;
+
+    private static ArrayList<String> playerNames = new ArrayList<String>();
+    private static ArrayList<String> playerClasses = new ArrayList<String>();
+
+    private UnoPlayer[] players;
+    private int tableSize;
+    private int gamesPerTable;
+    private long seed;
+
+    private double[] ratings;
+    private long[] gamesPlayed;
+    private long[] gamesWon;
+    private long[] pairwiseWins;
+    private long[] pairwiseGames;
+
+    /**
+     * The number of pairwise results between each pair of players.
+     */
+    private long[][] pairGames;
+    private volatile boolean aborted = false;
+
+    /**
+     * Run a tournament. Usage:
+     * <pre>
+     * Tournament gamesPerTable [tableSize] [maxTables] [seed]
+     * </pre>
+     * The table size defaults to 4. If the roster has more than maxTables
+     * (default DEFAULT_MAX_TABLES) combinations of tableSize players, that
+     * many combinations are drawn at random instead.
+     */
+    public static void main(String args[]) {
+        if (args.length < 1  ||  args.length > 4) {
+            System.out.println("Usage: Tournament gamesPerTable [tableSize] [maxTables] [seed]");
+            System.exit(1);
+        }
+        try {
+            loadPlayerData();
+            int gamesPerTable = Integer.parseInt(args[0]);
+            int tableSize = args.length > 1 ? Integer.parseInt(args[1]) :
+                Math.min(4, playerNames.size());
+            int maxTables = args.length > 2 ? Integer.parseInt(args[2]) :
+                DEFAULT_MAX_TABLES;
+            long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+            if (tableSize < 2 || tableSize > playerNames.size()) {
+                System.out.println("Tables must seat between 2 and " +
+                    playerNames.size() + " players.");
+                System.exit(1);
+            }
+            Tournament tournament = new Tournament(tableSize, gamesPerTable,
+                seed);
+            ArrayList<int[]> tables = tournament.chooseTables(maxTables);
+            long startTime = System.nanoTime();
+            if (!tournament.play(tables)) {
+                return;
+            }
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            tournament.printRanking();
+            long numGames = (long) tables.size() * tableSize * gamesPerTable;
+            System.out.println(String.format(
+                "%d tables, %d games in %.2f seconds (%.0f games/sec).",
+                tables.size(), numGames, seconds, numGames / seconds));
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private Tournament(int tableSize, int gamesPerTable, long seed) {
+        this.tableSize = tableSize;
+        this.gamesPerTable = gamesPerTable;
+        this.seed = seed;
+        int n = playerClasses.size();
+        players = new UnoPlayer[n];
+        for (int i=0; i<n; i++) {
+            players[i] = PerThreadUnoPlayer.forClass(playerClasses.get(i));
+        }
+        ratings = new double[n];
+        Arrays.fill(ratings, INITIAL_RATING);
+        gamesPlayed = new long[n];
+        gamesWon = new long[n];
+        pairwiseWins = new long[n];
+        pairwiseGames = new long[n];
+        pairGames = new long[n][n];
+    }
+
+    /**
+     * Return the tables to play: every combination of tableSize players if
+     * there are no more than maxTables of them, otherwise maxTables
+     * distinct combinations drawn at random.
+     */
+    private ArrayList<int[]> chooseTables(int maxTables) {
+        int n = players.length;
+        ArrayList<int[]> tables = new ArrayList<int[]>();
+        if (numCombinations(n, tableSize) <= maxTables) {
+            int[] table = new int[tableSize];
+            for (int i=0; i<tableSize; i++) {
+                table[i] = i;
+            }
+            while (true) {
+                tables.add(table.clone());
+                int i = tableSize - 1;
+                while (i >= 0 && table[i] == n - tableSize + i) {
+                    i--;
+                }
+                if (i < 0) {
+                    return tables;
+                }
+                table[i]++;
+                for (int j=i+1; j<tableSize; j++) {
+                    table[j] = table[j - 1] + 1;
+                }
+            }
+        }
+        Random rand = new Random(seed);
+        HashSet<String> chosen = new HashSet<String>();
+        ArrayList<Integer> roster = new ArrayList<Integer>();
+        for (int i=0; i<n; i++) {
+            roster.add(i);
+        }
+        while (tables.size() < maxTables) {
+            Collections.shuffle(roster, rand);
+            int[] table = new int[tableSize];
+            for (int i=0; i<tableSize; i++) {
+                table[i] = roster.get(i);
+            }
+            Arrays.sort(table);
+            if (chosen.add(Arrays.toString(table))) {
+                tables.add(table);
+            }
+        }
+        return tables;
+    }
+
+    private static double numCombinations(int n, int k) {
+        double c = 1;
+        for (int i=0; i<k; i++) {
+            c = c * (n - i) / (i + 1);
+        }
+        return c;
+    }
+
+    /**
+     * Play every rotation of every table on one worker per processor.
+     * @return false if some game ended in an illegal play.
+     */
+    private boolean play(final ArrayList<int[]> tables) throws Exception {
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        final AtomicInteger tablesDone = new AtomicInteger();
+        final int reportEvery = Math.max(1, tables.size() / 10);
+        for (int t=0; t<tables.size(); t++) {
+            final int tableNumber = t;
+            executor.execute(new Runnable() {
+                public void run() {
+                    if (aborted) {
+                        return;
+                    }
+                    playTable(tableNumber, tables.get(tableNumber));
+                    int done = tablesDone.incrementAndGet();
+                    if (done % reportEvery == 0 && done < tables.size()) {
+                        System.out.println(done + " of " + tables.size() +
+                            " tables played; leader: " + leader());
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        return !aborted;
+    }
+
+    /**
+     * Play every seat rotation of one table, then add its results to the
+     * ratings.
+     */
+    private void playTable(int tableNumber, int[] table) {
+        String[] names = new String[tableSize];
+        UnoPlayer[] seats = new UnoPlayer[tableSize];
+        int[] seated = new int[tableSize];
+        int[] winners = new int[tableSize * gamesPerTable];
+        int numResults = 0;
+        for (int rotation=0; rotation<tableSize; rotation++) {
+            for (int s=0; s<tableSize; s++) {
+                seated[s] = table[(s + rotation) % tableSize];
+                names[s] = playerNames.get(seated[s]);
+                seats[s] = players[seated[s]];
+            }
+            Scoreboard scoreboard = new Scoreboard(names);
+            long[] lastWins = new long[tableSize];
+            for (int g=0; g<gamesPerTable && !aborted; g++) {
+                // Every rotation plays the same deals.
+                long gameSeed = seed + (long) tableNumber * gamesPerTable + g;
+                if (!new Game(scoreboard, seats, gameSeed).play()) {
+                    System.out.println("Illegal play. Aborting.");
+                    aborted = true;
+                    return;
+                }
+                // A win can be worth 0 points, so look for the win itself.
+                for (int s=0; s<tableSize; s++) {
+                    if (scoreboard.getWins(s) != lastWins[s]) {
+                        lastWins[s] = scoreboard.getWins(s);
+                        winners[numResults++] = seated[s];
+                    }
+                }
+            }
+        }
+        recordResults(table, winners, numResults);
+    }
+
+    /**
+     * Update the ratings with a table's games, one game at a time: each
+     * game's winner beat every other player at the table.
+     */
+    private synchronized void recordResults(int[] table, int[] winners,
+        int numResults) {
+        double k = K_FACTOR / (tableSize - 1);
+        for (int r=0; r<numResults; r++) {
+            int winner = winners[r];
+            gamesWon[winner]++;
+            pairwiseWins[winner] += tableSize - 1;
+            for (int loser : table) {
+                if (loser == winner) {
+                    continue;
+                }
+                pairwiseGames[winner]++;
+                pairwiseGames[loser]++;
+                pairGames[winner][loser]++;
+                pairGames[loser][winner]++;
+                double expected = 1 / (1 + Math.pow(10,
+                    (ratings[loser] - ratings[winner]) / 400));
+                ratings[winner] += k * (1 - expected);
+                ratings[loser] -= k * (1 - expected);
+            }
+        }
+        for (int p : table) {
+            gamesPlayed[p] += numResults;
+        }
+    }
+
+    private synchronized String leader() {
+        int best = 0;
+        for (int i=1; i<ratings.length; i++) {
+            if (ratings[i] > ratings[best]) {
+                best = i;
+            }
+        }
+        return playerNames.get(best) + String.format(" (%.0f)", ratings[best]);
+    }
+
+    /**
+     * Print the players in order of performance rating, with its
+     * confidence interval and their Elo rating.
+     */
+    private synchronized void printRanking() {
+        Integer[] order = new Integer[players.length];
+        for (int i=0; i<order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                return Double.compare(performanceInterval(b)[0],
+                    performanceInterval(a)[0]);
+            }
+        });
+        System.out.println(String.format("%-4s %-20s %7s %18s %10s %7s",
+            "Rank", "Player", "Elo", "Performance (95%)", "Games", "Won"));
+        for (int r=0; r<order.length; r++) {
+            int p = order[r];
+            double[] interval = performanceInterval(p);
+            System.out.println(String.format(
+                "%-4d %-20s %7.0f %6.0f [%4.0f,%4.0f] %10d %6.2f%%", r + 1,
+                playerNames.get(p), ratings[p], interval[0], interval[1],
+                interval[2], gamesPlayed[p],
+                gamesPlayed[p] == 0 ? 0 : 100.0 * gamesWon[p] / gamesPlayed[p]));
+        }
+    }
+
+    /**
+     * Return a player's performance rating and the ends of its confidence
+     * interval, from the Wilson interval on their pairwise score. The
+     * interval takes each game played as one trial, since the pairwise
+     * results of a game all come from the same winner.
+     */
+    private double[] performanceInterval(int p) {
+        double n = gamesPlayed[p];
+        if (n == 0 || pairwiseGames[p] == 0) {
+            return new double[] { INITIAL_RATING, INITIAL_RATING,
+                INITIAL_RATING };
+        }
+        double score = pairwiseWins[p] / (double) pairwiseGames[p];
+        double center = (score + Z * Z / (2 * n)) / (1 + Z * Z / n);
+        double halfWidth = Z * Math.sqrt(score * (1 - score) / n +
+            Z * Z / (4 * n * n)) / (1 + Z * Z / n);
+        double opponents = 0;
+        for (int q=0; q<ratings.length; q++) {
+            opponents += pairGames[p][q] * ratings[q];
+        }
+        opponents /= pairwiseGames[p];
+        return new double[] { opponents + eloDifference(score),
+            opponents + eloDifference(center - halfWidth),
+            opponents + eloDifference(center + halfWidth) };
+    }
+
+    /**
+     * Return the rating difference at which a player is expected to score
+     * the given share of pairwise results, clamped to a finite range.
+     */
+    private static double eloDifference(double score) {
+        score = Math.max(1e-4, Math.min(1 - 1e-4, score));
+        return 400 * Math.log10(score / (1 - score));
+    }
+
+    private static void loadPlayerData() throws Exception {
+        Roster roster = Roster.load(PLAYER_FILENAME);
+        playerNames.addAll(roster.getNames());
+        playerClasses.addAll(roster.getClasses());
+    }
+}
@@ -63,5 +63,21 @@ public interface UnoPlayer {
      * not return the value Color.NONE under any circumstances.</p>
      */
     public Color callColor(List<Card> hand);
+
+    /**
+     * <p>This method will be called when you have just played a wild card,
+     * and is given the same GameState you would get from play(), taken at
+     * the moment the color is called.</p>
+     *
+     * <p>Strategies that need the game state to pick a color should
+     * override this method instead of saving the GameState from play() in
+     * a field. A strategy that keeps nothing between calls can then be
+     * shared by any number of games at once. By default, this method
+     * simply calls callColor(hand), so strategies written against the
+     * original two-call contract keep working unchanged.</p>
+     */
+    public default Color callColor(List<Card> hand, GameState state) {
+        return callColor(hand);
+    }
  
 }
\ No newline at end of file
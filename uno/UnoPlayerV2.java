@@ -0,0 +1,57 @@
+package uno;
+
+/**
+ * <p>The second-generation interface for Uno-playing strategies, for
+ * strategies that want to decide without any per-decision objects. Cards
+ * are their ids (see Card.getId()), colors their ordinals (with
+ * Color.NONE's, 4, for "none"), the hand is a read-only HandView, and the
+ * engine passes the legal moves as a bitmask: bit (1L &lt;&lt; id) is set
+ * for each id that may be played now. Everything else about the game
+ * comes from the GameState, which copies nothing out of the game until
+ * it is asked.</p>
+ *
+ * <p>Game runs every strategy through this interface. Strategies written
+ * to UnoPlayer are wrapped in a LegacyUnoPlayerAdapter, and see exactly
+ * the calls they always have; a strategy loaded by class name (from
+ * players.txt, for instance) may implement either interface.</p>
+ *
+ * <p>A v2 strategy may be shared by any number of games, on any number of
+ * threads, as long as it keeps nothing from one call to the next (see
+ * StatelessUnoPlayer).</p>
+ * @since 2.0
+ */
+public interface UnoPlayerV2 {
+
+    /**
+     * Choose a card to play.
+     * @param hand The cards in the player's hand.
+     * @param upCard The id of the up card.
+     * @param calledColor The ordinal of the color called for a wild up
+     * card, or of Color.NONE.
+     * @param legalMoves The ids that may be played now (usually those that
+     * can be played on the up card; with stacking, those that can be
+     * stacked on it), as a bitmask.
+     * @param state The rest of what the player may know about the game.
+     * @return The index in the hand of the card to play, or -1 if no card
+     * in the hand is legal (the player then draws a card).
+     */
+    public int play(HandView hand, int upCard, int calledColor,
+        long legalMoves, GameState state);
+
+    /**
+     * Decide whether to play the card just drawn, which is the last card
+     * of the hand and is legal (as for DrawnCardPlayer). Nothing else in
+     * the hand is.
+     * @return The index of the drawn card (hand.size()-1) to play it, or
+     * -1 to keep it and pass.
+     */
+    public int playDrawnCard(HandView hand, int upCard, int calledColor,
+        GameState state);
+
+    /**
+     * Choose a color to call, having just played a wild (which has already
+     * left the hand).
+     * @return The ordinal of the color, which must not be Color.NONE.
+     */
+    public int callColor(HandView hand, GameState state);
+}
@@ -4,9 +4,6 @@ package uno;
  
 
 import java.util.ArrayList;
-import java.util.Scanner;
-import java.io.BufferedReader;
-import java.io.FileReader;
 
 /**
  * <p>An entire terminal-based simulation of a multi-game Uno match.
@@ -38,7 +35,9 @@ public class UnoSimulation {
      * </pre>
      * then the code would pit Fred (whose classname was
      * "uno.fsmith_UnoPlayer") against Jane (whose classname was
-     * "uno.jdoe_Unoplayer") against, Billy,... etc.
+     * "uno.jdoe_Unoplayer") against, Billy,... etc. A prefix may also
+     * be followed by parameters, such as a row of a values file for
+     * values_UnoPlayer (see Roster).
      */
     public static final String PLAYER_FILENAME = "players.txt";
 
@@ -55,32 +54,47 @@ public class UnoSimulation {
      * (numberOfGames) should contain an integer specifying how many games
      * to play in the match. The optional second command-line argument
      * should be either the word "verbose" or "quiet" and controls the
-     * magnitude of output.
+     * magnitude of output. The optional third command-line argument is
+     * the number of threads to play games on; it defaults to one per
+     * processor for quiet matches and to a single thread for verbose ones
+     * (so the narration stays readable). Passing "pergame" instead plays
+     * every game on its own (virtual, where supported) thread, which is
+     * the better choice when players block on I/O.
      */
     public static void main(String args[]) {
         int numGames = 0;
-        if (args.length != 1  &&  args.length != 2) {
-            System.out.println("Usage: UnoSimulation numberOfGames [verbose|quiet].");
+        if (args.length < 1  ||  args.length > 3) {
+            System.out.println("Usage: UnoSimulation numberOfGames [verbose|quiet] [numberOfThreads|pergame].");
             System.exit(1);
         }
         numGames = Integer.valueOf(args[0]);
-        if (args.length == 2  &&  args[1].equals("quiet")) {
+        if (args.length >= 2  &&  args[1].equals("quiet")) {
             PRINT_VERBOSE = false;
         }
-        if (args.length == 2  &&  args[1].equals("verbose")) {
+        if (args.length >= 2  &&  args[1].equals("verbose")) {
             PRINT_VERBOSE = true;
         }
+        int numThreads = PRINT_VERBOSE ? 1 :
+            Runtime.getRuntime().availableProcessors();
+        boolean perGame = args.length == 3  &&  args[2].equals("pergame");
+        if (args.length == 3  &&  !perGame) {
+            numThreads = Integer.valueOf(args[2]);
+        }
         try {
             loadPlayerData();
-            Scoreboard s = new Scoreboard(playerNames.toArray(new String[0]));
-            for (int i=0; i<numGames; i++) {
-                Game g = new Game(s,playerClasses);
-                if(!g.play()) {
-                    System.out.println("Illegal play. Aborting.");
-                    return;
-                }
+            SimulationPool pool = new SimulationPool(
+                playerNames.toArray(new String[0]), playerClasses, numGames,
+                numThreads);
+            if (perGame) {
+                pool.startPerGame(MatchScope.MAX_CONCURRENT_GAMES_PER_MATCH);
+            }
+            else {
+                pool.start();
             }
-            System.out.println(s);
+            if (!pool.await()) {
+                return;
+            }
+            System.out.println(pool.getScoreboard());
         }
         catch (Exception e) {
             e.printStackTrace();
@@ -88,15 +102,9 @@ public class UnoSimulation {
     }
 
     private static void loadPlayerData() throws Exception {
-        BufferedReader br = new BufferedReader(new FileReader(
-            PLAYER_FILENAME));
-        String playerLine = br.readLine();
-        while (playerLine != null) {
-            Scanner line = new Scanner(playerLine).useDelimiter(",");
-            playerNames.add(line.next());
-            playerClasses.add("uno." + line.next() + "_UnoPlayer");
-            playerLine = br.readLine();
-        }
+        Roster roster = Roster.load(PLAYER_FILENAME);
+        playerNames.addAll(roster.getNames());
+        playerClasses.addAll(roster.getClasses());
     }
 
 }
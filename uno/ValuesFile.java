@@ -0,0 +1,150 @@
+package uno;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * <p>A file of values vectors for values_UnoPlayer, one to a line, in any
+ * of the layouts the values/ directory holds: bare values (baseline.csv),
+ * a header and then values followed by fitness, points and win rate (the
+ * gen<i>N</i>.csv files TrainValues writes), or a header and a leading
+ * label column, such as the generation in best.csv or a player's name in
+ * players.csv.</p>
+ *
+ * <p>A header is recognized by its first field not being a number. The
+ * values start at the baseNumberPoints column if the header has one, and
+ * at the first column otherwise; the columns before them, if any, label
+ * the row. Rows without a label column are labeled by their number,
+ * counting from 1.</p>
+ * @since 2.0
+ */
+public final class ValuesFile {
+
+    private final String filename;
+    private final ArrayList<String> labels = new ArrayList<String>();
+    private final ArrayList<double[]> values = new ArrayList<double[]>();
+    private final ArrayList<Double> fitnesses = new ArrayList<Double>();
+
+    /**
+     * Read the values file passed.
+     * @throws IOException If it can't be read, or a row doesn't hold a
+     * number for every value.
+     */
+    public ValuesFile(String filename) throws IOException {
+        this.filename = filename;
+        BufferedReader br = new BufferedReader(new FileReader(filename));
+        try {
+            int first = 0;
+            int fitnessColumn = -1;
+            String line = br.readLine();
+            if (line != null && !isNumber(line.split(",")[0])) {
+                String[] header = line.split(",");
+                for (int i=0; i<header.length; i++) {
+                    if (header[i].trim().equals(values_UnoPlayer.NAMES[0])) {
+                        first = i;
+                    }
+                    else if (header[i].trim().equals("fitness")) {
+                        fitnessColumn = i;
+                    }
+                }
+                line = br.readLine();
+            }
+            for (int row=1; line != null; line = br.readLine()) {
+                if (line.trim().length() == 0) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                if (fields.length < first + values_UnoPlayer.NUM_VALUES) {
+                    throw new IOException(filename + ": row " + row +
+                        " has too few values.");
+                }
+                double[] vector = new double[values_UnoPlayer.NUM_VALUES];
+                try {
+                    for (int i=0; i<vector.length; i++) {
+                        vector[i] = Double.parseDouble(fields[first + i]);
+                    }
+                    fitnesses.add(fitnessColumn >= 0 &&
+                        fitnessColumn < fields.length ?
+                        Double.parseDouble(fields[fitnessColumn]) : Double.NaN);
+                }
+                catch (NumberFormatException e) {
+                    throw new IOException(filename + ": row " + row +
+                        " has a value that isn't a number.");
+                }
+                labels.add(first > 0 ? fields[0].trim() : String.valueOf(row));
+                values.add(vector);
+                row++;
+            }
+        }
+        finally {
+            br.close();
+        }
+    }
+
+    /**
+     * Return the number of rows in the file.
+     */
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Return the label of the row passed (counting from 0).
+     */
+    public String getLabel(int row) {
+        return labels.get(row);
+    }
+
+    /**
+     * Return a copy of the values of the row passed.
+     */
+    public double[] getValues(int row) {
+        return values.get(row).clone();
+    }
+
+    /**
+     * Return the fitness recorded for the row passed, or NaN if the file
+     * has none.
+     */
+    public double getFitness(int row) {
+        return fitnesses.get(row);
+    }
+
+    /**
+     * Return the row a selector names: "best" for the row with the highest
+     * fitness, "last" for the last row, or otherwise the label of a row.
+     * @return The row (counting from 0), or -1 if there is no such row.
+     */
+    public int find(String selector) {
+        if (selector.equals("last")) {
+            return size() - 1;
+        }
+        if (selector.equals("best")) {
+            int best = -1;
+            for (int i=0; i<size(); i++) {
+                if (!Double.isNaN(getFitness(i)) &&
+                    (best < 0 || getFitness(i) > getFitness(best))) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+        return labels.indexOf(selector);
+    }
+
+    public String toString() {
+        return filename;
+    }
+
+    private static boolean isNumber(String field) {
+        try {
+            Double.parseDouble(field);
+            return true;
+        }
+        catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
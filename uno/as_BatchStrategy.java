@@ -0,0 +1,156 @@
+package uno;
+
+/**
+ * <p>as_UnoPlayer's strategy for the BatchSimulator. Every decision is
+ * scored exactly as as_UnoPlayer scores it, term by term in the same
+ * order and with the same coefficients, so the two make the same choice
+ * in every position and a batch of as_BatchStrategy games matches the
+ * same games played by as_UnoPlayers in Game.</p>
+ * @since 2.0
+ */
+public class as_BatchStrategy implements BatchStrategy {
+
+    // The coefficients of as_UnoPlayer; see there.
+    private double baseNumberPoints = 1;
+    private double numberValueCoefficient = 1;
+    private double mostHeldColorPoints = 1;
+    private double colorRatioCoefficient = 4;
+    private double significantLeadRatio = 0.5;
+    private double playColorDislikedByHighestPlayerPoints = 1;
+    private double reversePoints = 5;
+    private double skipPoints = 5;
+    private double drawTwoPoints = 6;
+    private double wildDrawFourPoints = 10;
+    private double heldColorCoefficient = 3;
+    private double calledColorPoints = 1;
+
+    public void play(BatchSimulator games, int[] batch, int count,
+        int[] choices) {
+        int numPlayers = games.getNumPlayers();
+        int[] colors = new int[4];
+        for (int k=0; k<count; k++) {
+            int g = batch[k];
+            int player = games.getCurrentPlayer(g);
+            int size = games.getHandSize(g, player);
+            int upCard = games.getUpCard(g);
+            int calledColor = games.getCalledColor(g);
+            countColors(games, g, player, colors);
+            int maxColor = max(colors);
+
+            // Who is close to winning, as as_UnoPlayer sees it.
+            int minIndex = 0;
+            for (int i=1; i<numPlayers; i++) {
+                if (games.getUpcomingHandSize(g, i) <
+                    games.getUpcomingHandSize(g, minIndex)) {
+                    minIndex = i;
+                }
+            }
+            int minCards = games.getUpcomingHandSize(g, minIndex);
+            int dislikedColor = games.getUpcomingCalledColor(g, minIndex);
+            boolean leaderThreat = minCards < 4 ||
+                minCards / (double) size < significantLeadRatio;
+            int nextCards = games.getUpcomingHandSize(g, 0);
+            boolean nextThreat = nextCards / (double) size <
+                significantLeadRatio || nextCards < 4;
+
+            int index = -1;
+            double maxPoints = -1;
+            for (int i=0; i<size; i++) {
+                int card = games.getCard(g, player, i);
+                if (!GameSnapshot.canPlay(card, upCard, calledColor)) {
+                    continue;
+                }
+                double points = 0;
+                int color = card >= Card.WILD_ID ?
+                    BatchSimulator.NO_COLOR : card / 13;
+                int face = card >= Card.WILD_ID ? card : card % 13;
+                if (face <= 9) {
+                    points += baseNumberPoints +
+                        (numberValueCoefficient * (face / 9.0));
+                }
+                if (color != BatchSimulator.NO_COLOR) {
+                    points += colorRatioCoefficient *
+                        (colors[color] / (double) size);
+                }
+                if (color == maxColor) {
+                    points += mostHeldColorPoints;
+                }
+                if (leaderThreat && color != BatchSimulator.NO_COLOR &&
+                    color != dislikedColor) {
+                    points += playColorDislikedByHighestPlayerPoints;
+                }
+                if (nextThreat) {
+                    if (face == 11) {
+                        points += reversePoints;
+                    }
+                    else if (face == 10) {
+                        points += skipPoints;
+                    }
+                    else if (face == 12) {
+                        points += drawTwoPoints;
+                    }
+                    else if (face == Card.WILD_D4_ID) {
+                        points += wildDrawFourPoints;
+                    }
+                }
+                if (points > maxPoints) {
+                    maxPoints = points;
+                    index = i;
+                }
+            }
+            choices[k] = index;
+        }
+    }
+
+    public void callColor(BatchSimulator games, int[] batch, int count,
+        int[] colors) {
+        int numPlayers = games.getNumPlayers();
+        int[] colorCount = new int[4];
+        double[] colorPoints = new double[4];
+        for (int k=0; k<count; k++) {
+            int g = batch[k];
+            int player = games.getCurrentPlayer(g);
+            int size = games.getHandSize(g, player);
+            countColors(games, g, player, colorCount);
+            for (int i=0; i<4; i++) {
+                colorPoints[i] = heldColorCoefficient *
+                    (colorCount[i] / (double) size);
+            }
+            for (int i=0; i<numPlayers; i++) {
+                int color = games.getUpcomingCalledColor(g, i);
+                if (color != BatchSimulator.NO_COLOR) {
+                    colorPoints[color] -= calledColorPoints;
+                }
+            }
+            int highestColor = 0;
+            for (int i=1; i<4; i++) {
+                if (colorPoints[i] > colorPoints[highestColor]) {
+                    highestColor = i;
+                }
+            }
+            colors[k] = highestColor;
+        }
+    }
+
+    private static void countColors(BatchSimulator games, int g, int player,
+        int[] colors) {
+        colors[0] = colors[1] = colors[2] = colors[3] = 0;
+        int size = games.getHandSize(g, player);
+        for (int i=0; i<size; i++) {
+            int card = games.getCard(g, player, i);
+            if (card < Card.WILD_ID) {
+                colors[card / 13]++;
+            }
+        }
+    }
+
+    private static int max(int[] arr) {
+        int index = 0;
+        for (int i=1; i<arr.length; i++) {
+            if (arr[i] > arr[index]) {
+                index = i;
+            }
+        }
+        return index;
+    }
+}
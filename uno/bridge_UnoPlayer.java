@@ -0,0 +1,55 @@
+package uno;
+
+import java.util.List;
+
+/**
+ * <p>A roster-friendly front end to BridgeUnoPlayer, so that out-of-process
+ * bots can be listed in players.txt like any other strategy (e.g.,
+ * "Bot,bridge"). Which bot to talk to is given by the "uno.bridge" system
+ * property: either a command line that starts the bot, such as
+ * <code>-Duno.bridge="java -cp . uno.BridgeEchoBot"</code>, or
+ * <code>socket:host:port</code> for a bot that is already listening.</p>
+ * <p>Every instance shares a single connection to the bot.</p>
+ * @since 2.0
+ */
+public class bridge_UnoPlayer implements StatelessUnoPlayer {
+
+    private static BridgeUnoPlayer bridge;
+
+    private static synchronized BridgeUnoPlayer getBridge() {
+        if (bridge == null) {
+            String target = System.getProperty("uno.bridge");
+            if (target == null) {
+                throw new IllegalStateException(
+                    "Set -Duno.bridge to the bot's command line or to socket:host:port.");
+            }
+            try {
+                if (target.startsWith("socket:")) {
+                    String[] hostPort = target.substring(7).split(":");
+                    bridge = new BridgeUnoPlayer(hostPort[0],
+                        Integer.parseInt(hostPort[1]));
+                }
+                else {
+                    bridge = new BridgeUnoPlayer(target.trim().split("\\s+"));
+                }
+            }
+            catch (java.io.IOException e) {
+                throw new IllegalStateException("Can't reach bot " + target, e);
+            }
+        }
+        return bridge;
+    }
+
+    public int play(List<Card> hand, Card upCard, Color calledColor,
+        GameState state) {
+        return getBridge().play(hand, upCard, calledColor, state);
+    }
+
+    public Color callColor(List<Card> hand) {
+        return getBridge().callColor(hand);
+    }
+
+    public Color callColor(List<Card> hand, GameState state) {
+        return getBridge().callColor(hand, state);
+    }
+}
@@ -0,0 +1,139 @@
+package uno;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <p>A player that plays as_UnoPlayer's strategy (values_UnoPlayer with
+ * its baseline values) until the end of the game is near, and then solves
+ * it. Once the hands hold uno.endgame.cards cards or fewer between them
+ * (default DEFAULT_MAX_CARDS), each decision deals the unseen cards at
+ * random uno.endgame.samples times (see Observation) and has an
+ * EndgameSolver work out, for every legal move in each deal, whether it
+ * forces a win. The move proven to win in the most deals is played; a move
+ * the solver couldn't decide counts for half. When no move does better
+ * than as_UnoPlayer's own choice, that is played instead. Under house
+ * rules, which the solver doesn't model (see Observation.canModel()), it
+ * never solves, and plays as_UnoPlayer's strategy throughout.</p>
+ *
+ * <p>Each decision searches at most uno.endgame.nodes positions in all
+ * (default DEFAULT_MAX_NODES), which with the solver's transposition table
+ * keeps it to a few milliseconds.</p>
+ *
+ * <p>The color to call after a wild is chosen along with the move, and
+ * remembered for the callColor() that follows; an instance must therefore
+ * not be shared between games in progress (PerThreadUnoPlayer takes care
+ * of this).</p>
+ * @since 2.0
+ */
+public class endgame_UnoPlayer implements UnoPlayer {
+
+    /**
+     * The default number of cards in all hands at which solving starts.
+     */
+    public static final int DEFAULT_MAX_CARDS = 10;
+
+    /**
+     * The default number of deals solved per decision.
+     */
+    public static final int DEFAULT_SAMPLES = 16;
+
+    /**
+     * The default number of positions searched per decision.
+     */
+    public static final int DEFAULT_MAX_NODES = 100000;
+
+    /**
+     * How many moves ahead the solver looks.
+     */
+    static final int MAX_DEPTH = 40;
+
+    // values_UnoPlayer, unlike as_UnoPlayer, plays by the game's rules.
+    private UnoPlayer fallback = new values_UnoPlayer();
+    private EndgameSolver solver = new EndgameSolver();
+    private Random rand = new Random();
+    private int maxCards = Integer.getInteger("uno.endgame.cards",
+        DEFAULT_MAX_CARDS);
+    private int samples = Integer.getInteger("uno.endgame.samples",
+        DEFAULT_SAMPLES);
+    private int maxNodes = Integer.getInteger("uno.endgame.nodes",
+        DEFAULT_MAX_NODES);
+    private Color pendingColor;
+
+    public int play(List<Card> hand, Card upCard, Color calledColor,
+        GameState state) {
+        pendingColor = null;
+        int choice = fallback.play(hand, upCard, calledColor, state);
+        if (choice < 0 || !Observation.canModel(state) ||
+            !isEndgame(hand, state)) {
+            return choice;
+        }
+        Card chosen = hand.get(choice);
+        int fallbackMove = chosen.getId();
+        if (chosen.followedByCall()) {
+            List<Card> rest = new ArrayList<Card>(hand);
+            rest.remove(choice);
+            Color color = fallback.callColor(rest, state);
+            fallbackMove = GameSnapshot.move(chosen, color);
+            pendingColor = color;
+        }
+
+        // Score every move over the sampled deals: 2 for a proven win, 1
+        // for a move the solver couldn't decide.
+        Observation obs = new Observation(hand, upCard, calledColor, state);
+        int[] scores = new int[Card.NUM_IDS * 4 + 1];
+        for (int s=0; s<samples; s++) {
+            GameSnapshot deal = obs.determinize(rand.nextLong());
+            int[] moves = deal.legalMoves();
+            int[] results = solver.solveMoves(deal, MAX_DEPTH,
+                maxNodes / samples);
+            for (int i=0; i<moves.length; i++) {
+                scores[moves[i] + 1] += results[i] - EndgameSolver.LOSS;
+            }
+        }
+        int best = fallbackMove + 1;
+        for (int m=0; m<scores.length; m++) {
+            if (scores[m] > scores[best]) {
+                best = m;
+            }
+        }
+        if (best == fallbackMove + 1) {
+            return choice;
+        }
+        int move = best - 1;
+        pendingColor = GameSnapshot.getCalledColor(move);
+        for (int i=0; i<hand.size(); i++) {
+            if (hand.get(i).getId() == move % Card.NUM_IDS) {
+                return i;
+            }
+        }
+        return choice;
+    }
+
+    /**
+     * Return true if the hands hold few enough cards to solve.
+     */
+    private boolean isEndgame(List<Card> hand, GameState state) {
+        int cards = hand.size();
+        int[] upcoming = state.getNumCardsInHandsOfUpcomingPlayers();
+        // The last entry is this player's own hand.
+        for (int i=0; i<upcoming.length-1; i++) {
+            cards += upcoming[i];
+        }
+        return cards <= maxCards;
+    }
+
+    public Color callColor(List<Card> hand) {
+        return callColor(hand, new GameState());
+    }
+
+    public Color callColor(List<Card> hand, GameState state) {
+        if (pendingColor != null && pendingColor != Color.NONE) {
+            Color color = pendingColor;
+            pendingColor = null;
+            return color;
+        }
+        return fallback.callColor(hand, state);
+    }
+}
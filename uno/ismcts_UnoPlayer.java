@@ -0,0 +1,364 @@
+package uno;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p>A player that searches ahead with information-set Monte Carlo tree
+ * search (single-observer ISMCTS). Each iteration deals the cards it
+ * can't see -- everything not in its hand, on the up card or in the
+ * discard pile -- at random to the other players (in the numbers GameState
+ * reports) and the draw pile, then walks one shared tree of moves down
+ * that deal, choosing among the moves legal in it by UCB, adds a node, and
+ * plays the deal out at random to the end. Every player in the tree is
+ * assumed to play to win.</p>
+ *
+ * <p>Search runs on a GameSnapshot, so an iteration costs a few
+ * microseconds. Each decision gets a time budget (uno.ismcts.millis,
+ * default DEFAULT_MILLIS) and optionally a cap on iterations
+ * (uno.ismcts.iterations), and is searched by uno.ismcts.threads
+ * independent trees at once (by default one per processor) whose root
+ * statistics are added together. When many games are already running in
+ * parallel, as under SimulationPool, set uno.ismcts.threads to 1.
+ * Decisions with only one sensible answer are made without searching.</p>
+ *
+ * <p>The search models the official rules only. Under house rules, or
+ * with draws pending (see Observation.canModel()), it plays as
+ * as_UnoPlayer's strategy (values_UnoPlayer, which follows the game's
+ * rules) instead.</p>
+ *
+ * <p>The color to call after a wild is chosen by the same search, and
+ * remembered for the callColor() that follows; an instance must therefore
+ * not be shared between games in progress (PerThreadUnoPlayer takes care
+ * of this).</p>
+ * @since 2.0
+ */
+public class ismcts_UnoPlayer implements UnoPlayer {
+
+    /**
+     * The default time budget for a decision, in milliseconds.
+     */
+    public static final long DEFAULT_MILLIS = 100;
+
+    /**
+     * The exploration constant of UCB.
+     */
+    static final double EXPLORATION = 0.7;
+
+    /**
+     * Random playouts longer than this many moves are abandoned as draws.
+     */
+    static final int MAX_PLAYOUT_MOVES = 2000;
+
+    /**
+     * How many iterations are run between looks at the clock.
+     */
+    static final int ITERATIONS_PER_CLOCK_CHECK = 16;
+
+    private static ExecutorService searchThreads;
+
+    private UnoPlayer fallback = new values_UnoPlayer();
+
+    /**
+     * A node of the search tree: a move made by a player, reached by the
+     * moves of its ancestors.
+     */
+    private static final class Node {
+        final int key;
+        final int move;
+        final int player;
+        ArrayList<Node> children = new ArrayList<Node>(4);
+        int visits;
+        int availability;
+        double wins;
+
+        Node(int key, int move, int player) {
+            this.key = key;
+            this.move = move;
+            this.player = player;
+        }
+
+        Node child(int key) {
+            for (int i=0; i<children.size(); i++) {
+                if (children.get(i).key == key) {
+                    return children.get(i);
+                }
+            }
+            return null;
+        }
+    }
+
+    private long millis;
+    private int maxIterations;
+    private int numThreads;
+    private Random rand = new Random();
+    private Color pendingColor;
+
+    /**
+     * Instantiate a player configured by the uno.ismcts.* system
+     * properties.
+     */
+    public ismcts_UnoPlayer() {
+        this(Long.getLong("uno.ismcts.millis", DEFAULT_MILLIS),
+            Integer.getInteger("uno.ismcts.iterations", 0),
+            Integer.getInteger("uno.ismcts.threads",
+                Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Instantiate a player with an explicit search budget.
+     * @param millis The most time to spend on a decision, or 0 for no limit.
+     * @param maxIterations The most iterations to run per tree for a
+     * decision, or 0 for no limit. At least one of the limits must be set.
+     * @param numThreads The number of trees searched at once.
+     */
+    public ismcts_UnoPlayer(long millis, int maxIterations, int numThreads) {
+        if (millis <= 0 && maxIterations <= 0) {
+            throw new IllegalArgumentException(
+                "ISMCTS needs a time or an iteration limit.");
+        }
+        this.millis = millis;
+        this.maxIterations = maxIterations;
+        this.numThreads = Math.max(1, numThreads);
+    }
+
+    public int play(List<Card> hand, Card upCard, Color calledColor,
+        GameState state) {
+        pendingColor = null;
+        if (!Observation.canModel(state)) {
+            return fallback.play(hand, upCard, calledColor, state);
+        }
+        int firstLegal = -1;
+        boolean choice = false;
+        for (int i=0; i<hand.size(); i++) {
+            Card card = hand.get(i);
+            if (card.canPlayOn(upCard, calledColor)) {
+                if (firstLegal < 0) {
+                    firstLegal = i;
+                }
+                if (card.followedByCall() ||
+                    card.getId() != hand.get(firstLegal).getId()) {
+                    choice = true;
+                }
+            }
+        }
+        if (!choice) {
+            return firstLegal;
+        }
+        int move = search(hand, upCard, calledColor, state);
+        int id = move % Card.NUM_IDS;
+        if (id >= Card.WILD_ID) {
+            pendingColor = Color.values()[move / Card.NUM_IDS];
+        }
+        for (int i=0; i<hand.size(); i++) {
+            if (hand.get(i).getId() == id) {
+                return i;
+            }
+        }
+        return firstLegal;
+    }
+
+    public Color callColor(List<Card> hand) {
+        return callColor(hand, new GameState());
+    }
+
+    public Color callColor(List<Card> hand, GameState state) {
+        if (pendingColor != null) {
+            Color color = pendingColor;
+            pendingColor = null;
+            return color;
+        }
+        int[] counts = new int[4];
+        for (Card card : hand) {
+            if (card.getColor() != Color.NONE) {
+                counts[card.getColor().ordinal()]++;
+            }
+        }
+        int best = 0;
+        for (int c=1; c<4; c++) {
+            if (counts[c] > counts[best]) {
+                best = c;
+            }
+        }
+        return Color.values()[best];
+    }
+
+    /**
+     * Search the position and return the move with the most visits at the
+     * root, summed over every tree.
+     */
+    private int search(List<Card> hand, Card upCard, Color calledColor,
+        GameState state) {
+        final Observation obs = new Observation(hand, upCard, calledColor,
+            state);
+        final long deadline = millis > 0 ?
+            System.nanoTime() + millis * 1000000 : Long.MAX_VALUE;
+        int[] visits = new int[Card.NUM_IDS * 4 + 1];
+        try {
+            ArrayList<Future<int[]>> trees = new ArrayList<Future<int[]>>();
+            for (int t=0; t<numThreads; t++) {
+                final long seed = rand.nextLong();
+                trees.add(getSearchThreads().submit(new Callable<int[]>() {
+                    public int[] call() {
+                        return searchTree(obs, deadline, seed);
+                    }
+                }));
+            }
+            for (Future<int[]> tree : trees) {
+                int[] treeVisits = tree.get();
+                for (int m=0; m<visits.length; m++) {
+                    visits[m] += treeVisits[m];
+                }
+            }
+        }
+        catch (Exception e) {
+            throw new IllegalStateException("Search failed.", e);
+        }
+        int best = 0;
+        for (int m=1; m<visits.length; m++) {
+            if (visits[m] > visits[best]) {
+                best = m;
+            }
+        }
+        return best - 1;
+    }
+
+    /**
+     * Grow one tree until the budget runs out.
+     * @return The visits of each root move, indexed by move + 1.
+     */
+    private int[] searchTree(Observation obs, long deadline, long seed) {
+        Random random = new Random(seed);
+        Node root = new Node(-1, GameSnapshot.DRAW, -1);
+        int[] moves = new int[GameSnapshot.MAX_MOVES];
+        int[] unexpanded = new int[GameSnapshot.MAX_MOVES];
+        ArrayList<Node> path = new ArrayList<Node>();
+        for (int it=0; maxIterations <= 0 || it < maxIterations; it++) {
+            if (it % ITERATIONS_PER_CLOCK_CHECK == 0 &&
+                System.nanoTime() >= deadline && it > 0) {
+                break;
+            }
+            GameSnapshot g = obs.determinize(random.nextLong());
+            Node node = root;
+            path.clear();
+            // Selection and expansion
+            while (!g.isOver()) {
+                int n = g.legalMoves(moves);
+                int player = g.currPlayer;
+                int numUnexpanded = 0;
+                Node best = null;
+                double bestScore = Double.NEGATIVE_INFINITY;
+                for (int i=0; i<n; i++) {
+                    Node child = node.child(key(player, moves[i]));
+                    if (child == null) {
+                        unexpanded[numUnexpanded++] = moves[i];
+                        continue;
+                    }
+                    child.availability++;
+                    double score = child.wins / child.visits + EXPLORATION *
+                        Math.sqrt(Math.log(child.availability) / child.visits);
+                    if (score > bestScore) {
+                        bestScore = score;
+                        best = child;
+                    }
+                }
+                if (numUnexpanded > 0) {
+                    int move = unexpanded[random.nextInt(numUnexpanded)];
+                    Node child = new Node(key(player, move), move, player);
+                    child.availability = 1;
+                    node.children.add(child);
+                    g.applyInPlace(move);
+                    path.add(child);
+                    break;
+                }
+                g.applyInPlace(best.move);
+                path.add(best);
+                node = best;
+            }
+            // Playout
+            for (int m=0; m<MAX_PLAYOUT_MOVES && !g.isOver(); m++) {
+                g.applyInPlace(playoutMove(g, moves));
+            }
+            // Backpropagation
+            for (int i=0; i<path.size(); i++) {
+                Node n = path.get(i);
+                n.visits++;
+                if (n.player == g.winner) {
+                    n.wins++;
+                }
+            }
+        }
+        int[] visits = new int[Card.NUM_IDS * 4 + 1];
+        for (Node child : root.children) {
+            visits[child.move + 1] += child.visits;
+        }
+        return visits;
+    }
+
+    private static int key(int player, int move) {
+        return player * (Card.NUM_IDS * 4 + 1) + move + 1;
+    }
+
+    /**
+     * Choose a move for a playout: half the time the legal card worth the
+     * most points, otherwise a random one, saving wilds for when nothing
+     * else will do and then calling the color held most.
+     */
+    private static int playoutMove(GameSnapshot g, int[] moves) {
+        int n = g.legalMoves(moves);
+        int numColored = 0;
+        while (numColored < n && moves[numColored] >= 0 &&
+            moves[numColored] < Card.WILD_ID) {
+            numColored++;
+        }
+        if (numColored > 0) {
+            int best = moves[g.nextInt(numColored)];
+            if (g.nextInt(2) == 0) {
+                for (int i=0; i<numColored; i++) {
+                    if (GameSnapshot.POINTS[moves[i]] >
+                        GameSnapshot.POINTS[best]) {
+                        best = moves[i];
+                    }
+                }
+            }
+            return best;
+        }
+        if (moves[0] == GameSnapshot.DRAW) {
+            return GameSnapshot.DRAW;
+        }
+        int wild = moves[0] % Card.NUM_IDS;
+        int bestColor = 0, bestCount = -1;
+        for (int color=0; color<4; color++) {
+            int count = 0;
+            for (int face=0; face<13; face++) {
+                count += g.count(g.currPlayer, color * 13 + face);
+            }
+            if (count > bestCount) {
+                bestCount = count;
+                bestColor = color;
+            }
+        }
+        return wild + bestColor * Card.NUM_IDS;
+    }
+
+    private static synchronized ExecutorService getSearchThreads() {
+        if (searchThreads == null) {
+            searchThreads = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(),
+                new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "ismcts");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        }
+        return searchThreads;
+    }
+}
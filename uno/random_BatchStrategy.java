@@ -0,0 +1,43 @@
+package uno;
+
+/**
+ * <p>random_UnoPlayer's strategy for the BatchSimulator: a legal card
+ * chosen at random, and a random color for a wild. Its choices come from
+ * Math.random(), as random_UnoPlayer's do, so games it plays in don't
+ * match the same seeds played by Game, and a "check" run reports them as
+ * different.</p>
+ * @since 2.0
+ */
+public class random_BatchStrategy implements BatchStrategy {
+
+    public void play(BatchSimulator games, int[] batch, int count,
+        int[] choices) {
+        int[] legal = new int[Card.NUM_IDS * 2];
+        for (int k=0; k<count; k++) {
+            int g = batch[k];
+            int player = games.getCurrentPlayer(g);
+            int size = games.getHandSize(g, player);
+            int upCard = games.getUpCard(g);
+            int calledColor = games.getCalledColor(g);
+            if (legal.length < size) {
+                legal = new int[size];
+            }
+            int numLegal = 0;
+            for (int i=0; i<size; i++) {
+                if (GameSnapshot.canPlay(games.getCard(g, player, i), upCard,
+                    calledColor)) {
+                    legal[numLegal++] = i;
+                }
+            }
+            choices[k] = numLegal == 0 ? -1 :
+                legal[(int) (Math.random() * numLegal)];
+        }
+    }
+
+    public void callColor(BatchSimulator games, int[] batch, int count,
+        int[] colors) {
+        for (int k=0; k<count; k++) {
+            colors[k] = (int) (Math.random() * 4);
+        }
+    }
+}
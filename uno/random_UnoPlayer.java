@@ -3,7 +3,7 @@ package uno;
 import java.util.ArrayList;
 import java.util.List;
 
-public class random_UnoPlayer implements UnoPlayer {
+public class random_UnoPlayer implements StatelessUnoPlayer, DrawnCardPlayer {
     @Override
     public int play(List<Card> hand, Card upCard, Color calledColor, GameState state) {
         // Get color if wild was played
@@ -31,6 +31,12 @@ public class random_UnoPlayer implements UnoPlayer {
             return hand.indexOf(validCards.get((int) (Math.random() * validCards.size())));
     }
 
+    @Override
+    public boolean playDrawnCard(List<Card> hand, Card drawnCard, Card upCard, Color calledColor, GameState state) {
+        // The drawn card is the only valid card, so it is the random choice
+        return true;
+    }
+
     @Override
     public Color callColor(List<Card> hand) {
         return Color.values()[(int) (Math.random() * 4)];
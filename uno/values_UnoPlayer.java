@@ -0,0 +1,292 @@
+package uno;
+
+import java.util.List;
+
+/**
+ * <p>as_UnoPlayer's strategy with its twelve coefficients as parameters,
+ * so that any vector of values (one tuned by TrainValues, say) can be
+ * played without writing a class for it. Built with no arguments it plays
+ * as_UnoPlayer's own values, and makes the same choice as as_UnoPlayer in
+ * every position: every card is scored term by term in the same order.</p>
+ *
+ * <p>It is written to UnoPlayerV2: the hand is read as card ids, the
+ * legal moves come from the engine's bitmask instead of Card.canPlayOn(),
+ * and nothing is allocated but two small arrays per decision. It is an
+ * UnoPlayer too, so that it can be seated anywhere an UnoPlayer can; Game
+ * plays it through UnoPlayerV2.</p>
+ *
+ * <p>In players.txt, "values" plays the baseline values, and
+ * "values:<i>source</i>" the values from a values file or written inline
+ * (see Roster).</p>
+ * @since 2.0
+ */
+public class values_UnoPlayer implements StatelessUnoPlayer, UnoPlayerV2 {
+
+    /**
+     * The names of the coefficients, in the order of a values vector (and
+     * of the columns of a values file).
+     */
+    public static final String[] NAMES = { "baseNumberPoints",
+        "numberValueCoefficient", "mostHeldColorPoints",
+        "colorRatioCoefficient", "significantLeadRatio",
+        "playColorDislikedByHighestPlayerPoints", "reversePoints",
+        "skipPoints", "drawTwoPoints", "wildDrawFourPoints",
+        "heldColorCoefficient", "calledColorPoints" };
+
+    public static final int NUM_VALUES = NAMES.length;
+
+    /**
+     * as_UnoPlayer's values, which TrainValues trains against.
+     */
+    private static final double[] BASELINE = { 1, 1, 1, 4, 0.5, 1, 5, 5,
+        6, 10, 3, 1 };
+
+    // The coefficients of as_UnoPlayer; see there.
+    private final double baseNumberPoints;
+    private final double numberValueCoefficient;
+    private final double mostHeldColorPoints;
+    private final double colorRatioCoefficient;
+    private final double significantLeadRatio;
+    private final double playColorDislikedByHighestPlayerPoints;
+    private final double reversePoints;
+    private final double skipPoints;
+    private final double drawTwoPoints;
+    private final double wildDrawFourPoints;
+    private final double heldColorCoefficient;
+    private final double calledColorPoints;
+
+    /**
+     * Instantiate a player with as_UnoPlayer's values.
+     */
+    public values_UnoPlayer() {
+        this(BASELINE);
+    }
+
+    /**
+     * Instantiate a player with the values passed, in the order of NAMES.
+     * @throws IllegalArgumentException If there aren't NUM_VALUES values.
+     */
+    public values_UnoPlayer(double[] values) {
+        if (values.length != NUM_VALUES) {
+            throw new IllegalArgumentException("Expected " + NUM_VALUES +
+                " values, not " + values.length + ".");
+        }
+        baseNumberPoints = values[0];
+        numberValueCoefficient = values[1];
+        mostHeldColorPoints = values[2];
+        colorRatioCoefficient = values[3];
+        significantLeadRatio = values[4];
+        playColorDislikedByHighestPlayerPoints = values[5];
+        reversePoints = values[6];
+        skipPoints = values[7];
+        drawTwoPoints = values[8];
+        wildDrawFourPoints = values[9];
+        heldColorCoefficient = values[10];
+        calledColorPoints = values[11];
+    }
+
+    /**
+     * Instantiate a player with the comma-separated values passed, as
+     * Roster passes them.
+     * @throws IllegalArgumentException If there aren't NUM_VALUES numbers.
+     */
+    public values_UnoPlayer(String values) {
+        this(parseValues(values));
+    }
+
+    /**
+     * Return a copy of as_UnoPlayer's values.
+     */
+    public static double[] getBaseline() {
+        return BASELINE.clone();
+    }
+
+    /**
+     * Return the values of a comma-separated list of numbers.
+     * @throws NumberFormatException If one isn't a number.
+     */
+    public static double[] parseValues(String values) {
+        String[] fields = values.split(",");
+        double[] retval = new double[fields.length];
+        for (int i=0; i<fields.length; i++) {
+            retval[i] = Double.parseDouble(fields[i].trim());
+        }
+        return retval;
+    }
+
+    /**
+     * Return the values as a comma-separated list, which parseValues()
+     * reads back exactly.
+     */
+    public static String formatValues(double[] values) {
+        String retval = "";
+        for (int i=0; i<values.length; i++) {
+            retval += (i == 0 ? "" : ",") + values[i];
+        }
+        return retval;
+    }
+
+    /**
+     * Return this player's values, in the order of NAMES.
+     */
+    public double[] getValues() {
+        return new double[] { baseNumberPoints, numberValueCoefficient,
+            mostHeldColorPoints, colorRatioCoefficient, significantLeadRatio,
+            playColorDislikedByHighestPlayerPoints, reversePoints, skipPoints,
+            drawTwoPoints, wildDrawFourPoints, heldColorCoefficient,
+            calledColorPoints };
+    }
+
+    public int play(HandView hand, int upCard, int calledColor,
+        long legalMoves, GameState state) {
+        if ((legalMoves & hand.getHeld()) == 0) {
+            return -1;
+        }
+        int size = hand.size();
+        int[] colors = countColors(hand);
+        int maxColor = max(colors);
+
+        int[] cardsInHands = state.getNumCardsInHandsOfUpcomingPlayers();
+        int minIndex = 0;
+        for (int i=1; i<cardsInHands.length; i++) {
+            if (cardsInHands[i] < cardsInHands[minIndex]) {
+                minIndex = i;
+            }
+        }
+        int minCards = cardsInHands[minIndex];
+        boolean leaderIsThreat = minCards < 4 ||
+            minCards / (double) size < significantLeadRatio;
+        Color leaderColor =
+            state.getMostRecentColorCalledByUpcomingPlayers()[minIndex];
+        int dislikedColor = leaderColor == null ? Color.NONE.ordinal() :
+            leaderColor.ordinal();
+        boolean nextIsThreat = cardsInHands[0] / (double) size <
+            significantLeadRatio || cardsInHands[0] < 4;
+
+        int index = -1;
+        double maxPoints = -1;
+        for (int i=0; i<size; i++) {
+            int card = hand.getCard(i);
+            if ((legalMoves >>> card & 1) == 0) {
+                continue;
+            }
+            double points = 0;
+            boolean colored = card < Card.WILD_ID;
+            int face = colored ? card % 13 : card;
+            if (face <= 9) {
+                points += baseNumberPoints +
+                    (numberValueCoefficient * (face / 9.0));
+            }
+            if (colored) {
+                int color = card / 13;
+                points += colorRatioCoefficient *
+                    (colors[color] / (double) size);
+                if (color == maxColor) {
+                    points += mostHeldColorPoints;
+                }
+                if (leaderIsThreat && color != dislikedColor) {
+                    points += playColorDislikedByHighestPlayerPoints;
+                }
+            }
+            if (nextIsThreat) {
+                if (face == 11) {
+                    points += reversePoints;
+                }
+                else if (face == 10) {
+                    points += skipPoints;
+                }
+                else if (face == 12) {
+                    points += drawTwoPoints;
+                }
+                else if (face == Card.WILD_D4_ID) {
+                    points += wildDrawFourPoints;
+                }
+            }
+            if (points > maxPoints) {
+                maxPoints = points;
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Score the drawn card as play() would, and play it only if play()
+     * would: with negative values a card can score no more than the -1
+     * play() starts from, and then play() passes.
+     */
+    public int playDrawnCard(HandView hand, int upCard, int calledColor,
+        GameState state) {
+        int drawn = hand.getCard(hand.size() - 1);
+        return play(hand, upCard, calledColor, 1L << drawn, state) < 0 ? -1 :
+            hand.size() - 1;
+    }
+
+    public int callColor(HandView hand, GameState state) {
+        double[] colorPoints = new double[4];
+        int[] colorCount = countColors(hand);
+        for (int i=0; i<4; i++) {
+            colorPoints[i] = heldColorCoefficient *
+                (colorCount[i] / (double) hand.size());
+        }
+        for (Color color : state.getMostRecentColorCalledByUpcomingPlayers()) {
+            if (color != null) {
+                colorPoints[color.ordinal()] -= calledColorPoints;
+            }
+        }
+        int highestColor = 0;
+        for (int i=1; i<4; i++) {
+            if (colorPoints[i] > colorPoints[highestColor]) {
+                highestColor = i;
+            }
+        }
+        return highestColor;
+    }
+
+    public int play(List<Card> hand, Card upCard, Color calledColor,
+        GameState state) {
+        RuleSet rules = state.getRules();
+        long legalMoves = state.getPendingDraws() > 0 ?
+            rules.getStackable(upCard.getId()) :
+            rules.getPlayable(upCard.getId(), calledColor.ordinal());
+        return play(toView(hand), upCard.getId(), calledColor.ordinal(),
+            legalMoves, state);
+    }
+
+    public Color callColor(List<Card> hand) {
+        return callColor(hand, new GameState());
+    }
+
+    public Color callColor(List<Card> hand, GameState state) {
+        return Color.values()[callColor(toView(hand), state)];
+    }
+
+    private static HandView toView(List<Card> hand) {
+        HandView view = new HandView();
+        for (int i=0; i<hand.size(); i++) {
+            view.add(hand.get(i));
+        }
+        return view;
+    }
+
+    private static int[] countColors(HandView hand) {
+        int[] colors = new int[4];
+        for (int i=0; i<hand.size(); i++) {
+            int card = hand.getCard(i);
+            if (card < Card.WILD_ID) {
+                colors[card / 13]++;
+            }
+        }
+        return colors;
+    }
+
+    private static int max(int[] arr) {
+        int index = 0;
+        for (int i=1; i<arr.length; i++) {
+            if (arr[i] > arr[index]) {
+                index = i;
+            }
+        }
+        return index;
+    }
+}
@@ -204,6 +204,10 @@ public class Card {
             case REVERSE:
                 game.reverseDirection();
                 game.advanceToNextPlayer();
+                if (game.h.length == 2) {
+                    // Between two players a reverse skips the other player.
+                    game.advanceToNextPlayer();
+                }
                 break;
             case DRAW_TWO:
                 nextPlayerDraw(game);
@@ -26,6 +26,12 @@ public class Game {
      */
     static final int INIT_HAND_SIZE = 7;
 
+    /**
+     * The fewest and the most players a Game can be played by.
+     */
+    public static final int MIN_PLAYERS = 2;
+    public static final int MAX_PLAYERS = 10;
+
     public enum Direction { FORWARDS, BACKWARDS };
 
     /**
@@ -57,6 +63,12 @@ public class Game {
      * the names of the contestants, in order.
      */
     public Game(Scoreboard scoreboard) {
+        if (scoreboard.getNumPlayers() < MIN_PLAYERS ||
+            scoreboard.getNumPlayers() > MAX_PLAYERS) {
+            throw new IllegalArgumentException("A game needs from " +
+                MIN_PLAYERS + " to " + MAX_PLAYERS + " players, not " +
+                scoreboard.getNumPlayers() + ".");
+        }
         this.scoreboard = scoreboard;
         deck = new Deck();
         h = new Hand[scoreboard.getNumPlayers()];
@@ -138,8 +150,10 @@ public class Game {
      */
     public boolean play() {
         println("Initial upcard is " + upCard + ".");
+        int turnsPlayed = 0;
         try {
             while (true) {
+                turnsPlayed++;
                 //print("Hand #" + currPlayer + " (" + h[currPlayer] + ")");
                 print(h[currPlayer].getPlayerName() +
                     " (" + h[currPlayer] + ")");
@@ -191,7 +205,7 @@ public class Game {
                     }
                     println("\n" + h[currPlayer].getPlayerName() +
                         " wins! (and collects " + roundPoints + " points.)");
-                    scoreboard.addToScore(currPlayer,roundPoints);
+                    scoreboard.recordWin(currPlayer, roundPoints, turnsPlayed);
                     println("---------------\n" + scoreboard);
                     return true;
                 }
@@ -18,6 +18,8 @@ import java.util.List;
 public class GameState {
 
     private Game theGame;
+    private int firstUpcomingPlayer;
+    private int step;
     private int[] numCardsInHandsOfUpcomingPlayers;
     private UnoPlayer.Color[] mostRecentColorCalledByUpcomingPlayers;
     private int[] totalScoreOfUpcomingPlayers;
@@ -26,64 +28,60 @@ public class GameState {
      * (Blank constructor, used only during testing.)
      */
     GameState() {
-        numCardsInHandsOfUpcomingPlayers = new int[4];
-        mostRecentColorCalledByUpcomingPlayers = new UnoPlayer.Color[4];
-        totalScoreOfUpcomingPlayers = new int[4];
+        this(4);
     }
 
     /**
-     * Instantiate a new GameState object whose job it is to provide safe
-     * access to the Game object passed.
+     * (Blank GameState for a table of the size passed, used only during
+     * testing.)
      */
-    GameState(Game game) {
-
-        numCardsInHandsOfUpcomingPlayers =
-            new int[game.scoreboard.getNumPlayers()];
+    GameState(int numPlayers) {
+        numCardsInHandsOfUpcomingPlayers = new int[numPlayers];
         mostRecentColorCalledByUpcomingPlayers =
-            new UnoPlayer.Color[game.scoreboard.getNumPlayers()];
-        totalScoreOfUpcomingPlayers =
-            new int[game.scoreboard.getNumPlayers()];
+            new UnoPlayer.Color[numPlayers];
+        totalScoreOfUpcomingPlayers = new int[numPlayers];
+    }
 
-        if (game.direction == Game.Direction.FORWARDS) {
-            for (int i=0; i<game.h.length; i++) {
-                numCardsInHandsOfUpcomingPlayers[i] =
-                    game.h[(game.currPlayer + i + 1) %
-                        game.scoreboard.getNumPlayers()].size();
-                totalScoreOfUpcomingPlayers[i] =
-                    game.scoreboard.getScore((game.currPlayer + i + 1) %
-                        game.scoreboard.getNumPlayers());
-                mostRecentColorCalledByUpcomingPlayers[i] =
-                    game.mostRecentColorCalled[(game.currPlayer + i + 1) %
-                        game.scoreboard.getNumPlayers()];
-            }
-        }
-        else {
-            for (int i=0; i<3; i++) { // FIXTHIS
-                numCardsInHandsOfUpcomingPlayers[i] =
-                    game.h[(game.currPlayer - i - 1 +
-                        game.scoreboard.getNumPlayers()) %
-                        game.scoreboard.getNumPlayers()].size();
-                totalScoreOfUpcomingPlayers[i] =
-                    game.scoreboard.getScore((game.currPlayer - i - 1 +
-                        game.scoreboard.getNumPlayers()) %
-                        game.scoreboard.getNumPlayers());
-                mostRecentColorCalledByUpcomingPlayers[i] =
-                    game.mostRecentColorCalled[(game.currPlayer - i - 1 +
-                        game.scoreboard.getNumPlayers()) %
-                        game.scoreboard.getNumPlayers()];
-            }
-        }
+    /**
+     * Instantiate a new GameState object whose job it is to provide safe
+     * access to the Game object passed. Nothing is copied out of the Game
+     * until a player asks for it, so that a decision that looks at none of
+     * its opponents costs the same at any size of table; each array is
+     * filled in, for every seat, the first time it is asked for.
+     */
+    GameState(Game game) {
+        int numPlayers = game.scoreboard.getNumPlayers();
+        step = game.direction == Game.Direction.FORWARDS ? 1 :
+            numPlayers - 1;
+        firstUpcomingPlayer = (game.currPlayer + step) % numPlayers;
         theGame = game;
     }
 
+    /**
+     * Return the seat of the upcoming player at the index passed: index 0
+     * is the next player, and the last index the current player.
+     */
+    private int upcomingPlayer(int index) {
+        return (firstUpcomingPlayer + index * step) % theGame.h.length;
+    }
+
     /**
      * Return an array of ints indicating the number of cards each player
      * has remaining. The array is ordered so that index 0 has the count
      * for the player who (barring action cards that might change it) will
      * play next, index 1 the player who (barring action cards) will play
-     * second, etc.
+     * second, etc. There is an entry for every seat at the table, the last
+     * being the current player's own; the other arrays are ordered the
+     * same way.
      */
     public int[] getNumCardsInHandsOfUpcomingPlayers() {
+        if (numCardsInHandsOfUpcomingPlayers == null) {
+            int[] counts = new int[theGame.h.length];
+            for (int i=0; i<counts.length; i++) {
+                counts[i] = theGame.h[upcomingPlayer(i)].size();
+            }
+            numCardsInHandsOfUpcomingPlayers = counts;
+        }
         return numCardsInHandsOfUpcomingPlayers;
     }
 
@@ -95,6 +93,13 @@ public class GameState {
      * second, etc.
      */
     public int[] getTotalScoreOfUpcomingPlayers() {
+        if (totalScoreOfUpcomingPlayers == null) {
+            int[] scores = new int[theGame.h.length];
+            for (int i=0; i<scores.length; i++) {
+                scores[i] = theGame.scoreboard.getScore(upcomingPlayer(i));
+            }
+            totalScoreOfUpcomingPlayers = scores;
+        }
         return totalScoreOfUpcomingPlayers;
     }
 
@@ -107,6 +112,13 @@ public class GameState {
      * action cards) will play second, etc.
      */
     public UnoPlayer.Color[] getMostRecentColorCalledByUpcomingPlayers() {
+        if (mostRecentColorCalledByUpcomingPlayers == null) {
+            UnoPlayer.Color[] colors = new UnoPlayer.Color[theGame.h.length];
+            for (int i=0; i<colors.length; i++) {
+                colors[i] = theGame.mostRecentColorCalled[upcomingPlayer(i)];
+            }
+            mostRecentColorCalledByUpcomingPlayers = colors;
+        }
         return mostRecentColorCalledByUpcomingPlayers;
     }
 
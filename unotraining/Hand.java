@@ -88,7 +88,7 @@ public class Hand {
      * @return A Color value, <i>not</i> Color.NONE.
      */
     UnoPlayer.Color callColor(Game game) {
-        return player.callColor(cards);
+        return player.callColor(cards, game.getGameState());
     }
 
     /**
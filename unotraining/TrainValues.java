@@ -75,6 +75,21 @@ public class TrainValues {
         if (args.length > 3)
             gamesPerGen = Integer.parseInt(args[3]);
 
+        // This package's engine plays the official rules only, so variants can't be trained; see uno.RuleSet
+        String rules = System.getProperty("uno.rules");
+        if (rules != null && !rules.trim().isEmpty() && !rules.trim().equals("official"))
+        {
+            System.out.println("TrainValues trains under the official rules only, not \"" + rules + "\".");
+            System.exit(1);
+        }
+
+        // One mutated player against numPlayers-1 baselines, at any table size the engine supports
+        if (numPlayers < Game.MIN_PLAYERS || numPlayers > Game.MAX_PLAYERS)
+        {
+            System.out.println("numPlayers must be from " + Game.MIN_PLAYERS + " to " + Game.MAX_PLAYERS + ".");
+            System.exit(1);
+        }
+
         double[] bestValues = new double[0];
         double[] baselineValues = new double[0];
         // Read the values from the starting generation with error handling
@@ -101,10 +116,12 @@ public class TrainValues {
         as_UnoPlayer bestPlayer = new as_UnoPlayer("BestPlayer", startingGen, bestValues);
         
         // Initialize players array with baselines at all spots except for the first
+        // as_UnoPlayer keeps no state between calls, so every baseline seat can share one instance
         UnoPlayer[] players = new UnoPlayer[numPlayers];
+        as_UnoPlayer baseline = new as_UnoPlayer("Baseline", -1, baselineValues);
         for (int i = 1; i < numPlayers; i++)
         {
-            players[i] = new as_UnoPlayer("Baseline" + i, -1, baselineValues);
+            players[i] = baseline;
         }
 
         // The parents selected from the previous generation to breed for the next generation
@@ -162,7 +179,10 @@ public class TrainValues {
                 mutatedPlayers[p].setPoints(s.getScore(0));
                 mutatedPlayers[p].setWinRate(s.getWinRate(0));
                 
-                System.out.println("Finished player " + p + ". Fitness: " + mutatedPlayers[p].getFitness());
+                System.out.println("Finished player " + p + ". Fitness: " + mutatedPlayers[p].getFitness() +
+                    String.format(" (%.2f +/- %.2f points/game, win rate %.4f +/- %.4f)",
+                        s.getMeanPoints(0), s.getPointsStandardError(0),
+                        s.getWinRate(0), s.getWinRateStandardError(0)));
             }
 
             // Sort mutatedPlayers in descending order by fitness
@@ -39,9 +39,6 @@ public class as_UnoPlayer implements UnoPlayer {
 
     public static final int NUM_VALUES = 12;
 
-    // The game state stored for use during callColor
-    private GameState gameState;
-    
     // Point values and coefficients given to cards in play method
     // The base number of points a number card gets
     private double baseNumberPoints = 1;
@@ -123,6 +120,19 @@ public class as_UnoPlayer implements UnoPlayer {
         // that card a certain number of points if it meets a certain criteria. Then, the card with the 
         // highest number of points is chosen and played.
 
+        // The aggressive conditions below depend only on the other hands, not on the card being scored, so
+        // they are worked out once here rather than for every card
+        // Get the number of cards in the other hands
+        int[] cardsInHands = state.getNumCardsInHandsOfUpcomingPlayers();
+        // Get the minimum number of cards (detect if someone is close to winning) and the corresponding player position
+        int minIndex = min(cardsInHands);
+        int minCards = cardsInHands[minIndex];
+        // Whether a player is close to winning or has a significant lead, and the color they last switched to
+        boolean leaderIsThreat = minCards < 4 || leadRatio(hand, minCards) < significantLeadRatio;
+        Color leaderColor = state.getMostRecentColorCalledByUpcomingPlayers()[minIndex];
+        // Whether the player next to us has a significant lead or is close to winning
+        boolean nextIsThreat = (leadRatio(hand, cardsInHands[0]) < significantLeadRatio) || cardsInHands[0] < 4;
+
         // Index of current hand to play
         // If no valid cards are found, index will remain unchanged
         int index = -1;
@@ -163,21 +173,15 @@ public class as_UnoPlayer implements UnoPlayer {
                 // These conditions are usually activated when a player is close to winning or doing significantly better than us
                 // (These points are awarded in addition to the points awarded previously for benefitting ourselves)
 
-                // Get the number of cards in the other hands
-                int[] cardsInHands = state.getNumCardsInHandsOfUpcomingPlayers();
-                // Get the minimum number of cards (detect if someone is close to winning) and the corresponding player position
-                int minIndex = min(cardsInHands);
-                int minCards = cardsInHands[minIndex];
-
                 // If a player is close to winning or they have a significant lead
-                if ((minCards < 4 || leadRatio(hand, minCards) < significantLeadRatio)
+                if (leaderIsThreat
                     // And this card is not a wild and this card's color is NOT one that the player with the lowest amount of cards last switched to
-                    && (card.getColor() != Color.NONE && card.getColor() != state.getMostRecentColorCalledByUpcomingPlayers()[minIndex]))
+                    && (card.getColor() != Color.NONE && card.getColor() != leaderColor))
                     // Give a point for playing a color that the winning player does not like
                     points += playColorDislikedByHighestPlayerPoints;
 
                 // If the player next to us has a significant lead or is close to winning
-                if ((leadRatio(hand, cardsInHands[0]) < significantLeadRatio) || cardsInHands[0] < 4)
+                if (nextIsThreat)
                 {
                     // Award points to offensive points
                     if (card.getRank() == Rank.REVERSE)
@@ -199,9 +203,6 @@ public class as_UnoPlayer implements UnoPlayer {
             }
         }
         
-        // Store GameState for use in calledColor
-        gameState = state;
-        
         return index;
     }
 
@@ -212,8 +213,21 @@ public class as_UnoPlayer implements UnoPlayer {
      *
      * You must return a valid Color value from this method. You must not
      * return the value Color.NONE under any circumstances.
+     *
+     * Called without a GameState, no colors are known to have been called
+     * by the other players.
      */
     public Color callColor(List<Card> hand)
+    {
+        return callColor(hand, new GameState());
+    }
+
+    /**
+     * callColor - Chooses a color to call using the GameState passed in by
+     * the engine. Nothing is kept between play and callColor, so one
+     * instance can be shared by every game being simulated.
+     */
+    public Color callColor(List<Card> hand, GameState state)
     {
         // Number of points each color gets
         // Points are added or subtracted to each color based on fitness and then the one with the highest amount of points is chosen
@@ -228,7 +242,7 @@ public class as_UnoPlayer implements UnoPlayer {
         
         // Most recent colors
         // Subtract one point from a color if it was called by a player
-        for (Color color : gameState.getMostRecentColorCalledByUpcomingPlayers())
+        for (Color color : state.getMostRecentColorCalledByUpcomingPlayers())
         {
             if (color != null)
                 colorPoints[color.ordinal()] -= calledColorPoints;